@@ -1,5 +1,9 @@
 package com.catface996.aiops.application.api.dto.execution;
 
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.util.RawValue;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,6 +23,7 @@ import java.util.Map;
  * {
  *   "type": "llm.stream",
  *   "runId": "abc-123",
+ *   "sequence": 42,
  *   "agentId": "100",
  *   "agentName": "Agent A",
  *   "agentType": "worker",
@@ -51,6 +56,9 @@ public class ExecutionEventDTO {
     @Schema(description = "诊断任务 ID", example = "1")
     private Long taskId;
 
+    @Schema(description = "事件序号（同一任务内单调递增，同时作为 SSE 事件 id，断线续传时作为 lastEventId）", example = "42")
+    private Long sequence;
+
     @Schema(description = "Agent ID（绑定关系 ID，用于追溯）", example = "100")
     private String agentId;
 
@@ -70,9 +78,32 @@ public class ExecutionEventDTO {
     @Schema(description = "事件时间戳", example = "2025-12-29T10:00:00")
     private LocalDateTime timestamp;
 
-    @Schema(description = "附加元数据")
+    @JsonIgnore
     private Map<String, Object> metadata;
 
+    /**
+     * 附加元数据的原始 JSON（来自 Executor 事件的 data，设置后序列化时原样输出，优先于 metadata）
+     */
+    @JsonIgnore
+    private String rawMetadata;
+
+    /**
+     * 设置附加元数据（反序列化时 metadata 读取为 Map）
+     */
+    @JsonSetter("metadata")
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+    }
+
+    /**
+     * 序列化输出的附加元数据：存在原始 JSON 时直接写出，不再逐个字段序列化
+     */
+    @JsonGetter("metadata")
+    @Schema(name = "metadata", description = "附加元数据")
+    public Object metadataValue() {
+        return rawMetadata != null ? new RawValue(rawMetadata) : metadata;
+    }
+
     // ==================== 兼容旧字段（已废弃，保留向后兼容）====================
 
     @Schema(description = "Agent 角色（已废弃，使用 agentType）", hidden = true)
@@ -0,0 +1,34 @@
+package com.catface996.aiops.application.api.dto.execution.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 续传执行事件请求
+ *
+ * <p>SSE 连接断开后，从事件日志回放指定事件之后的事件，并继续跟随正在进行的执行。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "续传执行事件请求")
+public class ResumeExecutionRequest {
+
+    @NotNull(message = "taskId 不能为空")
+    @Schema(description = "诊断任务 ID（来自 started 事件）", example = "1", required = true)
+    private Long taskId;
+
+    @Min(value = 0, message = "lastEventId 不能为负数")
+    @Schema(description = "已收到的最后一个事件序号（SSE 事件 id），为空时使用 Last-Event-ID 请求头，均为空时从头回放",
+            example = "42")
+    private Long lastEventId;
+}
@@ -0,0 +1,28 @@
+package com.catface996.aiops.application.api.dto.execution.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 观看执行请求
+ *
+ * <p>附加到正在进行的执行上，与触发方共享同一个执行事件流。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "观看执行请求")
+public class WatchExecutionRequest {
+
+    @NotNull(message = "taskId 不能为空")
+    @Schema(description = "诊断任务 ID（来自 started 事件）", example = "1", required = true)
+    private Long taskId;
+}
@@ -0,0 +1,32 @@
+package com.catface996.aiops.application.api.dto.relationship;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 全部循环依赖检测结果DTO
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "全部循环依赖检测结果")
+public class CycleComponentsDTO {
+
+    @Schema(description = "是否存在循环依赖", example = "true")
+    private boolean hasCycle;
+
+    @Schema(description = "循环依赖分量（每组为相互可达的资源ID列表）", example = "[[1, 2, 3], [7, 8]]")
+    private List<List<Long>> components;
+
+    @Schema(description = "消息", example = "检测到 2 组循环依赖")
+    private String message;
+}
@@ -50,6 +50,18 @@ public class TopologyGraphDTO {
     @Builder.Default
     private List<GraphEdgeDTO> edges = new ArrayList<>();
 
+    /**
+     * 边总数
+     */
+    @Schema(description = "边总数（边分页时为分页前的总数）", example = "120")
+    private Long totalEdges;
+
+    /**
+     * 拓扑图变更版本号
+     */
+    @Schema(description = "拓扑图变更版本号（用于增量查询）", example = "42")
+    private Long version;
+
     // ==================== 嵌套类 ====================
 
     /**
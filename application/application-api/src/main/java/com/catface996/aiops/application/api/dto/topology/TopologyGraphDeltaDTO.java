@@ -0,0 +1,58 @@
+package com.catface996.aiops.application.api.dto.topology;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 拓扑图增量数据 DTO
+ *
+ * <p>客户端按以下规则合并：移除 removedNodeIds 中的节点及其关联边，移除 removedEdgeIds 中的边，
+ * 再按ID覆盖 upsertedNodes 和 upsertedEdges。fullResync 为 true 时直接使用 graph 替换本地数据。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "拓扑图增量数据")
+public class TopologyGraphDeltaDTO {
+
+    @Schema(description = "拓扑图ID", example = "1")
+    private Long topologyId;
+
+    @Schema(description = "客户端已同步的版本号", example = "42")
+    private Long sinceVersion;
+
+    @Schema(description = "当前版本号（下次增量查询时携带）", example = "45")
+    private Long version;
+
+    @Schema(description = "是否需要全量同步（变更日志已截断或版本号无效）", example = "false")
+    private boolean fullResync;
+
+    @Schema(description = "全量拓扑图数据（仅 fullResync 为 true 时返回）")
+    private TopologyGraphDTO graph;
+
+    @Schema(description = "新增或更新的节点")
+    @Builder.Default
+    private List<TopologyGraphDTO.GraphNodeDTO> upsertedNodes = new ArrayList<>();
+
+    @Schema(description = "移除的节点ID（其关联边同时移除）")
+    @Builder.Default
+    private List<Long> removedNodeIds = new ArrayList<>();
+
+    @Schema(description = "新增或更新的边")
+    @Builder.Default
+    private List<TopologyGraphDTO.GraphEdgeDTO> upsertedEdges = new ArrayList<>();
+
+    @Schema(description = "移除的边ID")
+    @Builder.Default
+    private List<Long> removedEdgeIds = new ArrayList<>();
+}
@@ -0,0 +1,49 @@
+package com.catface996.aiops.application.api.dto.topology.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 查询拓扑图增量数据请求
+ *
+ * <p>客户端携带上次获取的版本号，只拉取之后变更的节点和边。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "查询拓扑图增量数据请求")
+public class QueryTopologyGraphDeltaRequest {
+
+    /**
+     * 操作人ID
+     */
+    @NotNull(message = "操作人ID不能为空")
+    @Min(value = 0, message = "操作人ID不能为负数")
+    @Schema(description = "操作人ID", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Long operatorId;
+
+    /**
+     * 拓扑图ID
+     */
+    @NotNull(message = "拓扑图ID不能为空")
+    @Min(value = 1, message = "拓扑图ID必须大于0")
+    @Schema(description = "拓扑图ID", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Long topologyId;
+
+    /**
+     * 客户端已同步的版本号（来自上次拓扑图查询或增量查询的 version）
+     */
+    @NotNull(message = "版本号不能为空")
+    @Min(value = 0, message = "版本号不能为负数")
+    @Schema(description = "客户端已同步的版本号", example = "42", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Long sinceVersion;
+}
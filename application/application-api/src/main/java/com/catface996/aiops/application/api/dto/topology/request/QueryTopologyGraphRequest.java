@@ -47,13 +47,23 @@ public class QueryTopologyGraphRequest {
     private Long topologyId;
 
     /**
-     * 展开深度（用于嵌套子图）
+     * 焦点节点ID
+     *
+     * <p>指定时只返回以该节点为中心、{@link #depth} 跳以内的邻域子图（包含邻域节点之间的全部边）；
+     * 为空时返回完整拓扑图。</p>
+     */
+    @Min(value = 1, message = "焦点节点ID必须大于0")
+    @Schema(description = "焦点节点ID（为空时返回完整拓扑图）", example = "10")
+    private Long focusNodeId;
+
+    /**
+     * 展开深度（指定焦点节点时为邻域跳数）
      *
      * <p>默认为1，最大为5。</p>
      */
     @Min(value = 1, message = "深度最小为1")
     @Max(value = 5, message = "深度最大为5")
-    @Schema(description = "展开深度（用于嵌套子图）", example = "1", defaultValue = "1")
+    @Schema(description = "展开深度（指定焦点节点时为邻域跳数）", example = "1", defaultValue = "1")
     @Builder.Default
     private Integer depth = 1;
 
@@ -63,4 +73,20 @@ public class QueryTopologyGraphRequest {
     @Schema(description = "是否包含关系（边）", example = "true", defaultValue = "true")
     @Builder.Default
     private Boolean includeRelationships = true;
+
+    /**
+     * 边分页页码（从1开始，与 edgeSize 一起使用）
+     */
+    @Min(value = 1, message = "边分页页码最小为1")
+    @Schema(description = "边分页页码（从1开始）", example = "1", defaultValue = "1")
+    @Builder.Default
+    private Integer edgePage = 1;
+
+    /**
+     * 边分页大小（为空时返回全部边）
+     */
+    @Min(value = 1, message = "边分页大小最小为1")
+    @Max(value = 1000, message = "边分页大小最大为1000")
+    @Schema(description = "边分页大小（为空时返回全部边）", example = "200")
+    private Integer edgeSize;
 }
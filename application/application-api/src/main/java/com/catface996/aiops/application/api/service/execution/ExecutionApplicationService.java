@@ -2,7 +2,9 @@ package com.catface996.aiops.application.api.service.execution;
 
 import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
 import com.catface996.aiops.application.api.dto.execution.request.CancelExecutionRequest;
+import com.catface996.aiops.application.api.dto.execution.request.ResumeExecutionRequest;
 import com.catface996.aiops.application.api.dto.execution.request.TriggerExecutionRequest;
+import com.catface996.aiops.application.api.dto.execution.request.WatchExecutionRequest;
 import reactor.core.publisher.Flux;
 
 /**
@@ -48,9 +50,37 @@ public interface ExecutionApplicationService {
      * @throws IllegalArgumentException 如果拓扑图不存在
      * @throws IllegalStateException 如果拓扑图缺少 Global Supervisor 或团队
      * @throws RuntimeException 如果 Executor 服务调用失败
+     * @throws com.catface996.aiops.common.exception.BusinessException 如果并发执行数已达上限（TOO_MANY_EXECUTIONS），
+     *         许可在执行流终止时归还，与调用方连接是否断开无关
      */
     Flux<ExecutionEventDTO> triggerExecution(TriggerExecutionRequest request);
 
+    /**
+     * 续传执行事件
+     *
+     * <p>从事件日志回放 lastEventId 之后的事件；执行仍在进行时继续跟随新事件，执行结束后完成。
+     * 触发执行的 SSE 连接断开后执行继续进行并写入日志，续传连接计为观看者；所有连接断开超过
+     * {@code execution.hub.idle-cancel-grace-ms} 后执行被取消。</p>
+     *
+     * <p>事件日志不存在或已过期时，事件流以 {@code EVENT_LOG_NOT_FOUND} 结束；lastEventId 之后的事件
+     * 已被日志长度限制截断时，以 {@code EVENT_LOG_TRIMMED} 结束，不会静默跳过中间的事件。</p>
+     *
+     * @param request 续传请求（包含 taskId 和 lastEventId）
+     * @return 执行事件流（错误以 {@link com.catface996.aiops.common.exception.BusinessException} 信号发出）
+     */
+    Flux<ExecutionEventDTO> resumeExecution(ResumeExecutionRequest request);
+
+    /**
+     * 观看执行
+     *
+     * <p>先回放最近的事件，再接收实时事件，执行结束后完成。执行在本实例时直接共享进程内事件流；
+     * 在其他实例时跟随事件日志，Executor 事件流始终只在触发执行的实例上消费一次。</p>
+     *
+     * @param request 观看请求（包含 taskId）
+     * @return 执行事件流；执行不存在或事件日志已过期时以 {@code EVENT_LOG_NOT_FOUND} 错误结束
+     */
+    Flux<ExecutionEventDTO> watchExecution(WatchExecutionRequest request);
+
     /**
      * 取消正在执行的运行
      *
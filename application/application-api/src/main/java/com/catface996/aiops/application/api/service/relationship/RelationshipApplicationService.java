@@ -82,6 +82,13 @@ public interface RelationshipApplicationService {
      */
     CycleDetectionDTO detectCycle(Long resourceId);
 
+    /**
+     * 检测全部循环依赖
+     *
+     * @return 所有循环依赖分量
+     */
+    CycleComponentsDTO detectAllCycles();
+
     /**
      * 广度优先遍历
      *
@@ -5,13 +5,17 @@ import com.catface996.aiops.application.api.dto.node.NodeDTO;
 import com.catface996.aiops.application.api.dto.topology.HierarchicalTeamDTO;
 import com.catface996.aiops.application.api.dto.topology.TopologyDTO;
 import com.catface996.aiops.application.api.dto.topology.TopologyGraphDTO;
+import com.catface996.aiops.application.api.dto.topology.TopologyGraphDeltaDTO;
 import com.catface996.aiops.application.api.dto.topology.request.CreateTopologyRequest;
 import com.catface996.aiops.application.api.dto.topology.request.HierarchicalTeamQueryRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryMembersRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryTopologiesRequest;
+import com.catface996.aiops.application.api.dto.topology.request.QueryTopologyGraphDeltaRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryTopologyGraphRequest;
 import com.catface996.aiops.application.api.dto.topology.request.UpdateTopologyRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -127,6 +131,29 @@ public interface TopologyApplicationService {
      */
     TopologyGraphDTO getTopologyGraph(QueryTopologyGraphRequest request);
 
+    /**
+     * 以紧凑格式（列式 + 字典编码）输出拓扑图数据
+     *
+     * <p>与 {@link #getTopologyGraph} 使用相同的查询参数，将结果作为一个 JSON 对象写入生成器。
+     * 查询完整拓扑图的全部边时，边从数据库结果集逐行写出，不构建中间列表。
+     * 拓扑图不存在等校验错误在写出任何内容之前抛出。</p>
+     *
+     * @param request   查询请求
+     * @param generator JSON 生成器（调用方负责 flush 和关闭）
+     * @throws IOException 写出失败
+     */
+    void writeTopologyGraphCompact(QueryTopologyGraphRequest request, JsonGenerator generator) throws IOException;
+
+    /**
+     * 获取拓扑图增量数据
+     *
+     * <p>返回客户端已同步版本之后变更的节点和边；变更日志已截断时返回全量数据。</p>
+     *
+     * @param request 查询请求
+     * @return 拓扑图增量数据
+     */
+    TopologyGraphDeltaDTO getTopologyGraphDelta(QueryTopologyGraphDeltaRequest request);
+
     // ===== Global Supervisor Agent 绑定方法 =====
     // Note: 绑定方法已移至 AgentBoundApplicationService (Feature 040)
 
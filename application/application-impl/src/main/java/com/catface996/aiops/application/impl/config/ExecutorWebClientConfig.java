@@ -0,0 +1,118 @@
+package com.catface996.aiops.application.impl.config;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Executor 服务 WebClient 配置
+ *
+ * <p>为 Executor 服务提供两个相互隔离的 Reactor Netty 连接池：</p>
+ * <ul>
+ *   <li>control：创建层级、启动/取消运行等短请求</li>
+ *   <li>stream：长时间保持的 SSE 事件流</li>
+ * </ul>
+ *
+ * <p>长连接事件流占满连接池时，控制请求仍有独立的连接可用，不会排在事件流之后等待。</p>
+ *
+ * <p>两个连接池均配置最大连接数、等待获取上限、空闲/存活时间淘汰，开启 TCP keep-alive 与 HTTP 压缩，
+ * 并通过 Micrometer 全局注册表暴露连接池与客户端指标（reactor.netty.connection.provider.*、reactor.netty.http.client.*）。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Slf4j
+@Configuration
+public class ExecutorWebClientConfig {
+
+    @Value("${executor.service.base-url}")
+    private String baseUrl;
+
+    @Value("${executor.service.timeout.connect:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${executor.service.timeout.read:60000}")
+    private long readTimeoutMs;
+
+    @Value("${executor.service.stream.idle-timeout-ms:90000}")
+    private long streamIdleTimeoutMs;
+
+    @Value("${executor.service.pool.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${executor.service.pool.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+
+    @Value("${executor.service.pool.max-life-time-ms:300000}")
+    private long maxLifeTimeMs;
+
+    @Value("${executor.service.pool.evict-interval-ms:30000}")
+    private long evictIntervalMs;
+
+    /**
+     * 控制请求 WebClient（create / start / cancel / health）
+     *
+     * @param maxConnections        最大连接数
+     * @param pendingAcquireMaxCount 等待获取连接的最大请求数
+     * @return WebClient
+     */
+    @Bean
+    public WebClient executorControlWebClient(
+            @Value("${executor.service.pool.control.max-connections:50}") int maxConnections,
+            @Value("${executor.service.pool.control.pending-acquire-max-count:200}") int pendingAcquireMaxCount) {
+        return buildWebClient("executor-control", maxConnections, pendingAcquireMaxCount, readTimeoutMs);
+    }
+
+    /**
+     * 事件流 WebClient（runs/stream）
+     *
+     * @param maxConnections        最大连接数（即最大并发事件流数）
+     * @param pendingAcquireMaxCount 等待获取连接的最大请求数
+     * @return WebClient
+     */
+    @Bean
+    public WebClient executorStreamWebClient(
+            @Value("${executor.service.pool.stream.max-connections:500}") int maxConnections,
+            @Value("${executor.service.pool.stream.pending-acquire-max-count:1000}") int pendingAcquireMaxCount) {
+        // 事件流在推理阶段可能长时间没有业务事件，读取间隔上限与心跳感知的空闲超时一致，而不是控制请求的读取超时
+        return buildWebClient("executor-stream", maxConnections, pendingAcquireMaxCount, streamIdleTimeoutMs);
+    }
+
+    private WebClient buildWebClient(String name, int maxConnections, int pendingAcquireMaxCount,
+                                     long responseTimeoutMs) {
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(evictIntervalMs))
+                .metrics(true)
+                .build();
+
+        // responseTimeout 为两次读取之间的最大间隔
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .compress(true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .metrics(true, Function.identity());
+
+        log.info("Executor WebClient '{}' initialized with baseUrl: {}, maxConnections: {}, pendingAcquireMaxCount: {}",
+                name, baseUrl, maxConnections, pendingAcquireMaxCount);
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
@@ -13,9 +13,7 @@ import com.catface996.aiops.domain.model.agentbound.AgentBound;
 import com.catface996.aiops.domain.model.agentbound.BoundEntityType;
 import com.catface996.aiops.domain.service.agentbound.AgentBoundDomainService;
 import com.catface996.aiops.repository.agent.AgentRepository;
-import com.catface996.aiops.repository.node.NodeRepository;
 import com.catface996.aiops.repository.topology2.TopologyRepository;
-import com.catface996.aiops.domain.model.node.Node;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -40,16 +38,13 @@ public class AgentBoundApplicationServiceImpl implements AgentBoundApplicationSe
     private final AgentBoundDomainService agentBoundDomainService;
     private final AgentRepository agentRepository;
     private final TopologyRepository topologyRepository;
-    private final NodeRepository nodeRepository;
 
     public AgentBoundApplicationServiceImpl(AgentBoundDomainService agentBoundDomainService,
                                              AgentRepository agentRepository,
-                                             TopologyRepository topologyRepository,
-                                             NodeRepository nodeRepository) {
+                                             TopologyRepository topologyRepository) {
         this.agentBoundDomainService = agentBoundDomainService;
         this.agentRepository = agentRepository;
         this.topologyRepository = topologyRepository;
-        this.nodeRepository = nodeRepository;
     }
 
     @Override
@@ -152,66 +147,81 @@ public class AgentBoundApplicationServiceImpl implements AgentBoundApplicationSe
         var topology = topologyRepository.findById(topologyId)
                 .orElseThrow(() -> new IllegalArgumentException("Topology 不存在: " + topologyId));
 
-        // 2. 查询 Topology 下的所有节点（不分页，获取全部）
-        List<Node> allNodes = nodeRepository.findByCondition(null, null, null, null, topologyId, 1, Integer.MAX_VALUE);
-        log.info("Topology {} 下共有 {} 个节点", topologyId, allNodes.size());
+        // 2. 单次流式查询 Global Supervisor 与所有成员 Node 的绑定（不分页，同一 Node 的记录连续返回）
+        HierarchyAssembler assembler = new HierarchyAssembler();
+        agentBoundDomainService.scanHierarchyMembers(topologyId, assembler::accept);
+        List<HierarchyTeamDTO> teams = assembler.finish();
+        AgentDTO globalSupervisor = assembler.globalSupervisor;
+        log.info("Topology {} 下共有 {} 个节点", topologyId, teams.size());
 
-        // 3. 查询所有绑定
-        List<AgentBound> allBindings = agentBoundDomainService.queryHierarchyByTopology(topologyId);
+        // 3. 构建返回结果
+        return HierarchyStructureDTO.builder()
+                .topologyId(topologyId)
+                .topologyName(topology.getName())
+                .globalSupervisor(globalSupervisor)
+                .teams(teams)
+                .build();
+    }
+
+    /**
+     * 层级结构组装器
+     *
+     * <p>按流式查询的回调顺序逐条组装：同一 Node 的记录连续到达，Node 切换时生成上一个团队，
+     * 仅保留当前 Node 的中间状态。</p>
+     */
+    private final class HierarchyAssembler {
+
+        private AgentDTO globalSupervisor;
+        private final List<HierarchyTeamDTO> teams = new ArrayList<>();
 
-        // 4. 分离 Global Supervisor 和 Node 团队绑定
-        AgentDTO globalSupervisor = null;
-        Map<Long, List<AgentBound>> nodeBindingsMap = new LinkedHashMap<>();
+        private Long currentNodeId;
+        private String currentNodeName;
+        private AgentDTO currentSupervisor;
+        private List<AgentDTO> currentWorkers;
 
-        for (AgentBound binding : allBindings) {
-            if (binding.isGlobalSupervisorBinding()) {
+        void accept(AgentBound row) {
+            if (row.getEntityType() == BoundEntityType.TOPOLOGY) {
                 // 一个 Topology 只有一个 Global Supervisor
-                if (globalSupervisor == null) {
-                    globalSupervisor = toAgentDTO(binding);
+                if (globalSupervisor == null && row.isGlobalSupervisorBinding()) {
+                    globalSupervisor = toAgentDTO(row);
                 }
-            } else {
-                // Node 绑定
-                Long nodeId = binding.getEntityId();
-                nodeBindingsMap.computeIfAbsent(nodeId, k -> new ArrayList<>()).add(binding);
+                return;
+            }
+            if (!row.getEntityId().equals(currentNodeId)) {
+                flushTeam();
+                currentNodeId = row.getEntityId();
+                currentNodeName = row.getEntityName();
+                currentSupervisor = null;
+                currentWorkers = new ArrayList<>();
+            }
+            // 未绑定 Agent 的 Node 仅有一条 id 为 null 的记录，团队照常返回
+            if (row.getId() == null) {
+                return;
+            }
+            if (row.isTeamSupervisorBinding()) {
+                currentSupervisor = toAgentDTO(row);
+            } else if (row.isWorkerBinding()) {
+                currentWorkers.add(toAgentDTO(row));
             }
         }
 
-        // 5. 构建团队列表（即使节点没有绑定 Agent 也会返回）
-        List<HierarchyTeamDTO> teams = new ArrayList<>();
-        for (Node node : allNodes) {
-            Long nodeId = node.getId();
-            String nodeName = node.getName();
-
-            AgentDTO supervisor = null;
-            List<AgentDTO> workers = new ArrayList<>();
-
-            // 如果该节点有绑定记录，则从绑定中获取 Agent 信息
-            List<AgentBound> nodeBindings = nodeBindingsMap.get(nodeId);
-            if (nodeBindings != null) {
-                for (AgentBound b : nodeBindings) {
-                    if (b.isTeamSupervisorBinding()) {
-                        supervisor = toAgentDTO(b);
-                    } else if (b.isWorkerBinding()) {
-                        workers.add(toAgentDTO(b));
-                    }
-                }
-            }
+        List<HierarchyTeamDTO> finish() {
+            flushTeam();
+            return teams;
+        }
 
+        private void flushTeam() {
+            if (currentNodeId == null) {
+                return;
+            }
             teams.add(HierarchyTeamDTO.builder()
-                    .nodeId(nodeId)
-                    .nodeName(nodeName)
-                    .supervisor(supervisor)
-                    .workers(workers)
+                    .nodeId(currentNodeId)
+                    .nodeName(currentNodeName)
+                    .supervisor(currentSupervisor)
+                    .workers(currentWorkers)
                     .build());
+            currentNodeId = null;
         }
-
-        // 6. 构建返回结果
-        return HierarchyStructureDTO.builder()
-                .topologyId(topologyId)
-                .topologyName(topology.getName())
-                .globalSupervisor(globalSupervisor)
-                .teams(teams)
-                .build();
     }
 
     // ===== DTO 转换方法 =====
@@ -3,20 +3,22 @@ package com.catface996.aiops.application.impl.service.diagnosis;
 import com.catface996.aiops.domain.model.diagnosis.AgentDiagnosisProcess;
 import com.catface996.aiops.domain.model.diagnosis.DiagnosisTask;
 import com.catface996.aiops.domain.model.diagnosis.DiagnosisTaskStatus;
+import com.catface996.aiops.infrastructure.cache.redis.diagnosis.AgentStreamSnapshot;
 import com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService;
 import com.catface996.aiops.repository.diagnosis.AgentDiagnosisProcessRepository;
 import com.catface996.aiops.repository.diagnosis.DiagnosisTaskRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * 诊断数据持久化服务
@@ -36,6 +38,28 @@ public class DiagnosisPersistenceService {
     private final AgentDiagnosisProcessRepository agentDiagnosisProcessRepository;
     private final DiagnosisStreamCacheService cacheService;
 
+    /**
+     * 增量持久化的单个片段最大字节数
+     */
+    @Value("${diagnosis.persistence.segment-bytes:262144}")
+    private int segmentBytes;
+
+    /**
+     * 检查点进度与已结束任务标记的保留时间，超时未访问的条目被清理（防止未正常结束的任务泄漏）
+     */
+    @Value("${diagnosis.persistence.checkpoint-ttl-ms:3600000}")
+    private long checkpointTtlMs;
+
+    /**
+     * 本实例内各 Agent 的检查点进度，key 为 taskId:agentBoundId
+     */
+    private final Map<String, AgentCheckpoint> agentCheckpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 已执行最终持久化的任务（taskId -> 结束时间毫秒），之后到达的增量持久化直接跳过
+     */
+    private final Map<Long, Long> finalizedTasks = new ConcurrentHashMap<>();
+
     /**
      * 异步处理诊断完成
      */
@@ -83,52 +107,201 @@ public class DiagnosisPersistenceService {
      */
     @Transactional
     public void persistAndComplete(Long taskId, DiagnosisTaskStatus status, String message) {
-        // 持久化已收集的流式数据
-        if (cacheService.hasTaskData(taskId)) {
-            persistAgentDiagnosisProcesses(taskId);
+        try {
+            // 一次性批量获取所有 Agent 的元数据与内容长度
+            List<AgentStreamSnapshot> snapshots = cacheService.getTaskSnapshot(taskId);
+
+            // 持久化已收集的流式数据
+            if (!snapshots.isEmpty()) {
+                persistAgentDiagnosisProcesses(taskId, snapshots);
+            }
+
+            // 更新任务状态
+            updateTaskStatus(taskId, status, message);
+
+            // 清理 Redis 缓存（单次 UNLINK）
+            cacheService.cleanupTaskData(taskId, snapshots.stream()
+                    .map(AgentStreamSnapshot::getAgentBoundId)
+                    .collect(Collectors.toList()));
+
+            log.info("诊断任务处理完成，taskId: {}, status: {}", taskId, status);
+        } finally {
+            // 失败路径同样释放检查点进度，避免条目泄漏
+            finalizeTask(taskId);
         }
+    }
 
-        // 更新任务状态
-        updateTaskStatus(taskId, status, message);
+    /**
+     * 持久化 Agent 诊断过程（任务结束时的最终检查点）
+     *
+     * <p>对每个 Agent 执行一次检查点：已在 lifecycle.completed 时增量持久化的内容不会重复读取，
+     * 剩余内容按片段追加到数据库。每个片段单独提交，不使用大事务，内存占用与运行时长无关。</p>
+     *
+     * <p>每个 Agent 的最终检查点完成后即标记为已结束；任务级的结束标记由调用方
+     * {@link #persistAndComplete} 在 finally 中统一写入，之后才到达的增量持久化
+     * （{@link #checkpointAgentAsync}）会被跳过，不会再创建第二条记录。</p>
+     *
+     * @param taskId    诊断任务ID
+     * @param snapshots 由 {@link DiagnosisStreamCacheService#getTaskSnapshot} 批量获取的 Agent 快照
+     */
+    public void persistAgentDiagnosisProcesses(Long taskId, List<AgentStreamSnapshot> snapshots) {
+        int persisted = 0;
+        for (AgentStreamSnapshot snapshot : snapshots) {
+            if (checkpointAgent(taskId, snapshot, true)) {
+                persisted++;
+            }
+        }
+        log.info("已保存 {} 条 Agent 诊断过程记录，taskId: {}", persisted, taskId);
+    }
 
-        // 清理 Redis 缓存
-        cacheService.cleanupTaskData(taskId);
+    /**
+     * 异步增量持久化单个 Agent（在 lifecycle.completed 时触发）
+     *
+     * <p>快照在 Agent 检查点锁内读取：若等待锁期间任务已完成最终持久化，则直接跳过。</p>
+     */
+    @Async("diagnosisExecutor")
+    public void checkpointAgentAsync(Long taskId, Long agentBoundId) {
+        try {
+            evictExpiredCheckpoints();
+            AgentCheckpoint checkpoint = acquireCheckpoint(taskId, agentBoundId);
+            if (checkpoint == null) {
+                return;
+            }
+            synchronized (checkpoint) {
+                if (checkpoint.finalized) {
+                    return;
+                }
+                Map<String, String> meta = cacheService.getAgentMeta(taskId, agentBoundId);
+                if (meta.isEmpty()) {
+                    return;
+                }
+                long contentLength = cacheService.getAgentContentLength(taskId, agentBoundId);
+                checkpointLocked(taskId, checkpoint, new AgentStreamSnapshot(agentBoundId, meta, contentLength), false);
+            }
+        } catch (Exception e) {
+            log.error("Agent 诊断过程增量持久化失败，taskId: {}, agentBoundId: {}, error: {}",
+                    taskId, agentBoundId, e.getMessage(), e);
+        }
+    }
 
-        log.info("诊断任务处理完成，taskId: {}, status: {}", taskId, status);
+    /**
+     * 增量持久化单个 Agent 的诊断过程
+     *
+     * <p>首次调用时创建数据库记录，之后从上次持久化的游标开始分段读取新增内容，
+     * 每个片段作为一行追加到该记录的内容片段中，写入后更新游标。
+     * 同一 Agent 的检查点串行执行；本实例已有的检查点进度优先于快照中的进度，
+     * 避免快照获取后发生的增量持久化被重复写入。</p>
+     *
+     * @param taskId          诊断任务ID
+     * @param snapshot        Agent 快照（元数据与内容长度）
+     * @param finalCheckpoint 是否为任务结束时的最终检查点（无任何输出时写入"无输出"）
+     * @return 是否执行了持久化（快照中无元数据时返回 false）
+     */
+    private boolean checkpointAgent(Long taskId, AgentStreamSnapshot snapshot, boolean finalCheckpoint) {
+        if (snapshot.getMeta().isEmpty()) {
+            return false;
+        }
+        AgentCheckpoint checkpoint = agentCheckpoints.computeIfAbsent(taskId + ":" + snapshot.getAgentBoundId(),
+                key -> new AgentCheckpoint());
+        synchronized (checkpoint) {
+            if (checkpoint.finalized) {
+                return false;
+            }
+            boolean persisted = checkpointLocked(taskId, checkpoint, snapshot, finalCheckpoint);
+            if (finalCheckpoint) {
+                checkpoint.finalized = true;
+            }
+            return persisted;
+        }
     }
 
     /**
-     * 持久化 Agent 诊断过程
+     * 在持有检查点锁时执行增量持久化
      */
-    @Transactional
-    public void persistAgentDiagnosisProcesses(Long taskId) {
-        Set<Long> agentBoundIds = cacheService.getAgentBoundIds(taskId);
-        if (agentBoundIds.isEmpty()) {
-            log.warn("没有找到 Agent 诊断数据，taskId: {}", taskId);
-            return;
+    private boolean checkpointLocked(Long taskId, AgentCheckpoint checkpoint, AgentStreamSnapshot snapshot,
+                                     boolean finalCheckpoint) {
+        Long agentBoundId = snapshot.getAgentBoundId();
+        checkpoint.lastAccessMillis = System.currentTimeMillis();
+        if (checkpoint.processId == null) {
+            checkpoint.processId = snapshot.getPersistedProcessId();
+            checkpoint.cursor = snapshot.getPersistedCursor();
         }
 
-        List<AgentDiagnosisProcess> processes = new ArrayList<>();
-        for (Long agentBoundId : agentBoundIds) {
-            String content = cacheService.getAgentContent(taskId, agentBoundId);
-            Map<String, String> meta = cacheService.getAgentMeta(taskId, agentBoundId);
-            String agentName = meta.getOrDefault("agentName", "Unknown");
-            LocalDateTime startedAt = cacheService.getAgentStartedAt(taskId, agentBoundId);
-            LocalDateTime endedAt = cacheService.getAgentEndedAt(taskId, agentBoundId);
-
-            AgentDiagnosisProcess process = (content == null || content.isEmpty())
-                    ? AgentDiagnosisProcess.createNoOutput(taskId, agentBoundId, agentName)
-                    : AgentDiagnosisProcess.create(taskId, agentBoundId, agentName);
-            process.setContent(content);
-            process.setStartedAt(startedAt);
+        LocalDateTime endedAt = snapshot.getEndedAt();
+        if (checkpoint.processId == null) {
+            AgentDiagnosisProcess process = AgentDiagnosisProcess.create(
+                    taskId, agentBoundId, snapshot.getAgentName());
+            process.setStartedAt(snapshot.getStartedAt());
             process.setEndedAt(endedAt);
-            processes.add(process);
+            checkpoint.processId = agentDiagnosisProcessRepository.save(process).getId();
+            cacheService.saveAgentPersistCheckpoint(taskId, agentBoundId, checkpoint.processId, checkpoint.cursor);
+        } else if (endedAt != null) {
+            agentDiagnosisProcessRepository.updateEndedAt(checkpoint.processId, endedAt);
         }
 
-        if (!processes.isEmpty()) {
-            int saved = agentDiagnosisProcessRepository.batchSave(processes);
-            log.info("已保存 {} 条 Agent 诊断过程记录，taskId: {}", saved, taskId);
+        Long processId = checkpoint.processId;
+        if (checkpoint.cursor < snapshot.getContentLength()) {
+            checkpoint.cursor = cacheService.readAgentContentSegments(taskId, agentBoundId, checkpoint.cursor,
+                    snapshot.getContentLength(), segmentBytes,
+                    (segment, nextCursor) -> {
+                        // 以片段结束处的游标作为序号：单调递增，重试写入同一片段时被忽略
+                        agentDiagnosisProcessRepository.appendContent(processId, nextCursor, segment);
+                        cacheService.saveAgentPersistCheckpoint(taskId, agentBoundId, processId, nextCursor);
+                    });
         }
+
+        if (finalCheckpoint && checkpoint.cursor == 0) {
+            agentDiagnosisProcessRepository.appendContent(processId, 0L, AgentDiagnosisProcess.NO_OUTPUT_CONTENT);
+        }
+        log.debug("Agent 诊断过程已持久化到游标 {}，taskId: {}, agentBoundId: {}",
+                checkpoint.cursor, taskId, agentBoundId);
+        return true;
+    }
+
+    /**
+     * 获取 Agent 的检查点进度；任务已完成最终持久化时返回 null
+     *
+     * <p>先登记条目再检查结束标记：{@link #finalizeTask} 先写结束标记再移除条目，
+     * 因此两者交错时至少有一方能观察到任务已结束。</p>
+     */
+    private AgentCheckpoint acquireCheckpoint(Long taskId, Long agentBoundId) {
+        if (finalizedTasks.containsKey(taskId)) {
+            return null;
+        }
+        AgentCheckpoint checkpoint = agentCheckpoints.computeIfAbsent(taskId + ":" + agentBoundId,
+                key -> new AgentCheckpoint());
+        if (finalizedTasks.containsKey(taskId)) {
+            agentCheckpoints.remove(taskId + ":" + agentBoundId, checkpoint);
+            return null;
+        }
+        return checkpoint;
+    }
+
+    /**
+     * 标记任务已结束并释放其检查点进度
+     */
+    private void finalizeTask(Long taskId) {
+        finalizedTasks.put(taskId, System.currentTimeMillis());
+        String keyPrefix = taskId + ":";
+        agentCheckpoints.entrySet().removeIf(entry -> {
+            if (!entry.getKey().startsWith(keyPrefix)) {
+                return false;
+            }
+            synchronized (entry.getValue()) {
+                entry.getValue().finalized = true;
+            }
+            return true;
+        });
+        evictExpiredCheckpoints();
+    }
+
+    /**
+     * 清理超过保留时间的检查点进度（任务未正常结束）与已结束任务标记
+     */
+    private void evictExpiredCheckpoints() {
+        long expireBefore = System.currentTimeMillis() - checkpointTtlMs;
+        agentCheckpoints.values().removeIf(checkpoint -> checkpoint.lastAccessMillis < expireBefore);
+        finalizedTasks.values().removeIf(finalizedAt -> finalizedAt < expireBefore);
     }
 
     /**
@@ -154,4 +327,14 @@ public class DiagnosisPersistenceService {
     public void updateRunId(Long taskId, String runId) {
         diagnosisTaskRepository.updateRunId(taskId, runId);
     }
+
+    /**
+     * 单个 Agent 的增量持久化进度（同时作为该 Agent 检查点的串行锁）
+     */
+    private static final class AgentCheckpoint {
+        private Long processId;
+        private long cursor;
+        private boolean finalized;
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+    }
 }
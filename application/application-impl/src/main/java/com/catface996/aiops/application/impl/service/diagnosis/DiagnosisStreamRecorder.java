@@ -0,0 +1,163 @@
+package com.catface996.aiops.application.impl.service.diagnosis;
+
+import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
+import com.catface996.aiops.infrastructure.cache.redis.diagnosis.ReactiveDiagnosisStreamCacheService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 诊断流式数据记录器（响应式）
+ *
+ * <p>作为 executor 事件流的一个处理阶段，将 Agent 流式输出写入 Redis：</p>
+ * <ul>
+ *   <li>事件原样透传给下游（浏览器 SSE）</li>
+ *   <li>旁路分支按时间/数量窗口攒批，同一批次内按 Agent 合并片段</li>
+ *   <li>批次之间通过 concatMap 串行写入，保证同一 Agent 的片段顺序；批次内不同 Agent 以有限并发写入</li>
+ *   <li>写入使用 {@link ReactiveDiagnosisStreamCacheService}，Redis 变慢时通过背压减缓上游消费，而不是阻塞 I/O 线程</li>
+ * </ul>
+ *
+ * <p>旁路分支在所有批次写入完成后才结束，因此下游的完成信号一定在最后一批数据落入 Redis 之后。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class DiagnosisStreamRecorder {
+
+    private static final String TYPE_LLM_STREAM = "llm.stream";
+    private static final String TYPE_LLM_REASONING = "llm.reasoning";
+    private static final String TYPE_LIFECYCLE_STARTED = "lifecycle.started";
+    private static final String TYPE_LIFECYCLE_COMPLETED = "lifecycle.completed";
+
+    private final ReactiveDiagnosisStreamCacheService reactiveCacheService;
+    private final DiagnosisPersistenceService persistenceService;
+    private final int maxBatchEvents;
+    private final Duration batchWindow;
+    private final int maxConcurrency;
+
+    public DiagnosisStreamRecorder(
+            ReactiveDiagnosisStreamCacheService reactiveCacheService,
+            DiagnosisPersistenceService persistenceService,
+            @Value("${diagnosis.stream.pipeline.max-batch-events:256}") int maxBatchEvents,
+            @Value("${diagnosis.stream.pipeline.window-ms:200}") long windowMs,
+            @Value("${diagnosis.stream.pipeline.max-concurrency:4}") int maxConcurrency) {
+        this.reactiveCacheService = reactiveCacheService;
+        this.persistenceService = persistenceService;
+        this.maxBatchEvents = maxBatchEvents;
+        this.batchWindow = Duration.ofMillis(windowMs);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * 为事件流附加 Redis 记录阶段
+     *
+     * @param taskId 诊断任务ID
+     * @param events 已转换的执行事件流
+     * @return 透传的事件流（完成信号在数据写入 Redis 后发出）
+     */
+    public Flux<ExecutionEventDTO> record(Long taskId, Flux<ExecutionEventDTO> events) {
+        return Flux.defer(() -> {
+            RecordingState state = new RecordingState();
+            return events.publish(shared -> Flux.merge(
+                    shared,
+                    shared.filter(this::isRecordable)
+                            .bufferTimeout(maxBatchEvents, batchWindow, true)
+                            .concatMap(batch -> writeBatch(taskId, batch, state))
+                            .thenMany(Flux.<ExecutionEventDTO>empty())
+            ));
+        });
+    }
+
+    private boolean isRecordable(ExecutionEventDTO event) {
+        if (event == null || event.getAgentId() == null || event.getType() == null) {
+            return false;
+        }
+        String type = event.getType();
+        return TYPE_LLM_STREAM.equals(type) || TYPE_LLM_REASONING.equals(type)
+                || TYPE_LIFECYCLE_STARTED.equals(type) || TYPE_LIFECYCLE_COMPLETED.equals(type);
+    }
+
+    /**
+     * 写入一个批次：先按 Agent 合并追加内容，再标记结束的 Agent 并触发其增量持久化
+     */
+    private Mono<Void> writeBatch(Long taskId, List<ExecutionEventDTO> batch, RecordingState state) {
+        Map<Long, AgentChunk> chunks = new LinkedHashMap<>();
+        Set<Long> endedAgents = new LinkedHashSet<>();
+
+        for (ExecutionEventDTO event : batch) {
+            Long agentBoundId;
+            try {
+                agentBoundId = Long.parseLong(event.getAgentId());
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring event with non-numeric agentId: {}", event.getAgentId());
+                continue;
+            }
+            String type = event.getType();
+            if (TYPE_LIFECYCLE_COMPLETED.equals(type)) {
+                endedAgents.add(agentBoundId);
+                continue;
+            }
+            if (!TYPE_LIFECYCLE_STARTED.equals(type) && event.getContent() == null) {
+                continue;
+            }
+            AgentChunk chunk = chunks.computeIfAbsent(agentBoundId,
+                    id -> new AgentChunk(event.getAgentName() != null ? event.getAgentName() : "Unknown"));
+            if (!TYPE_LIFECYCLE_STARTED.equals(type)) {
+                chunk.content.append(event.getContent());
+            }
+        }
+
+        Flux<Void> appends = Flux.fromIterable(chunks.entrySet())
+                .flatMap(entry -> {
+                    Long agentBoundId = entry.getKey();
+                    String content = entry.getValue().content.toString();
+                    boolean initAgent = state.initializedAgents.add(agentBoundId);
+                    return reactiveCacheService.appendStreamContents(taskId, agentBoundId, entry.getValue().agentName,
+                            content, LocalDateTime.now(), initAgent);
+                }, maxConcurrency);
+        Flux<Void> ends = Flux.fromIterable(endedAgents)
+                .flatMap(agentBoundId -> reactiveCacheService.markAgentEnded(taskId, agentBoundId)
+                        // Agent 完成后立即增量持久化，避免内容堆积到任务结束
+                        .doOnSuccess(v -> persistenceService.checkpointAgentAsync(taskId, agentBoundId)),
+                        maxConcurrency);
+
+        return appends.thenMany(ends)
+                .then()
+                .onErrorResume(e -> {
+                    log.error("Failed to record diagnosis stream batch, taskId: {}, error: {}", taskId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * 单次运行内的写入状态（批次串行处理，无需并发容器）
+     */
+    private static final class RecordingState {
+        private final Set<Long> initializedAgents = new HashSet<>();
+    }
+
+    /**
+     * 批次内单个 Agent 的合并内容
+     */
+    private static final class AgentChunk {
+        private final String agentName;
+        private final StringBuilder content = new StringBuilder();
+
+        private AgentChunk(String agentName) {
+            this.agentName = agentName;
+        }
+    }
+}
@@ -3,26 +3,33 @@ package com.catface996.aiops.application.impl.service.execution;
 import com.catface996.aiops.application.api.dto.agentbound.HierarchyStructureDTO;
 import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
 import com.catface996.aiops.application.api.dto.execution.request.CancelExecutionRequest;
+import com.catface996.aiops.application.api.dto.execution.request.ResumeExecutionRequest;
 import com.catface996.aiops.application.api.dto.execution.request.TriggerExecutionRequest;
+import com.catface996.aiops.application.api.dto.execution.request.WatchExecutionRequest;
 import com.catface996.aiops.application.api.service.agentbound.AgentBoundApplicationService;
 import com.catface996.aiops.application.api.service.execution.ExecutionApplicationService;
 import com.catface996.aiops.application.impl.service.diagnosis.DiagnosisPersistenceService;
+import com.catface996.aiops.application.impl.service.diagnosis.DiagnosisStreamRecorder;
+import com.catface996.aiops.application.impl.service.execution.client.ExecutorEventDecoder;
 import com.catface996.aiops.application.impl.service.execution.client.ExecutorServiceClient;
 import com.catface996.aiops.application.impl.service.execution.client.dto.CreateHierarchyRequest;
 import com.catface996.aiops.application.impl.service.execution.client.dto.ExecutorEvent;
 import com.catface996.aiops.application.impl.service.execution.client.dto.StartRunRequest;
+import com.catface996.aiops.application.impl.service.execution.client.dto.StartRunResponse;
 import com.catface996.aiops.application.impl.service.execution.transformer.HierarchyTransformer;
+import com.catface996.aiops.common.enums.ExecutionErrorCode;
+import com.catface996.aiops.common.exception.BusinessException;
 import com.catface996.aiops.domain.model.diagnosis.DiagnosisTask;
-import com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService;
 import com.catface996.aiops.repository.diagnosis.DiagnosisTaskRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 
 /**
  * 执行应用服务实现
@@ -40,9 +47,13 @@ public class ExecutionApplicationServiceImpl implements ExecutionApplicationServ
     private final AgentBoundApplicationService agentBoundApplicationService;
     private final ExecutorServiceClient executorServiceClient;
     private final HierarchyTransformer hierarchyTransformer;
+    private final HierarchyResolver hierarchyResolver;
     private final DiagnosisTaskRepository diagnosisTaskRepository;
     private final DiagnosisPersistenceService persistenceService;
-    private final DiagnosisStreamCacheService cacheService;
+    private final DiagnosisStreamRecorder streamRecorder;
+    private final ExecutionEventLogRecorder eventLogRecorder;
+    private final ExecutionEventCoalescer eventCoalescer;
+    private final ExecutionRunHub runHub;
 
     @Override
     public Flux<ExecutionEventDTO> triggerExecution(TriggerExecutionRequest request) {
@@ -70,63 +81,127 @@ public class ExecutionApplicationServiceImpl implements ExecutionApplicationServ
             return Flux.just(ExecutionEventDTO.error("Topology has no teams configured"));
         }
 
-        // Step 3: 创建诊断任务（在调用 executor 之前）
-        DiagnosisTask diagnosisTask = createDiagnosisTask(
-                request.getTopologyId(),
-                request.getUserMessage(),
-                request.getUserId()
-        );
-        final Long taskId = diagnosisTask.getId();
-        log.info("Created diagnosis task: {}", taskId);
+        // 准入控制：超过并发上限直接拒绝，避免突发请求耗尽 Executor 与 Redis 容量；许可在执行流终止时归还
+        if (!runHub.tryAcquirePermit()) {
+            log.warn("Rejected execution for topology {}: {} concurrent runs in progress",
+                    request.getTopologyId(), runHub.getMaxConcurrentRuns());
+            throw new BusinessException(ExecutionErrorCode.TOO_MANY_EXECUTIONS, runHub.getMaxConcurrentRuns());
+        }
 
-        // Step 4: 转换为 Executor 格式
-        CreateHierarchyRequest createRequest = hierarchyTransformer.transform(hierarchyStructure);
+        final Long taskId;
+        final CreateHierarchyRequest createRequest;
+        try {
+            // Step 3: 创建诊断任务（在调用 executor 之前）
+            DiagnosisTask diagnosisTask = createDiagnosisTask(
+                    request.getTopologyId(),
+                    request.getUserMessage(),
+                    request.getUserId()
+            );
+            taskId = diagnosisTask.getId();
+            log.info("Created diagnosis task: {}", taskId);
+
+            // Step 4: 转换为 Executor 格式
+            createRequest = hierarchyTransformer.transform(hierarchyStructure);
+        } catch (RuntimeException e) {
+            runHub.releasePermit();
+            throw e;
+        }
 
-        log.info("Creating hierarchy '{}' with {} teams",
+        log.info("Resolving hierarchy '{}' with {} teams",
                 createRequest.getName(),
                 createRequest.getTeams() != null ? createRequest.getTeams().size() : 0);
 
-        // Step 5: 调用 Executor 服务（异步流）
-        return executorServiceClient.createHierarchy(createRequest)
-                .flatMapMany(createResponse -> {
-                    log.info("Hierarchy created: {}", createResponse.getHierarchyId());
-
-                    StartRunRequest startRequest = StartRunRequest.builder()
-                            .hierarchyId(createResponse.getHierarchyId())
-                            .task(request.getUserMessage())
-                            .build();
-
-                    return executorServiceClient.startRun(startRequest)
-                            .flatMapMany(startResponse -> {
-                                log.info("Run started: {}", startResponse.getRunId());
-                                String runId = startResponse.getRunId();
-
-                                // 更新诊断任务的 runId
-                                diagnosisTaskRepository.updateRunId(taskId, runId);
-
-                                // 获取 Executor 的事件流
-                                Flux<ExecutorEvent> eventStream = executorServiceClient.streamEvents(runId);
-
-                                // 转换并收集流式数据到 Redis
-                                return eventStream
-                                        .map(this::transformEvent)
-                                        .doOnNext(event -> collectDiagnosisEvent(taskId, event))
-                                        .doOnComplete(() -> onDiagnosisComplete(taskId))
-                                        .doOnError(error -> onDiagnosisError(taskId, error.getMessage()))
-                                        .concatWith(Flux.defer(() -> {
-                                            // 在流开始时发送包含 taskId 的 started 事件
-                                            return Flux.empty();
-                                        }))
-                                        .startWith(createStartedEvent(runId, taskId));
-                            });
+        // Step 5: 复用或创建层级结构，启动运行（异步流）
+        Flux<ExecutionEventDTO> execution = hierarchyResolver.resolve(createRequest)
+                .flatMap(hierarchy -> startRun(hierarchy.hierarchyId(), request)
+                        .onErrorResume(e -> hierarchy.cached()
+                                ? hierarchyResolver.recreate(createRequest, hierarchy)
+                                        .flatMap(recreated -> startRun(recreated.hierarchyId(), request))
+                                : Mono.error(e)))
+                .flatMapMany(startResponse -> {
+                    log.info("Run started: {}", startResponse.getRunId());
+                    String runId = startResponse.getRunId();
+
+                    // 更新诊断任务的 runId
+                    diagnosisTaskRepository.updateRunId(taskId, runId);
+
+                    // 获取 Executor 的事件流
+                    Flux<ExecutorEvent> eventStream = executorServiceClient.streamEvents(runId);
+
+                    // 转换并收集流式数据到 Redis（非阻塞，Redis 延迟以背压形式传递给上游）
+                    return eventStream
+                            .map(this::transformEvent)
+                            .transform(events -> streamRecorder.record(taskId, events))
+                            .doOnComplete(() -> onDiagnosisComplete(taskId))
+                            .doOnError(error -> onDiagnosisError(taskId, error.getMessage()))
+                            .doOnCancel(() -> onExecutionAbandoned(runId))
+                            .startWith(createStartedEvent(runId, taskId));
                 })
                 .onErrorResume(e -> {
                     log.error("Executor service error: {}", e.getMessage(), e);
                     onDiagnosisError(taskId, e.getMessage());
                     return Flux.just(ExecutionEventDTO.error("Executor service error: " + e.getMessage()));
+                })
+                // 合并同一 Agent 连续的流式片段，减少下游序列化与推送次数（其他事件立即透传）
+                .transform(eventCoalescer::coalesce)
+                // 分配事件序号并写入事件日志（包含 started 与 error 事件），供断线续传
+                .transform(events -> eventLogRecorder.record(taskId, events));
+
+        // Step 6: 执行流由多播中心订阅驱动，与调用方及观看者的连接解耦：单个连接断开后执行流仍被消费并写入事件日志，
+        // 调用方随后订阅时从回放窗口收到 started 事件；所有连接断开超过宽限期后多播中心取消执行流，
+        // 并发许可在执行流终止时由多播中心归还
+        return runHub.publish(taskId, execution);
+    }
+
+    @Override
+    public Flux<ExecutionEventDTO> resumeExecution(ResumeExecutionRequest request) {
+        Long taskId = request.getTaskId();
+        long afterSequence = request.getLastEventId() != null ? request.getLastEventId() : 0L;
+        log.info("Resuming execution events for taskId: {}, after sequence: {}", taskId, afterSequence);
+
+        return eventLogRecorder.firstSequence(taskId)
+                .switchIfEmpty(Mono.error(() -> new BusinessException(ExecutionErrorCode.EVENT_LOG_NOT_FOUND, taskId)))
+                .flatMapMany(firstSequence -> {
+                    // 日志长度限制已截断续传起点之后的事件：显式报错，避免客户端静默丢失中间的事件
+                    if (afterSequence + 1 < firstSequence) {
+                        return Flux.error(new BusinessException(ExecutionErrorCode.EVENT_LOG_TRIMMED, taskId,
+                                String.valueOf(afterSequence), String.valueOf(firstSequence)));
+                    }
+                    // 执行在本实例进行时，续传连接同样计为观看者，避免宽限期后执行被取消
+                    return runHub.attach(taskId, eventLogRecorder.replay(taskId, afterSequence));
+                });
+    }
+
+    @Override
+    public Flux<ExecutionEventDTO> watchExecution(WatchExecutionRequest request) {
+        Long taskId = request.getTaskId();
+
+        Optional<Flux<ExecutionEventDTO>> local = runHub.watch(taskId);
+        if (local.isPresent()) {
+            log.info("Watching in-process execution stream for taskId: {}", taskId);
+            return local.get();
+        }
+
+        // 执行在其他实例或已结束：从事件日志回放最近的事件并跟随新事件
+        return eventLogRecorder.lastSequence(taskId)
+                .switchIfEmpty(Mono.error(() -> new BusinessException(ExecutionErrorCode.EVENT_LOG_NOT_FOUND, taskId)))
+                .flatMapMany(lastSequence -> {
+                    log.info("Watching execution event log for taskId: {}, last sequence: {}", taskId, lastSequence);
+                    return eventLogRecorder.replay(taskId, Math.max(0, lastSequence - runHub.getReplayWindow()));
                 });
     }
 
+    /**
+     * 在指定层级结构上启动执行运行
+     */
+    private Mono<StartRunResponse> startRun(String hierarchyId, TriggerExecutionRequest request) {
+        StartRunRequest startRequest = StartRunRequest.builder()
+                .hierarchyId(hierarchyId)
+                .task(request.getUserMessage())
+                .build();
+        return executorServiceClient.startRun(startRequest);
+    }
+
     /**
      * 创建诊断任务
      */
@@ -148,33 +223,6 @@ public class ExecutionApplicationServiceImpl implements ExecutionApplicationServ
                 .build();
     }
 
-    /**
-     * 收集诊断事件到 Redis
-     */
-    private void collectDiagnosisEvent(Long taskId, ExecutionEventDTO event) {
-        if (event == null || event.getAgentId() == null) {
-            return;
-        }
-        try {
-            Long agentBoundId = Long.parseLong(event.getAgentId());
-            String agentName = event.getAgentName();
-            String content = event.getContent();
-            String type = event.getType();
-
-            if ("llm.stream".equals(type) || "llm.reasoning".equals(type)) {
-                if (content != null) {
-                    cacheService.appendStreamContent(taskId, agentBoundId, agentName, content);
-                }
-            } else if ("lifecycle.started".equals(type)) {
-                cacheService.appendStreamContent(taskId, agentBoundId, agentName != null ? agentName : "Unknown", "");
-            } else if ("lifecycle.completed".equals(type)) {
-                cacheService.markAgentEnded(taskId, agentBoundId);
-            }
-        } catch (NumberFormatException e) {
-            log.debug("Ignoring event with non-numeric agentId: {}", event.getAgentId());
-        }
-    }
-
     /**
      * 诊断完成回调
      *
@@ -195,6 +243,23 @@ public class ExecutionApplicationServiceImpl implements ExecutionApplicationServ
         persistenceService.handleErrorAsync(taskId, errorMessage);
     }
 
+    /**
+     * 执行流被取消回调（所有连接断开超过宽限期）
+     *
+     * <p>通知 Executor 取消运行，并异步将诊断任务标记为已取消</p>
+     */
+    private void onExecutionAbandoned(String runId) {
+        log.info("Execution stream abandoned by all viewers, cancelling run: {}", runId);
+        executorServiceClient.cancelRun(runId).subscribe(
+                success -> {
+                    if (!Boolean.TRUE.equals(success)) {
+                        log.warn("Failed to cancel abandoned execution: {}", runId);
+                    }
+                },
+                error -> log.warn("Failed to cancel abandoned execution: {}, error: {}", runId, error.getMessage()));
+        persistenceService.handleCancellationAsync(runId);
+    }
+
     @Override
     public ExecutionEventDTO cancelExecution(CancelExecutionRequest request) {
         log.info("Cancelling execution for run: {}", request.getRunId());
@@ -226,17 +291,12 @@ public class ExecutionApplicationServiceImpl implements ExecutionApplicationServ
      *   <li>agentType: source.agent_type</li>
      *   <li>teamName: source.team_name</li>
      *   <li>content: data.content 或 event.content</li>
+     *   <li>metadata: data（流式解码时为原始 JSON，原样透传）</li>
+     *   <li>timestamp: event.timestamp（无法解析时取当前时间）</li>
      * </ul>
      */
     private ExecutionEventDTO transformEvent(ExecutorEvent event) {
-        LocalDateTime timestamp;
-        try {
-            timestamp = event.getTimestamp() != null
-                    ? LocalDateTime.parse(event.getTimestamp(), DateTimeFormatter.ISO_DATE_TIME)
-                    : LocalDateTime.now();
-        } catch (Exception e) {
-            timestamp = LocalDateTime.now();
-        }
+        LocalDateTime timestamp = ExecutorEventDecoder.parseTimestamp(event.getTimestamp());
 
         return ExecutionEventDTO.builder()
                 .type(event.getEventType())
@@ -246,8 +306,9 @@ public class ExecutionApplicationServiceImpl implements ExecutionApplicationServ
                 .agentType(event.getAgentType())
                 .teamName(event.getTeamName())
                 .content(event.getEventContent())
-                .timestamp(timestamp)
+                .timestamp(timestamp != null ? timestamp : LocalDateTime.now())
                 .metadata(event.getData())
+                .rawMetadata(event.getRawData())
                 .build();
     }
 }
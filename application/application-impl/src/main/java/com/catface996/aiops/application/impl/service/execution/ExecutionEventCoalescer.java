@@ -0,0 +1,262 @@
+package com.catface996.aiops.application.impl.service.execution;
+
+import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Signal;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 执行事件合并器
+ *
+ * <p>将同一 Agent 连续的 llm.stream / llm.reasoning 片段合并为一个事件，降低序列化、
+ * 事件日志写入与 SSE 推送的次数：</p>
+ * <ul>
+ *   <li>每 {@code execution.coalesce.window-ms} 毫秒输出一次各 Agent 已合并的内容</li>
+ *   <li>单个 Agent 合并内容达到 {@code execution.coalesce.max-chars} 个字符时立即输出</li>
+ *   <li>同一 Agent 的片段类型切换时先输出已合并的内容，保证 Agent 内的顺序</li>
+ *   <li>其他事件（生命周期、工具调用、错误等）到达时先输出全部已合并的内容，再立即透传</li>
+ * </ul>
+ *
+ * <p>合并后的事件为新建对象（片段本身不被修改），沿用第一个片段的 Agent 信息与时间戳，content 为各片段按顺序拼接的结果。
+ * metadata 为原始 JSON 时，只把其中 content 字段的值替换为合并后的内容，其余文本原样保留（每个合并帧一次，而不是每个片段一次）。
+ * 本阶段位于事件序号分配之前，事件日志、观看与续传看到的都是合并后的事件。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ExecutionEventCoalescer {
+
+    private static final String TYPE_LLM_STREAM = "llm.stream";
+    private static final String TYPE_LLM_REASONING = "llm.reasoning";
+    private static final String METADATA_CONTENT = "content";
+
+    /**
+     * 定时输出信号
+     */
+    private static final Object FLUSH = new Object();
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration window;
+    private final int maxChars;
+
+    public ExecutionEventCoalescer(
+            ObjectMapper objectMapper,
+            @Value("${execution.coalesce.enabled:true}") boolean enabled,
+            @Value("${execution.coalesce.window-ms:50}") long windowMs,
+            @Value("${execution.coalesce.max-chars:4096}") int maxChars) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.window = Duration.ofMillis(windowMs);
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * 为事件流附加片段合并阶段
+     *
+     * @param events 执行事件流
+     * @return 合并后的事件流（未启用时原样返回）
+     */
+    public Flux<ExecutionEventDTO> coalesce(Flux<ExecutionEventDTO> events) {
+        if (!enabled) {
+            return events;
+        }
+        return Flux.defer(() -> {
+            CoalescingState state = new CoalescingState();
+            // 事件与定时信号经 merge 串行到达，状态无需同步；下游背压时丢弃多余的定时信号
+            return Flux.<Object>merge(
+                            events.materialize(),
+                            Flux.interval(window, window).map(tick -> FLUSH).onBackpressureDrop())
+                    .concatMapIterable(state::accept)
+                    .<ExecutionEventDTO>dematerialize();
+        });
+    }
+
+    private boolean isChunk(ExecutionEventDTO event) {
+        String type = event.getType();
+        return event.getContent() != null
+                && (TYPE_LLM_STREAM.equals(type) || TYPE_LLM_REASONING.equals(type));
+    }
+
+    /**
+     * 生成合并后的事件
+     *
+     * <p>新建事件对象，不修改首个片段：片段已传递给上游阶段（如 {@code DiagnosisStreamRecorder} 的攒批窗口），
+     * 原地修改会让上游读到合并后的内容。</p>
+     */
+    private ExecutionEventDTO merge(ExecutionEventDTO first, String content) {
+        ExecutionEventDTO merged = ExecutionEventDTO.builder()
+                .type(first.getType())
+                .runId(first.getRunId())
+                .taskId(first.getTaskId())
+                .sequence(first.getSequence())
+                .agentId(first.getAgentId())
+                .agentName(first.getAgentName())
+                .agentType(first.getAgentType())
+                .teamName(first.getTeamName())
+                .agentRole(first.getAgentRole())
+                .timestamp(first.getTimestamp())
+                .content(content)
+                .metadata(first.getMetadata())
+                .rawMetadata(first.getRawMetadata())
+                .build();
+        if (first.getRawMetadata() != null) {
+            try {
+                merged.setRawMetadata(spliceContent(first.getRawMetadata(), content));
+            } catch (IOException e) {
+                log.warn("Keeping original raw metadata of coalesced {} event for agent {}, content not merged: {}",
+                        first.getType(), agentKey(first), e.getMessage());
+            }
+            return merged;
+        }
+        Map<String, Object> metadata = first.getMetadata();
+        if (metadata != null && metadata.containsKey(METADATA_CONTENT)) {
+            Map<String, Object> copy = new HashMap<>(metadata);
+            copy.put(METADATA_CONTENT, content);
+            merged.setMetadata(copy);
+        }
+        return merged;
+    }
+
+    /**
+     * 在原始 JSON 上替换顶层 content 字段的值：按字符偏移拼接，其余字段的文本（数字格式、字段顺序等）不变
+     *
+     * @return 替换后的 JSON；不是对象或没有 content 字段时返回原文本
+     */
+    private String spliceContent(String rawMetadata, String content) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(rawMetadata)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return rawMetadata;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                int start = (int) parser.currentTokenLocation().getCharOffset();
+                // 字符串值延迟解析，先读完当前 token 才能得到结束偏移
+                parser.finishToken();
+                parser.skipChildren();
+                if (METADATA_CONTENT.equals(name)) {
+                    int end = (int) parser.currentLocation().getCharOffset();
+                    StringBuilder spliced = new StringBuilder(rawMetadata.length() + content.length() + 2)
+                            .append(rawMetadata, 0, start)
+                            .append('"');
+                    JsonStringEncoder.getInstance().quoteAsString(content, spliced);
+                    return spliced.append('"')
+                            .append(rawMetadata, end, rawMetadata.length())
+                            .toString();
+                }
+            }
+            return rawMetadata;
+        }
+    }
+
+    private static String agentKey(ExecutionEventDTO event) {
+        if (event.getAgentId() != null) {
+            return event.getAgentId();
+        }
+        return event.getAgentName() != null ? "name:" + event.getAgentName() : "";
+    }
+
+    /**
+     * 单次运行内的合并状态
+     */
+    private final class CoalescingState {
+
+        /**
+         * Agent -> 合并中的片段（按首个片段到达顺序输出）
+         */
+        private final Map<String, PendingChunk> pending = new LinkedHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        private List<Signal<ExecutionEventDTO>> accept(Object input) {
+            List<Signal<ExecutionEventDTO>> output = new ArrayList<>(pending.size() + 1);
+            if (input == FLUSH) {
+                flushAll(output);
+                return output;
+            }
+            Signal<ExecutionEventDTO> signal = (Signal<ExecutionEventDTO>) input;
+            if (!signal.isOnNext() || !isChunk(signal.get())) {
+                flushAll(output);
+                output.add(signal);
+                return output;
+            }
+
+            ExecutionEventDTO event = signal.get();
+            String agent = agentKey(event);
+            PendingChunk chunk = pending.get(agent);
+            if (chunk != null && !chunk.type.equals(event.getType())) {
+                pending.remove(agent);
+                output.add(Signal.next(chunk.toEvent()));
+                chunk = null;
+            }
+            if (chunk == null) {
+                chunk = new PendingChunk(event);
+                pending.put(agent, chunk);
+            } else {
+                chunk.append(event.getContent());
+            }
+            if (chunk.length() >= maxChars) {
+                pending.remove(agent);
+                output.add(Signal.next(chunk.toEvent()));
+            }
+            return output;
+        }
+
+        private void flushAll(List<Signal<ExecutionEventDTO>> output) {
+            Iterator<PendingChunk> iterator = pending.values().iterator();
+            while (iterator.hasNext()) {
+                output.add(Signal.next(iterator.next().toEvent()));
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 单个 Agent 合并中的片段
+     */
+    private final class PendingChunk {
+        private final ExecutionEventDTO first;
+        private final String type;
+        private StringBuilder content;
+
+        private PendingChunk(ExecutionEventDTO first) {
+            this.first = first;
+            this.type = first.getType();
+        }
+
+        private void append(String text) {
+            if (content == null) {
+                content = new StringBuilder(first.getContent());
+            }
+            content.append(text);
+        }
+
+        private int length() {
+            return content != null ? content.length() : first.getContent().length();
+        }
+
+        /**
+         * 生成合并后的事件；只有一个片段时直接返回原事件
+         */
+        private ExecutionEventDTO toEvent() {
+            return content == null ? first : merge(first, content.toString());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.catface996.aiops.application.impl.service.execution;
+
+import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
+import com.catface996.aiops.infrastructure.cache.redis.execution.ExecutionEventLogService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行事件日志记录器
+ *
+ * <p>作为执行事件流的最后一个处理阶段：</p>
+ * <ul>
+ *   <li>为每个事件分配任务内单调递增的序号（{@link ExecutionEventDTO#getSequence()}），作为 SSE 事件 id</li>
+ *   <li>旁路分支按时间/数量窗口攒批写入 {@link ExecutionEventLogService}，每批一次 Redis 调用</li>
+ *   <li>事件流结束后写入结束标记，续传的客户端读到结束标记即完成</li>
+ * </ul>
+ *
+ * <p>写入失败只记录日志，不影响实时事件流。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ExecutionEventLogRecorder {
+
+    private final ExecutionEventLogService eventLogService;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchEvents;
+    private final Duration batchWindow;
+
+    public ExecutionEventLogRecorder(
+            ExecutionEventLogService eventLogService,
+            ObjectMapper objectMapper,
+            @Value("${execution.event-log.max-batch-events:256}") int maxBatchEvents,
+            @Value("${execution.event-log.window-ms:100}") long windowMs) {
+        this.eventLogService = eventLogService;
+        this.objectMapper = objectMapper;
+        this.maxBatchEvents = maxBatchEvents;
+        this.batchWindow = Duration.ofMillis(windowMs);
+    }
+
+    /**
+     * 为事件流附加序号分配与事件日志记录阶段
+     *
+     * <p>事件流应已将错误转换为 error 事件；旁路分支在结束标记写入后才结束，
+     * 因此下游的完成信号一定在整个日志落入 Redis 之后。</p>
+     *
+     * @param taskId 诊断任务ID
+     * @param events 执行事件流
+     * @return 透传的事件流（事件已带序号）
+     */
+    public Flux<ExecutionEventDTO> record(Long taskId, Flux<ExecutionEventDTO> events) {
+        return Flux.defer(() -> {
+            AtomicLong sequence = new AtomicLong();
+            return events
+                    .doOnNext(event -> event.setSequence(sequence.incrementAndGet()))
+                    .publish(shared -> Flux.merge(
+                            shared,
+                            shared.bufferTimeout(maxBatchEvents, batchWindow, true)
+                                    .concatMap(batch -> append(taskId, batch))
+                                    .then(Mono.defer(() -> markEnded(taskId, sequence.incrementAndGet())))
+                                    .thenMany(Flux.<ExecutionEventDTO>empty())
+                    ));
+        });
+    }
+
+    /**
+     * 查询事件日志中最早保留条目的序号
+     *
+     * @param taskId 诊断任务ID
+     * @return 最早保留的序号；日志不存在时为空
+     */
+    public Mono<Long> firstSequence(Long taskId) {
+        return eventLogService.firstSequence(taskId);
+    }
+
+    /**
+     * 查询事件日志中最后一个条目的序号
+     *
+     * @param taskId 诊断任务ID
+     * @return 最后一个序号；日志不存在时为空
+     */
+    public Mono<Long> lastSequence(Long taskId) {
+        return eventLogService.lastSequence(taskId);
+    }
+
+    /**
+     * 从事件日志读取指定序号之后的事件，执行未结束时继续跟随
+     *
+     * @param taskId        诊断任务ID
+     * @param afterSequence 已收到的最后一个事件序号
+     * @return 事件流
+     */
+    public Flux<ExecutionEventDTO> replay(Long taskId, long afterSequence) {
+        return eventLogService.readFrom(taskId, afterSequence)
+                .concatMap(entry -> {
+                    try {
+                        return Mono.just(objectMapper.readValue(entry.event(), ExecutionEventDTO.class));
+                    } catch (JsonProcessingException e) {
+                        log.warn("Skipping unreadable event log entry, taskId: {}, sequence: {}",
+                                taskId, entry.sequence());
+                        return Mono.empty();
+                    }
+                });
+    }
+
+    private Mono<Void> append(Long taskId, List<ExecutionEventDTO> batch) {
+        List<ExecutionEventLogService.Entry> entries = new ArrayList<>(batch.size());
+        for (ExecutionEventDTO event : batch) {
+            try {
+                String json = objectMapper.writeValueAsString(event);
+                entries.add(new ExecutionEventLogService.Entry(event.getSequence(), json));
+            } catch (JsonProcessingException e) {
+                log.warn("Failed to serialize execution event, taskId: {}, sequence: {}", taskId, event.getSequence());
+            }
+        }
+        return eventLogService.append(taskId, entries)
+                .onErrorResume(e -> {
+                    log.error("Failed to append execution event log, taskId: {}, error: {}", taskId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> markEnded(Long taskId, long sequence) {
+        return eventLogService.markEnded(taskId, sequence)
+                .onErrorResume(e -> {
+                    log.error("Failed to mark execution event log ended, taskId: {}, error: {}", taskId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,213 @@
+package com.catface996.aiops.application.impl.service.execution;
+
+import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行事件多播中心（进程内）
+ *
+ * <p>每个执行只订阅一次上游事件流（即只向 Executor 拉取一次），事件经带有界回放窗口的多播 Sink
+ * （{@code Sinks.many().replay().limit(n)}）分发给触发方与任意数量的观看者：</p>
+ * <ul>
+ *   <li>上游由中心自身订阅驱动，单个连接断开不影响执行与其他连接</li>
+ *   <li>后加入的观看者先收到最近 {@code execution.hub.replay-window} 个事件，再接收实时事件</li>
+ *   <li>最后一个观看者离开后超过 {@code execution.hub.idle-cancel-grace-ms} 仍无人加入时取消上游，
+ *       宽限期内重连（观看或续传）的客户端不会中断执行</li>
+ *   <li>执行结束后从中心移除，之后的观看请求由事件日志提供</li>
+ * </ul>
+ *
+ * <p>并发执行准入也由中心管理：许可在执行开始前获取，在执行流终止（完成、出错或取消）时归还，
+ * 与 SSE 连接的生命周期无关，客户端断开重连不能绕过 {@code execution.sse.max-concurrent-runs}。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class ExecutionRunHub {
+
+    private final ConcurrentMap<Long, Run> runs = new ConcurrentHashMap<>();
+
+    private final int replayWindow;
+    private final int maxConcurrentRuns;
+    private final long idleCancelGraceMs;
+    private final Semaphore runPermits;
+
+    public ExecutionRunHub(
+            @Value("${execution.hub.replay-window:256}") int replayWindow,
+            @Value("${execution.sse.max-concurrent-runs:64}") int maxConcurrentRuns,
+            @Value("${execution.hub.idle-cancel-grace-ms:30000}") long idleCancelGraceMs) {
+        this.replayWindow = replayWindow;
+        this.maxConcurrentRuns = maxConcurrentRuns;
+        this.idleCancelGraceMs = idleCancelGraceMs;
+        this.runPermits = new Semaphore(maxConcurrentRuns);
+    }
+
+    /**
+     * 获取一个并发执行许可
+     *
+     * <p>获取成功后必须调用 {@link #publish}（执行终止时归还），或在未能发布时调用 {@link #releasePermit}。</p>
+     *
+     * @return 是否获取成功（并发执行数已达上限时返回 false）
+     */
+    public boolean tryAcquirePermit() {
+        return runPermits.tryAcquire();
+    }
+
+    /**
+     * 归还未发布执行的许可
+     */
+    public void releasePermit() {
+        runPermits.release();
+    }
+
+    /**
+     * 最大并发执行数
+     */
+    public int getMaxConcurrentRuns() {
+        return maxConcurrentRuns;
+    }
+
+    /**
+     * 注册执行并开始消费其事件流
+     *
+     * <p>调用方须已通过 {@link #tryAcquirePermit} 获取许可，许可在执行流终止时归还。
+     * 返回的事件流被订阅时计为一个观看者；注册后宽限期内无人订阅同样会取消上游。</p>
+     *
+     * @param taskId    诊断任务ID
+     * @param execution 执行事件流（冷流，由本方法订阅一次）
+     * @return 可多次订阅的事件流
+     */
+    public Flux<ExecutionEventDTO> publish(Long taskId, Flux<ExecutionEventDTO> execution) {
+        Run run = new Run(Sinks.many().replay().limit(replayWindow));
+        runs.put(taskId, run);
+        Sinks.Many<ExecutionEventDTO> sink = run.sink;
+        run.upstream = execution
+                .doFinally(signal -> {
+                    runs.remove(taskId, run);
+                    runPermits.release();
+                })
+                .subscribe(
+                        event -> {
+                            Sinks.EmitResult result = sink.tryEmitNext(event);
+                            if (result.isFailure()) {
+                                log.warn("Failed to multicast execution event, taskId: {}, result: {}",
+                                        taskId, result);
+                            }
+                        },
+                        error -> {
+                            log.error("Execution stream failed, taskId: {}, error: {}", taskId, error.getMessage());
+                            sink.tryEmitError(error);
+                        },
+                        sink::tryEmitComplete);
+        synchronized (run) {
+            if (run.viewers == 0) {
+                scheduleIdleCancel(taskId, run);
+            }
+        }
+        return viewer(taskId, run, sink.asFlux());
+    }
+
+    /**
+     * 观看本实例上正在进行的执行
+     *
+     * @param taskId 诊断任务ID
+     * @return 事件流（先回放最近的事件）；执行不在本实例或已结束时为空
+     */
+    public Optional<Flux<ExecutionEventDTO>> watch(Long taskId) {
+        return Optional.ofNullable(runs.get(taskId)).map(run -> viewer(taskId, run, run.sink.asFlux()));
+    }
+
+    /**
+     * 将其他来源的事件流（如事件日志续传）计为本实例执行的观看者
+     *
+     * @param taskId 诊断任务ID
+     * @param events 事件流
+     * @return 订阅期间计为观看者的事件流；执行不在本实例时原样返回
+     */
+    public Flux<ExecutionEventDTO> attach(Long taskId, Flux<ExecutionEventDTO> events) {
+        Run run = runs.get(taskId);
+        return run != null ? viewer(taskId, run, events) : events;
+    }
+
+    /**
+     * 观看者加入时回放的最近事件数
+     */
+    public int getReplayWindow() {
+        return replayWindow;
+    }
+
+    private Flux<ExecutionEventDTO> viewer(Long taskId, Run run, Flux<ExecutionEventDTO> events) {
+        return Flux.defer(() -> {
+            viewerJoined(run);
+            return events.doFinally(signal -> viewerLeft(taskId, run));
+        });
+    }
+
+    private void viewerJoined(Run run) {
+        synchronized (run) {
+            run.viewers++;
+            if (run.idleCancel != null) {
+                run.idleCancel.dispose();
+                run.idleCancel = null;
+            }
+        }
+    }
+
+    private void viewerLeft(Long taskId, Run run) {
+        synchronized (run) {
+            if (--run.viewers == 0) {
+                scheduleIdleCancel(taskId, run);
+            }
+        }
+    }
+
+    /**
+     * 在宽限期后取消无人观看的执行（须持有 run 的锁；宽限期为负数时不取消）
+     */
+    private void scheduleIdleCancel(Long taskId, Run run) {
+        if (idleCancelGraceMs < 0) {
+            return;
+        }
+        run.idleCancel = Schedulers.parallel().schedule(() -> cancelIfIdle(taskId, run),
+                idleCancelGraceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelIfIdle(Long taskId, Run run) {
+        synchronized (run) {
+            if (run.viewers > 0) {
+                return;
+            }
+            run.idleCancel = null;
+        }
+        log.info("No viewers for {}ms, cancelling execution stream, taskId: {}", idleCancelGraceMs, taskId);
+        run.upstream.dispose();
+        run.sink.tryEmitComplete();
+    }
+
+    /**
+     * 单个执行的多播状态（观看者计数与空闲取消任务由实例锁保护）
+     */
+    private static final class Run {
+        private final Sinks.Many<ExecutionEventDTO> sink;
+        private volatile Disposable upstream;
+        private int viewers;
+        private Disposable idleCancel;
+
+        private Run(Sinks.Many<ExecutionEventDTO> sink) {
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.catface996.aiops.application.impl.service.execution;
+
+import com.catface996.aiops.application.impl.service.execution.client.ExecutorServiceClient;
+import com.catface996.aiops.application.impl.service.execution.client.dto.CreateHierarchyRequest;
+import com.catface996.aiops.infrastructure.cache.redis.execution.ExecutorHierarchyCacheService;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Executor 层级结构解析器
+ *
+ * <p>根据 CreateHierarchyRequest 的内容指纹复用 Executor 中已创建的层级结构：</p>
+ * <ul>
+ *   <li>指纹为去掉 name（含时间戳）后请求内容的 SHA-256，覆盖绑定关系、Agent LLM 配置和提示词内容</li>
+ *   <li>命中缓存时直接返回已有 hierarchyId，跳过 createHierarchy 调用</li>
+ *   <li>未命中时创建层级结构并写入缓存</li>
+ * </ul>
+ *
+ * <p>缓存读写均为非阻塞操作，失败不影响执行，退化为每次创建。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HierarchyResolver {
+
+    private static final ObjectMapper FINGERPRINT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final ExecutorServiceClient executorServiceClient;
+    private final ExecutorHierarchyCacheService hierarchyCacheService;
+
+    /**
+     * 解析层级结构：优先复用缓存中内容相同的层级结构，否则创建
+     *
+     * @param request 创建层级请求
+     * @return 层级结构引用
+     */
+    public Mono<ResolvedHierarchy> resolve(CreateHierarchyRequest request) {
+        String fingerprint = fingerprint(request);
+        if (fingerprint == null) {
+            return create(request, null);
+        }
+        return hierarchyCacheService.getHierarchyId(fingerprint)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(e -> {
+                    log.warn("Failed to read hierarchy cache: {}", e.getMessage());
+                    return Mono.just(Optional.empty());
+                })
+                .flatMap(cached -> {
+                    if (cached.isPresent()) {
+                        log.info("Reusing hierarchy {} for '{}' (fingerprint {})",
+                                cached.get(), request.getName(), fingerprint);
+                        return Mono.just(new ResolvedHierarchy(cached.get(), fingerprint, true));
+                    }
+                    return create(request, fingerprint);
+                });
+    }
+
+    /**
+     * 移除缓存中的层级结构并重新创建（缓存的层级结构在 Executor 侧已失效时使用）
+     *
+     * @param request 创建层级请求
+     * @param stale   已失效的层级结构引用
+     * @return 新创建的层级结构引用
+     */
+    public Mono<ResolvedHierarchy> recreate(CreateHierarchyRequest request, ResolvedHierarchy stale) {
+        log.warn("Cached hierarchy {} is no longer usable, recreating", stale.hierarchyId());
+        return hierarchyCacheService.evict(stale.fingerprint())
+                .onErrorResume(e -> {
+                    log.warn("Failed to evict hierarchy cache: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then(create(request, stale.fingerprint()));
+    }
+
+    private Mono<ResolvedHierarchy> create(CreateHierarchyRequest request, String fingerprint) {
+        return executorServiceClient.createHierarchy(request)
+                .flatMap(response -> {
+                    ResolvedHierarchy resolved = new ResolvedHierarchy(response.getHierarchyId(), fingerprint, false);
+                    if (fingerprint == null) {
+                        return Mono.just(resolved);
+                    }
+                    return hierarchyCacheService.putHierarchyId(fingerprint, response.getHierarchyId())
+                            .onErrorResume(e -> {
+                                log.warn("Failed to write hierarchy cache: {}", e.getMessage());
+                                return Mono.empty();
+                            })
+                            .thenReturn(resolved);
+                });
+    }
+
+    /**
+     * 计算请求内容指纹（不含 name）
+     *
+     * @return 指纹，计算失败时返回 null
+     */
+    private String fingerprint(CreateHierarchyRequest request) {
+        try {
+            ObjectNode content = FINGERPRINT_MAPPER.valueToTree(request);
+            content.remove("name");
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(FINGERPRINT_MAPPER.writeValueAsBytes(content));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            log.warn("Failed to fingerprint hierarchy '{}': {}", request.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 层级结构引用
+     *
+     * @param hierarchyId Executor 层级结构ID
+     * @param fingerprint 内容指纹（计算失败时为 null）
+     * @param cached      是否复用自缓存
+     */
+    public record ResolvedHierarchy(String hierarchyId, String fingerprint, boolean cached) {
+    }
+}
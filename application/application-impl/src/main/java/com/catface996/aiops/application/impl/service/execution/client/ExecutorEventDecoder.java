@@ -0,0 +1,363 @@
+package com.catface996.aiops.application.impl.service.execution.client;
+
+import com.catface996.aiops.application.impl.service.execution.client.dto.ExecutorEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor 事件流式解码器
+ *
+ * <p>直接在 SSE data 文本上使用 {@link JsonParser} 逐个读取 token，只提取路由所需的字段，
+ * 避免通用数据绑定为 data 构建 {@code Map<String, Object>}：</p>
+ * <ul>
+ *   <li>run_id、timestamp、sequence、source.*：按原样读取</li>
+ *   <li>event.category / event.action：不创建字符串，直接在字符缓冲区上查表得到驻留的事件类型（如 llm.stream）</li>
+ *   <li>data：只读取 content，其余内容跳过；整个 data 对象以原始 JSON 文本保存在 {@link ExecutorEvent#getRawData()}，
+ *       转发给前端时不再重新序列化。content 的文本与数据绑定后 {@link ExecutorEvent#getEventContent()} 的结果一致
+ *       （数字、布尔、对象等非字符串值按绑定后的 Java 对象 toString）</li>
+ *   <li>未知字段直接跳过</li>
+ * </ul>
+ *
+ * <p>线程安全，可被所有事件流共享。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+public final class ExecutorEventDecoder {
+
+    /**
+     * 带 ObjectMapper 编解码器的工厂：仅在 data.content 不是标量时用于读取为 Map / List
+     */
+    private static final JsonFactory JSON_FACTORY = new MappingJsonFactory();
+
+    /**
+     * 驻留的类别 / 动作与事件类型数量上限，超出后不再缓存（防止异常数据撑大缓存）
+     */
+    private static final int MAX_INTERNED = 1024;
+
+    private final ConcurrentMap<CharKey, String> names = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> eventTypes = new ConcurrentHashMap<>();
+
+    /**
+     * 已驻留的事件类型总数（跨所有类别计数，外层 Map 的大小不能约束内层动作数量）
+     */
+    private final AtomicInteger internedEventTypes = new AtomicInteger();
+
+    /**
+     * 解码一个事件
+     *
+     * @param json SSE data 文本（一个 JSON 对象）
+     * @return 事件（data 为空，数据以原始 JSON 保存在 rawData）
+     * @throws IOException JSON 格式错误
+     */
+    public ExecutorEvent decode(String json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Executor event must be a JSON object");
+            }
+            ExecutorEvent event = new ExecutorEvent();
+            String category = null;
+            String action = null;
+            String legacyContent = null;
+            boolean dataHasContent = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                // 字段名由 Jackson 符号表规范化，不产生新字符串
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "run_id" -> event.setRunId(text(parser, token));
+                    case "timestamp" -> event.setTimestamp(text(parser, token));
+                    case "sequence" -> event.setSequence(integer(parser, token));
+                    case "source" -> event.setSource(readSource(parser, token));
+                    case "event" -> {
+                        if (token == JsonToken.START_OBJECT) {
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String name = parser.currentName();
+                                JsonToken valueToken = parser.nextToken();
+                                if ("category".equals(name)) {
+                                    category = intern(parser, valueToken);
+                                } else if ("action".equals(name)) {
+                                    action = intern(parser, valueToken);
+                                } else {
+                                    parser.skipChildren();
+                                }
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case "data" -> dataHasContent = readData(json, parser, token, event);
+                    case "type" -> event.setType(intern(parser, token));
+                    case "agent" -> event.setAgent(text(parser, token));
+                    case "content" -> legacyContent = text(parser, token);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (category != null && action != null) {
+                event.setType(eventType(category, action));
+            }
+            // 与 getEventContent 一致：data.content 优先，回退到旧格式的 content 字段
+            if (!dataHasContent) {
+                event.setContent(legacyContent);
+            }
+            return event;
+        }
+    }
+
+    /**
+     * 解析 ISO-8601 时间戳为本地时间（忽略时区偏移，与 {@link DateTimeFormatter#ISO_DATE_TIME} 一致）
+     *
+     * <p>常见的 {@code yyyy-MM-ddTHH:mm:ss[.fraction][offset]} 格式直接按位解析，不经过格式化器；
+     * 其他格式回退到 {@link DateTimeFormatter#ISO_DATE_TIME}。</p>
+     *
+     * @param text 时间戳文本
+     * @return 本地时间；为空或无法解析时返回 null
+     */
+    public static LocalDateTime parseTimestamp(String text) {
+        if (text == null) {
+            return null;
+        }
+        int length = text.length();
+        if (length >= 19 && text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T'
+                && text.charAt(13) == ':' && text.charAt(16) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 2);
+            int day = digits(text, 8, 2);
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            int second = digits(text, 17, 2);
+            int index = 19;
+            int nanos = 0;
+            if (index < length && text.charAt(index) == '.') {
+                index++;
+                int scale = 0;
+                while (index < length && Character.isDigit(text.charAt(index))) {
+                    if (scale < 9) {
+                        nanos = nanos * 10 + (text.charAt(index) - '0');
+                        scale++;
+                    }
+                    index++;
+                }
+                for (; scale < 9; scale++) {
+                    nanos *= 10;
+                }
+            }
+            boolean offsetOnly = index == length || text.charAt(index) == 'Z'
+                    || text.charAt(index) == '+' || text.charAt(index) == '-';
+            if ((year | month | day | hour | minute | second) >= 0 && offsetOnly) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+                } catch (DateTimeException e) {
+                    return null;
+                }
+            }
+        }
+        try {
+            return LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorEvent.EventSource readSource(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        ExecutorEvent.EventSource source = new ExecutorEvent.EventSource();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            switch (name) {
+                case "agent_id" -> source.setAgentId(text(parser, valueToken));
+                case "agent_type" -> source.setAgentType(text(parser, valueToken));
+                case "agent_name" -> source.setAgentName(text(parser, valueToken));
+                case "team_name" -> source.setTeamName(text(parser, valueToken));
+                default -> parser.skipChildren();
+            }
+        }
+        return source;
+    }
+
+    /**
+     * 读取 data：提取 content，并截取整个对象的原始 JSON 文本
+     *
+     * @return data 中是否包含 content 字段
+     */
+    private static boolean readData(String json, JsonParser parser, JsonToken token, ExecutorEvent event)
+            throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return false;
+        }
+        int start = (int) parser.currentTokenLocation().getCharOffset();
+        String content = null;
+        boolean hasContent = false;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("content".equals(name)) {
+                hasContent = true;
+                content = contentText(parser, valueToken);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        int end = (int) parser.currentLocation().getCharOffset();
+        event.setRawData(json.substring(start, end));
+        if (hasContent) {
+            event.setContent(content);
+        }
+        return hasContent;
+    }
+
+    /**
+     * 读取 data.content：与 {@code Map<String, Object>} 绑定后 {@code toString()} 的结果一致
+     */
+    private static String contentText(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> null;
+            // 绑定为 Integer / Long / BigInteger 与 Double
+            case VALUE_NUMBER_INT -> parser.getNumberValue().toString();
+            case VALUE_NUMBER_FLOAT -> Double.toString(parser.getDoubleValue());
+            // 非标量极少出现，回退到通用绑定
+            case START_OBJECT, START_ARRAY -> String.valueOf(parser.readValueAs(Object.class));
+            default -> parser.getText();
+        };
+    }
+
+    /**
+     * 读取序号：与绑定到 Integer 一致，接受整数、浮点数（截断）与数字字符串；其他值跳过后返回 null
+     */
+    private static Integer integer(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> {
+                return parser.getIntValue();
+            }
+            case VALUE_STRING -> {
+                try {
+                    return Integer.valueOf(parser.getText().trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            case START_OBJECT, START_ARRAY -> parser.skipChildren();
+            default -> {
+            }
+        }
+        return null;
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.getText();
+    }
+
+    /**
+     * 返回驻留的字符串值：命中时直接在解析器的字符缓冲区上比较，不创建新字符串
+     */
+    private String intern(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.VALUE_STRING) {
+            return text(parser, token);
+        }
+        char[] buffer = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        String interned = names.get(new CharKey(buffer, offset, length));
+        if (interned != null) {
+            return interned;
+        }
+        String value = new String(buffer, offset, length);
+        if (names.size() < MAX_INTERNED) {
+            names.putIfAbsent(new CharKey(value.toCharArray(), 0, length), value);
+        }
+        return value;
+    }
+
+    /**
+     * 返回驻留的事件类型 category.action（命中时不拼接字符串）
+     */
+    private String eventType(String category, String action) {
+        ConcurrentMap<String, String> actions = eventTypes.get(category);
+        String type = actions != null ? actions.get(action) : null;
+        if (type != null) {
+            return type;
+        }
+        type = category + "." + action;
+        if (internedEventTypes.get() < MAX_INTERNED) {
+            String computed = type;
+            String existing = eventTypes.computeIfAbsent(category, key -> new ConcurrentHashMap<>())
+                    .putIfAbsent(action, computed);
+            if (existing == null) {
+                internedEventTypes.incrementAndGet();
+            }
+        }
+        return type;
+    }
+
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * 字符区间键：查询时引用解析器缓冲区（不复制），存入缓存的键持有独立副本
+     */
+    private static final class CharKey {
+        private final char[] chars;
+        private final int offset;
+        private final int length;
+        private final int hash;
+
+        private CharKey(char[] chars, int offset, int length) {
+            this.chars = chars;
+            this.offset = offset;
+            this.length = length;
+            int h = 0;
+            for (int i = offset; i < offset + length; i++) {
+                h = 31 * h + chars[i];
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CharKey key) || key.length != length || key.hash != hash) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (chars[offset + i] != key.chars[key.offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -5,9 +5,15 @@ import com.catface996.aiops.application.impl.service.execution.client.dto.Create
 import com.catface996.aiops.application.impl.service.execution.client.dto.ExecutorEvent;
 import com.catface996.aiops.application.impl.service.execution.client.dto.StartRunRequest;
 import com.catface996.aiops.application.impl.service.execution.client.dto.StartRunResponse;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.codec.CodecException;
+import org.springframework.core.codec.DecodingException;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
@@ -15,8 +21,16 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Executor 服务客户端
@@ -31,6 +45,12 @@ import java.time.Duration;
  *   <li>POST /api/executor/v1/runs/cancel - 取消执行运行 (body: {"id": "run_id"})</li>
  * </ul>
  *
+ * <p>事件流断开（网络错误、5xx、空闲超时，或在运行结束事件之前正常关闭）时按指数退避自动重连，
+ * 并通过 Last-Event-ID 请求头携带已收到的最后一个序号；按序号丢弃重复或乱序的事件，
+ * 因此 Executor 从头重放时也不会向下游重复推送。</p>
+ *
+ * <p>WebClient 与连接池由 {@link com.catface996.aiops.application.impl.config.ExecutorWebClientConfig} 提供。</p>
+ *
  * @author AI Assistant
  * @since 2025-12-29
  */
@@ -38,18 +58,73 @@ import java.time.Duration;
 @Component
 public class ExecutorServiceClient {
 
+    /**
+     * 共享的请求体序列化器（线程安全，忽略 null 字段）
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    /**
+     * 事件流解码器（只提取路由所需字段，data 保留原始 JSON）
+     */
+    private final ExecutorEventDecoder eventDecoder = new ExecutorEventDecoder();
+
+    /**
+     * 控制请求（create / start / cancel / health）使用的 WebClient
+     */
     private final WebClient webClient;
-    private final Duration readTimeout;
+
+    /**
+     * 事件流使用的 WebClient，连接池与控制请求隔离
+     */
+    private final WebClient streamWebClient;
+
+    /**
+     * SSE 连接标准的续传请求头
+     */
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    /**
+     * 运行级结束事件：lifecycle.completed / failed / cancelled（来自 global_supervisor 或无来源 Agent），
+     * 以及旧格式的 complete / cancelled
+     */
+    private static final Set<String> RUN_TERMINAL_TYPES = Set.of(
+            "lifecycle.completed", "lifecycle.failed", "lifecycle.cancelled");
+    private static final Set<String> LEGACY_TERMINAL_TYPES = Set.of("complete", "cancelled");
+    private static final String AGENT_TYPE_GLOBAL_SUPERVISOR = "global_supervisor";
+
+    /**
+     * 事件流空闲超时：期间没有收到任何帧（包括心跳注释）则断开重连
+     */
+    private final Duration streamIdleTimeout;
+
+    /**
+     * 事件流重连策略（指数退避）
+     */
+    private final int reconnectMaxAttempts;
+    private final Duration reconnectMinBackoff;
+    private final Duration reconnectMaxBackoff;
+
+    /**
+     * DEBUG 级别下请求体采样输出比例（0.0 - 1.0）
+     */
+    private final double payloadLogSampleRate;
 
     public ExecutorServiceClient(
-            @Value("${executor.service.base-url}") String baseUrl,
-            @Value("${executor.service.timeout.connect:5000}") int connectTimeout,
-            @Value("${executor.service.timeout.read:60000}") int readTimeoutMs) {
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
-        this.readTimeout = Duration.ofMillis(readTimeoutMs);
-        log.info("ExecutorServiceClient initialized with baseUrl: {}", baseUrl);
+            @Qualifier("executorControlWebClient") WebClient webClient,
+            @Qualifier("executorStreamWebClient") WebClient streamWebClient,
+            @Value("${executor.service.stream.idle-timeout-ms:90000}") long streamIdleTimeoutMs,
+            @Value("${executor.service.stream.reconnect.max-attempts:5}") int reconnectMaxAttempts,
+            @Value("${executor.service.stream.reconnect.min-backoff-ms:500}") long reconnectMinBackoffMs,
+            @Value("${executor.service.stream.reconnect.max-backoff-ms:10000}") long reconnectMaxBackoffMs,
+            @Value("${executor.service.payload-log.sample-rate:0.1}") double payloadLogSampleRate) {
+        this.webClient = webClient;
+        this.streamWebClient = streamWebClient;
+        this.streamIdleTimeout = Duration.ofMillis(streamIdleTimeoutMs);
+        this.reconnectMaxAttempts = reconnectMaxAttempts;
+        this.reconnectMinBackoff = Duration.ofMillis(reconnectMinBackoffMs);
+        this.reconnectMaxBackoff = Duration.ofMillis(reconnectMaxBackoffMs);
+        this.payloadLogSampleRate = payloadLogSampleRate;
     }
 
     /**
@@ -59,19 +134,21 @@ public class ExecutorServiceClient {
      * @return 创建响应
      */
     public Mono<CreateHierarchyResponse> createHierarchy(CreateHierarchyRequest request) {
-        log.debug("Creating hierarchy: {}", request.getName());
+        // 仅序列化一次，字节数组直接作为请求体
+        byte[] body;
         try {
-            com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            mapper.setSerializationInclusion(com.fasterxml.jackson.annotation.JsonInclude.Include.NON_NULL);
-            String json = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(request);
-            log.info("CreateHierarchyRequest JSON:\n{}", json);
-        } catch (Exception e) {
-            log.error("Failed to serialize request", e);
+            body = OBJECT_MAPPER.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize CreateHierarchyRequest: {}", e.getMessage());
+            return Mono.error(e);
         }
+        log.info("Sending CreateHierarchyRequest '{}': {} bytes", request.getName(), body.length);
+        logPayloadSample("CreateHierarchyRequest", body);
+
         return webClient.post()
                 .uri("/api/executor/v1/hierarchies/create")
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(request)
+                .bodyValue(body)
                 .retrieve()
                 .bodyToMono(CreateHierarchyResponse.class)
                 .doOnSuccess(response -> log.info("Hierarchy created: {}", response.getHierarchyId()))
@@ -99,29 +176,119 @@ public class ExecutorServiceClient {
     /**
      * 流式获取执行事件
      *
+     * <p>连接中断时自动重连（连续失败 {@code reconnect.max-attempts} 次后放弃，收到事件后重新计数），
+     * 重连时携带最后收到的事件序号；序号不大于已收到序号的事件被丢弃。
+     * 连接在收到运行级结束事件之前正常关闭同样视为中断，经相同的退避策略重连。</p>
+     *
      * @param runId 运行 ID
      * @return 事件流
      */
     public Flux<ExecutorEvent> streamEvents(String runId) {
         log.debug("Streaming events for run: {}", runId);
+        return Flux.defer(() -> {
+            StreamState state = new StreamState();
+            return Flux.defer(() -> openEventStream(runId, state.lastSequence))
+                    .filter(event -> acceptSequence(runId, event, state))
+                    .doOnNext(event -> {
+                        if (isRunTerminal(event)) {
+                            state.terminated = true;
+                        }
+                    })
+                    // 未收到结束事件的正常关闭转为可重连的错误
+                    .concatWith(Mono.defer(() -> state.terminated
+                            ? Mono.empty()
+                            : Mono.error(new PrematureStreamCloseException(runId, state.lastSequence))))
+                    .retryWhen(Retry.backoff(reconnectMaxAttempts, reconnectMinBackoff)
+                            .maxBackoff(reconnectMaxBackoff)
+                            .transientErrors(true)
+                            .filter(this::isReconnectable)
+                            .doBeforeRetry(signal -> log.warn(
+                                    "Event stream for run {} interrupted, reconnecting after sequence {} (attempt {}): {}",
+                                    runId, state.lastSequence, signal.totalRetriesInARow() + 1,
+                                    signal.failure().getMessage())));
+        })
+                .doOnComplete(() -> log.info("Event stream completed for run: {}", runId))
+                .doOnError(e -> log.error("Event stream error for run {}: {}", runId, e.getMessage()));
+    }
+
+    /**
+     * 建立一次事件流连接
+     *
+     * <p>空闲超时作用于全部 SSE 帧（包括只含注释的心跳帧），之后再过滤掉无数据的帧。
+     * data 以文本读取后由 {@link ExecutorEventDecoder} 流式解码，不经过通用数据绑定。</p>
+     */
+    private Flux<ExecutorEvent> openEventStream(String runId, long lastSequence) {
         // Executor API 使用 POST 请求，body 为 {"id": "run_id"}
-        return webClient.post()
+        return streamWebClient.post()
                 .uri("/api/executor/v1/runs/stream")
                 .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.TEXT_EVENT_STREAM)
+                .headers(headers -> {
+                    if (lastSequence > 0) {
+                        headers.set(LAST_EVENT_ID_HEADER, String.valueOf(lastSequence));
+                    }
+                })
                 .bodyValue(java.util.Map.of("id", runId))
                 .retrieve()
-                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<ExecutorEvent>>() {})
-                .filter(sse -> sse != null && sse.data() != null)
-                .map(ServerSentEvent::data)
-                .timeout(readTimeout)
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .timeout(streamIdleTimeout)
+                .filter(sse -> sse != null && sse.data() != null && !sse.data().isEmpty())
+                .map(sse -> decodeEvent(sse.data()))
                 .doOnNext(event -> {
                     // 记录 agent_id 以便追溯到具体的绑定关系（AgentBound.id）
                     log.debug("Received event: type={}, agentName={}, agentId={} (bound_id for tracing)",
                             event.getEventType(), event.getAgentName(), event.getAgentId());
-                })
-                .doOnComplete(() -> log.info("Event stream completed for run: {}", runId))
-                .doOnError(e -> log.error("Event stream error for run {}: {}", runId, e.getMessage()));
+                });
+    }
+
+    private ExecutorEvent decodeEvent(String data) {
+        try {
+            return eventDecoder.decode(data);
+        } catch (IOException e) {
+            throw new DecodingException("Failed to decode executor event: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按序号去重：没有序号的事件直接通过，序号不大于已收到序号的事件丢弃
+     */
+    private boolean acceptSequence(String runId, ExecutorEvent event, StreamState state) {
+        Integer sequence = event.getSequence();
+        if (sequence == null) {
+            return true;
+        }
+        if (sequence <= state.lastSequence) {
+            log.debug("Dropping duplicate or out-of-order event for run {}: sequence {} <= {}",
+                    runId, sequence, state.lastSequence);
+            return false;
+        }
+        state.lastSequence = sequence;
+        return true;
+    }
+
+    /**
+     * 判断是否为运行级结束事件（Agent 级的 lifecycle 事件不结束运行）
+     */
+    private static boolean isRunTerminal(ExecutorEvent event) {
+        String type = event.getEventType();
+        if (type == null) {
+            return false;
+        }
+        if (LEGACY_TERMINAL_TYPES.contains(type)) {
+            return true;
+        }
+        return RUN_TERMINAL_TYPES.contains(type)
+                && (event.getAgentId() == null || AGENT_TYPE_GLOBAL_SUPERVISOR.equals(event.getAgentType()));
+    }
+
+    /**
+     * 判断事件流错误是否可以通过重连恢复：4xx 响应与解码错误重连后仍会失败
+     */
+    private boolean isReconnectable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return !(error instanceof CodecException);
     }
 
     /**
@@ -165,6 +332,43 @@ public class ExecutorServiceClient {
                 .timeout(Duration.ofSeconds(5));
     }
 
+    /**
+     * 按采样率在 DEBUG 级别输出请求体（包含大小与 SHA-256 摘要）
+     *
+     * <p>请求体包含所有 Agent 的完整系统提示词，大型拓扑可达数百 KB，因此仅采样输出。</p>
+     */
+    private void logPayloadSample(String payloadName, byte[] body) {
+        if (!log.isDebugEnabled() || ThreadLocalRandom.current().nextDouble() >= payloadLogSampleRate) {
+            return;
+        }
+        String digest;
+        try {
+            digest = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            digest = "unavailable";
+        }
+        log.debug("{} payload sample: size={} bytes, sha256={}, body={}",
+                payloadName, body.length, digest, new String(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 单次事件流订阅的状态（跨重连保留；事件串行到达，无需并发容器）
+     */
+    private static final class StreamState {
+        private long lastSequence;
+        private boolean terminated;
+    }
+
+    /**
+     * 事件流在运行结束事件之前正常关闭（可重连）
+     */
+    private static final class PrematureStreamCloseException extends RuntimeException {
+        private PrematureStreamCloseException(String runId, long lastSequence) {
+            super("Event stream for run " + runId + " closed before a terminal event (last sequence "
+                    + lastSequence + ")");
+        }
+    }
+
     /**
      * 取消运行响应（内部使用）
      */
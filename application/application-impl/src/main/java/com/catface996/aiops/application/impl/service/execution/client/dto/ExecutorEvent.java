@@ -1,5 +1,6 @@
 package com.catface996.aiops.application.impl.service.execution.client.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -67,6 +68,13 @@ public class ExecutorEvent {
      */
     private Map<String, Object> data;
 
+    /**
+     * 事件数据的原始 JSON（由 {@link com.catface996.aiops.application.impl.service.execution.client.ExecutorEventDecoder}
+     * 解码时设置，此时 data 为空，原样转发给前端）
+     */
+    @JsonIgnore
+    private String rawData;
+
     // ==================== 兼容旧格式字段 ====================
 
     /**
@@ -14,6 +14,7 @@ import com.catface996.aiops.domain.model.relationship.*;
 import com.catface996.aiops.domain.service.node2node.Node2NodeDomainService;
 import com.catface996.aiops.repository.node.NodeRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -41,7 +42,7 @@ public class RelationshipApplicationServiceImpl implements RelationshipApplicati
     }
 
     @Override
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public RelationshipDTO createRelationship(CreateRelationshipRequest request, Long operatorId) {
         RelationshipType type;
         RelationshipDirection direction;
@@ -169,6 +170,17 @@ public class RelationshipApplicationServiceImpl implements RelationshipApplicati
                 .build();
     }
 
+    @Override
+    public CycleComponentsDTO detectAllCycles() {
+        List<List<Long>> components = node2NodeDomainService.detectAllCycles();
+
+        return CycleComponentsDTO.builder()
+                .hasCycle(!components.isEmpty())
+                .components(components)
+                .message(components.isEmpty() ? "未检测到循环依赖" : "检测到 " + components.size() + " 组循环依赖")
+                .build();
+    }
+
     @Override
     public TraverseDTO traverse(Long resourceId, int maxDepth) {
         TraverseResult result = node2NodeDomainService.traverse(resourceId, maxDepth);
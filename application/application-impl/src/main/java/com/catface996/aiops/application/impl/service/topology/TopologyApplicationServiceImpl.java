@@ -7,10 +7,12 @@ import com.catface996.aiops.application.api.dto.topology.HierarchicalTeamDTO;
 import com.catface996.aiops.application.api.dto.topology.TeamDTO;
 import com.catface996.aiops.application.api.dto.topology.TopologyDTO;
 import com.catface996.aiops.application.api.dto.topology.TopologyGraphDTO;
+import com.catface996.aiops.application.api.dto.topology.TopologyGraphDeltaDTO;
 import com.catface996.aiops.application.api.dto.topology.request.CreateTopologyRequest;
 import com.catface996.aiops.application.api.dto.topology.request.HierarchicalTeamQueryRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryMembersRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryTopologiesRequest;
+import com.catface996.aiops.application.api.dto.topology.request.QueryTopologyGraphDeltaRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryTopologyGraphRequest;
 import com.catface996.aiops.application.api.dto.topology.request.UpdateTopologyRequest;
 import com.catface996.aiops.application.api.service.topology.TopologyApplicationService;
@@ -20,6 +22,7 @@ import com.catface996.aiops.domain.model.node.NodeStatus;
 import com.catface996.aiops.domain.model.topology.Topology;
 import com.catface996.aiops.domain.model.topology.TopologyStatus;
 import com.catface996.aiops.domain.model.topology.TopologyGraphData;
+import com.catface996.aiops.domain.model.topology.TopologyGraphDelta;
 import com.catface996.aiops.domain.service.node.NodeDomainService;
 import com.catface996.aiops.domain.service.topology2.TopologyDomainService;
 import com.catface996.aiops.domain.model.agent.AgentHierarchyLevel;
@@ -29,11 +32,14 @@ import com.catface996.aiops.repository.agent.AgentRepository;
 import com.catface996.aiops.repository.agentbound.AgentBoundRepository;
 import com.catface996.aiops.repository.node.NodeTypeRepository;
 import com.catface996.aiops.repository.topology2.Topology2NodeRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -108,8 +114,21 @@ public class TopologyApplicationServiceImpl implements TopologyApplicationServic
 
         long total = topologyDomainService.countTopologies(request.getName(), status);
 
+        // 批量获取成员数量和 Global Supervisor 绑定，查询次数与分页大小无关
+        List<Long> topologyIds = topologies.stream()
+                .map(Topology::getId)
+                .collect(Collectors.toList());
+        Map<Long, Integer> memberCounts = topologyDomainService.countMembersByTopologyIds(topologyIds);
+        Map<Long, List<AgentBound>> supervisorBindings = topologyIds.isEmpty()
+                ? Map.of()
+                : agentBoundRepository.findByEntityIds(BoundEntityType.TOPOLOGY, topologyIds).stream()
+                        .filter(AgentBound::isGlobalSupervisorBinding)
+                        .collect(Collectors.groupingBy(AgentBound::getEntityId));
+
         List<TopologyDTO> dtos = topologies.stream()
-                .map(this::toDTO)
+                .map(topology -> toDTO(topology,
+                        memberCounts.getOrDefault(topology.getId(), 0),
+                        supervisorBindings.getOrDefault(topology.getId(), List.of())))
                 .collect(Collectors.toList());
 
         return PageResult.of(dtos, request.getPage(), request.getSize(), total);
@@ -196,6 +215,17 @@ public class TopologyApplicationServiceImpl implements TopologyApplicationServic
             return null;
         }
 
+        // 获取成员数量与绑定的 Global Supervisor Agent 列表
+        int memberCount = topologyDomainService.countMembers(topology.getId());
+        List<AgentBound> boundAgents = agentBoundRepository.findByEntity(
+                BoundEntityType.TOPOLOGY, topology.getId(), AgentHierarchyLevel.GLOBAL_SUPERVISOR);
+        return toDTO(topology, memberCount, boundAgents);
+    }
+
+    /**
+     * 使用预先查询的成员数量和 Global Supervisor 绑定构建 DTO
+     */
+    private TopologyDTO toDTO(Topology topology, int memberCount, List<AgentBound> boundAgents) {
         TopologyDTO.TopologyDTOBuilder builder = TopologyDTO.builder()
                 .id(topology.getId())
                 .name(topology.getName())
@@ -211,13 +241,8 @@ public class TopologyApplicationServiceImpl implements TopologyApplicationServic
                     .statusDisplay(topology.getStatus().getDescription());
         }
 
-        // 获取成员数量
-        int memberCount = topologyDomainService.countMembers(topology.getId());
         builder.memberCount(memberCount);
 
-        // 获取绑定的 Global Supervisor Agent 列表
-        List<AgentBound> boundAgents = agentBoundRepository.findByEntity(
-                BoundEntityType.TOPOLOGY, topology.getId(), AgentHierarchyLevel.GLOBAL_SUPERVISOR);
         List<TopologyDTO.GlobalSupervisorInfo> globalSupervisors = boundAgents.stream()
                 .map(bound -> TopologyDTO.GlobalSupervisorInfo.builder()
                         .agentId(bound.getAgentId())
@@ -282,16 +307,86 @@ public class TopologyApplicationServiceImpl implements TopologyApplicationServic
 
     @Override
     public TopologyGraphDTO getTopologyGraph(QueryTopologyGraphRequest request) {
-        logger.info("获取拓扑图数据，topologyId: {}, depth: {}", request.getTopologyId(), request.getDepth());
+        logger.info("获取拓扑图数据，topologyId: {}, focusNodeId: {}, depth: {}",
+                request.getTopologyId(), request.getFocusNodeId(), request.getDepth());
+
+        // 转换为 DTO
+        return toTopologyGraphDTO(loadTopologyGraph(request, Boolean.TRUE.equals(request.getIncludeRelationships())));
+    }
+
+    @Override
+    public void writeTopologyGraphCompact(QueryTopologyGraphRequest request, JsonGenerator generator) throws IOException {
+        boolean includeRelationships = Boolean.TRUE.equals(request.getIncludeRelationships());
+        // 完整拓扑图的全部边逐行流式写出；邻域子图或边分页的结果集本身有限，沿用普通查询
+        boolean streamEdges = includeRelationships
+                && request.getFocusNodeId() == null && request.getEdgeSize() == null;
+        logger.info("以紧凑格式输出拓扑图数据，topologyId: {}, streamEdges: {}", request.getTopologyId(), streamEdges);
+
+        // 先完成校验与节点查询，拓扑图不存在时不会写出任何内容
+        TopologyGraphData graphData = loadTopologyGraph(request, includeRelationships && !streamEdges);
+
+        TopologyGraphCompactWriter writer = new TopologyGraphCompactWriter(generator);
+        writer.writeHeader(graphData);
+        long totalEdges;
+        if (streamEdges) {
+            try {
+                totalEdges = topologyDomainService.forEachTopologyEdge(request.getTopologyId(), writer::writeEdge);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            graphData.getEdges().forEach(writer::writeEdge);
+            totalEdges = graphData.getTotalEdges() != null ? graphData.getTotalEdges() : graphData.getEdges().size();
+        }
+        writer.writeFooter(totalEdges);
+    }
 
-        // 调用领域服务获取拓扑图数据
-        TopologyGraphData graphData = topologyDomainService.getTopologyGraph(
+    /**
+     * 调用领域服务获取拓扑图数据（指定焦点节点时只返回其邻域子图，指定 edgeSize 时对边分页）
+     */
+    private TopologyGraphData loadTopologyGraph(QueryTopologyGraphRequest request, boolean includeRelationships) {
+        Integer edgeLimit = request.getEdgeSize();
+        Integer edgeOffset = null;
+        if (edgeLimit != null) {
+            int edgePage = request.getEdgePage() != null ? request.getEdgePage() : 1;
+            edgeOffset = (edgePage - 1) * edgeLimit;
+        }
+
+        return topologyDomainService.getTopologyGraph(
                 request.getTopologyId(),
-                Boolean.TRUE.equals(request.getIncludeRelationships())
+                includeRelationships,
+                request.getFocusNodeId(),
+                request.getDepth() != null ? request.getDepth() : 1,
+                edgeOffset,
+                edgeLimit
         );
+    }
 
-        // 转换为 DTO
-        return toTopologyGraphDTO(graphData);
+    @Override
+    public TopologyGraphDeltaDTO getTopologyGraphDelta(QueryTopologyGraphDeltaRequest request) {
+        TopologyGraphDelta delta = topologyDomainService.getTopologyGraphDelta(
+                request.getTopologyId(), request.getSinceVersion());
+
+        TopologyGraphDeltaDTO.TopologyGraphDeltaDTOBuilder builder = TopologyGraphDeltaDTO.builder()
+                .topologyId(delta.getTopologyId())
+                .sinceVersion(delta.getSinceVersion())
+                .version(delta.getVersion())
+                .fullResync(delta.isFullResync());
+
+        if (delta.isFullResync()) {
+            logger.info("拓扑图变更日志已截断，返回全量数据，topologyId: {}, sinceVersion: {}",
+                    request.getTopologyId(), request.getSinceVersion());
+            TopologyGraphDTO graph = toTopologyGraphDTO(
+                    topologyDomainService.getTopologyGraph(request.getTopologyId(), true));
+            return builder.version(graph.getVersion()).graph(graph).build();
+        }
+
+        return builder
+                .upsertedNodes(delta.getUpsertedNodes().stream().map(this::toGraphNodeDTO).collect(Collectors.toList()))
+                .removedNodeIds(delta.getRemovedNodeIds())
+                .upsertedEdges(delta.getUpsertedEdges().stream().map(this::toGraphEdgeDTO).collect(Collectors.toList()))
+                .removedEdgeIds(delta.getRemovedEdgeIds())
+                .build();
     }
 
     // ===== Global Supervisor Agent 绑定方法 =====
@@ -307,36 +402,44 @@ public class TopologyApplicationServiceImpl implements TopologyApplicationServic
                 .build());
 
         // 转换节点列表
-        List<TopologyGraphDTO.GraphNodeDTO> nodes = graphData.getNodes().stream()
-                .map(node -> TopologyGraphDTO.GraphNodeDTO.builder()
-                        .id(node.getId())
-                        .name(node.getName())
-                        .nodeTypeCode(node.getNodeTypeCode())
-                        .status(node.getStatus())
-                        .layer(node.getLayer())
-                        .positionX(node.getPositionX())
-                        .positionY(node.getPositionY())
-                        .build())
-                .collect(Collectors.toList());
-        result.setNodes(nodes);
+        result.setNodes(graphData.getNodes().stream()
+                .map(this::toGraphNodeDTO)
+                .collect(Collectors.toList()));
 
         // 转换边列表
-        List<TopologyGraphDTO.GraphEdgeDTO> edges = graphData.getEdges().stream()
-                .map(edge -> TopologyGraphDTO.GraphEdgeDTO.builder()
-                        .id(edge.getId())
-                        .sourceId(edge.getSourceId())
-                        .targetId(edge.getTargetId())
-                        .relationshipType(edge.getRelationshipType())
-                        .direction(edge.getDirection())
-                        .strength(edge.getStrength())
-                        .status(edge.getStatus())
-                        .build())
-                .collect(Collectors.toList());
-        result.setEdges(edges);
+        result.setEdges(graphData.getEdges().stream()
+                .map(this::toGraphEdgeDTO)
+                .collect(Collectors.toList()));
+        result.setTotalEdges(graphData.getTotalEdges());
+        result.setVersion(graphData.getVersion());
 
         return result;
     }
 
+    private TopologyGraphDTO.GraphNodeDTO toGraphNodeDTO(TopologyGraphData.GraphNode node) {
+        return TopologyGraphDTO.GraphNodeDTO.builder()
+                .id(node.getId())
+                .name(node.getName())
+                .nodeTypeCode(node.getNodeTypeCode())
+                .status(node.getStatus())
+                .layer(node.getLayer())
+                .positionX(node.getPositionX())
+                .positionY(node.getPositionY())
+                .build();
+    }
+
+    private TopologyGraphDTO.GraphEdgeDTO toGraphEdgeDTO(TopologyGraphData.GraphEdge edge) {
+        return TopologyGraphDTO.GraphEdgeDTO.builder()
+                .id(edge.getId())
+                .sourceId(edge.getSourceId())
+                .targetId(edge.getTargetId())
+                .relationshipType(edge.getRelationshipType())
+                .direction(edge.getDirection())
+                .strength(edge.getStrength())
+                .status(edge.getStatus())
+                .build();
+    }
+
     // ===== 层级团队查询 =====
 
     @Override
@@ -0,0 +1,196 @@
+package com.catface996.aiops.application.impl.service.topology;
+
+import com.catface996.aiops.domain.model.relationship.RelationshipDirection;
+import com.catface996.aiops.domain.model.relationship.RelationshipStatus;
+import com.catface996.aiops.domain.model.relationship.RelationshipStrength;
+import com.catface996.aiops.domain.model.relationship.RelationshipType;
+import com.catface996.aiops.domain.model.topology.TopologyGraphData;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 拓扑图紧凑格式（列式 + 字典编码）输出
+ *
+ * <p>输出结构：</p>
+ * <pre>
+ * {
+ *   "format": "columnar-v1",
+ *   "topology": {"id": 101, "name": "..."},
+ *   "version": 42,
+ *   "dictionaries": {"relationshipType": [...], "direction": [...], "strength": [...], "status": [...]},
+ *   "nodes": {"id": [...], "name": [...], "nodeTypeCode": [...], "status": [...], "layer": [...],
+ *             "positionX": [...], "positionY": [...]},
+ *   "edgeFields": ["id", "sourceId", "targetId", "relationshipType", "direction", "strength", "status"],
+ *   "edges": [1, 201, 202, 0, 0, 0, 0, 2, ...],
+ *   "totalEdges": 120
+ * }
+ * </pre>
+ *
+ * <p>节点按列输出为并列数组；边按 edgeFields 的顺序展平为一个数值数组（每条边占 edgeFields.length 个元素），
+ * 枚举字段输出为对应字典中的下标（未知取值为 -1）。边在读取时逐条写出，不构建中间列表。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+final class TopologyGraphCompactWriter {
+
+    static final String FORMAT = "columnar-v1";
+
+    private static final String[] EDGE_FIELDS = {
+            "id", "sourceId", "targetId", "relationshipType", "direction", "strength", "status"
+    };
+
+    private static final List<String> RELATIONSHIP_TYPES = enumNames(RelationshipType.values());
+    private static final List<String> DIRECTIONS = enumNames(RelationshipDirection.values());
+    private static final List<String> STRENGTHS = enumNames(RelationshipStrength.values());
+    private static final List<String> STATUSES = enumNames(RelationshipStatus.values());
+
+    private static final Map<String, Integer> RELATIONSHIP_TYPE_CODES = codes(RELATIONSHIP_TYPES);
+    private static final Map<String, Integer> DIRECTION_CODES = codes(DIRECTIONS);
+    private static final Map<String, Integer> STRENGTH_CODES = codes(STRENGTHS);
+    private static final Map<String, Integer> STATUS_CODES = codes(STATUSES);
+
+    private final JsonGenerator generator;
+
+    TopologyGraphCompactWriter(JsonGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * 写出对象开始、拓扑图信息、字典和节点列
+     */
+    void writeHeader(TopologyGraphData graphData) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("format", FORMAT);
+
+        generator.writeObjectFieldStart("topology");
+        writeNumberOrNull("id", graphData.getTopologyId());
+        generator.writeStringField("name", graphData.getTopologyName());
+        generator.writeEndObject();
+
+        writeNumberOrNull("version", graphData.getVersion());
+
+        generator.writeObjectFieldStart("dictionaries");
+        writeStringArray("relationshipType", RELATIONSHIP_TYPES);
+        writeStringArray("direction", DIRECTIONS);
+        writeStringArray("strength", STRENGTHS);
+        writeStringArray("status", STATUSES);
+        generator.writeEndObject();
+
+        List<TopologyGraphData.GraphNode> nodes = graphData.getNodes();
+        generator.writeObjectFieldStart("nodes");
+        writeLongColumn("id", nodes, TopologyGraphData.GraphNode::getId);
+        writeStringColumn("name", nodes, TopologyGraphData.GraphNode::getName);
+        writeStringColumn("nodeTypeCode", nodes, TopologyGraphData.GraphNode::getNodeTypeCode);
+        writeStringColumn("status", nodes, TopologyGraphData.GraphNode::getStatus);
+        writeStringColumn("layer", nodes, TopologyGraphData.GraphNode::getLayer);
+        writeIntColumn("positionX", nodes, TopologyGraphData.GraphNode::getPositionX);
+        writeIntColumn("positionY", nodes, TopologyGraphData.GraphNode::getPositionY);
+        generator.writeEndObject();
+
+        generator.writeArrayFieldStart("edgeFields");
+        for (String field : EDGE_FIELDS) {
+            generator.writeString(field);
+        }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("edges");
+    }
+
+    /**
+     * 写出一条边（可作为流式回调，IO 异常包装为 {@link UncheckedIOException}）
+     */
+    void writeEdge(TopologyGraphData.GraphEdge edge) {
+        try {
+            generator.writeNumber(edge.getId());
+            generator.writeNumber(edge.getSourceId());
+            generator.writeNumber(edge.getTargetId());
+            generator.writeNumber(RELATIONSHIP_TYPE_CODES.getOrDefault(edge.getRelationshipType(), -1));
+            generator.writeNumber(DIRECTION_CODES.getOrDefault(edge.getDirection(), -1));
+            generator.writeNumber(STRENGTH_CODES.getOrDefault(edge.getStrength(), -1));
+            generator.writeNumber(STATUS_CODES.getOrDefault(edge.getStatus(), -1));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 结束边数组并写出边总数与对象结束
+     */
+    void writeFooter(long totalEdges) throws IOException {
+        generator.writeEndArray();
+        generator.writeNumberField("totalEdges", totalEdges);
+        generator.writeEndObject();
+    }
+
+    private void writeNumberOrNull(String field, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private void writeStringArray(String field, List<String> values) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (String value : values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeLongColumn(String field, List<TopologyGraphData.GraphNode> nodes,
+                                 Function<TopologyGraphData.GraphNode, Long> getter) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (TopologyGraphData.GraphNode node : nodes) {
+            Long value = getter.apply(node);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeIntColumn(String field, List<TopologyGraphData.GraphNode> nodes,
+                                Function<TopologyGraphData.GraphNode, Integer> getter) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (TopologyGraphData.GraphNode node : nodes) {
+            Integer value = getter.apply(node);
+            if (value == null) {
+                generator.writeNull();
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeStringColumn(String field, List<TopologyGraphData.GraphNode> nodes,
+                                   Function<TopologyGraphData.GraphNode, String> getter) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (TopologyGraphData.GraphNode node : nodes) {
+            generator.writeString(getter.apply(node));
+        }
+        generator.writeEndArray();
+    }
+
+    private static List<String> enumNames(Enum<?>[] values) {
+        return Arrays.stream(values).map(Enum::name).toList();
+    }
+
+    private static Map<String, Integer> codes(List<String> names) {
+        Map<String, Integer> codes = new HashMap<>(names.size() * 2);
+        for (int i = 0; i < names.size(); i++) {
+            codes.put(names.get(i), i);
+        }
+        return codes;
+    }
+}
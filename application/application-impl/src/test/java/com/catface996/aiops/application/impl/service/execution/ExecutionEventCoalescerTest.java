@@ -0,0 +1,324 @@
+package com.catface996.aiops.application.impl.service.execution;
+
+import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
+import com.catface996.aiops.application.impl.service.diagnosis.DiagnosisPersistenceService;
+import com.catface996.aiops.application.impl.service.diagnosis.DiagnosisStreamRecorder;
+import com.catface996.aiops.infrastructure.cache.redis.diagnosis.ReactiveDiagnosisStreamCacheService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 执行事件合并器单元测试
+ *
+ * <p>合并窗口设置得足够长，定时输出不参与测试，输出时机只由事件本身决定。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@DisplayName("执行事件合并器测试")
+class ExecutionEventCoalescerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ExecutionEventCoalescer coalescer = new ExecutionEventCoalescer(MAPPER, true, 60_000, 4096);
+
+    @Test
+    @DisplayName("同一 Agent 连续片段合并为一个事件，沿用首个片段的信息")
+    void coalesce_consecutiveChunks_shouldMerge() {
+        // Given
+        ExecutionEventDTO first = chunk("llm.stream", "100", "a");
+        first.setAgentName("Agent A");
+
+        // When
+        List<ExecutionEventDTO> output = collect(first, chunk("llm.stream", "100", "b"), chunk("llm.stream", "100", "c"));
+
+        // Then
+        assertEquals(1, output.size());
+        assertNotSame(first, output.get(0));
+        assertEquals("abc", output.get(0).getContent());
+        assertEquals("Agent A", output.get(0).getAgentName());
+        assertEquals("a", first.getContent());
+    }
+
+    @Test
+    @DisplayName("只有一个片段时原样输出")
+    void coalesce_singleChunk_shouldPassThrough() {
+        // Given
+        ExecutionEventDTO only = chunk("llm.stream", "100", "a");
+
+        // When
+        List<ExecutionEventDTO> output = collect(only, ExecutionEventDTO.builder().type("lifecycle.completed").build());
+
+        // Then
+        assertSame(only, output.get(0));
+    }
+
+    @Test
+    @DisplayName("合并不修改片段：与诊断流记录器串联时写入 Redis 的内容不重复")
+    void coalesce_withRecorderUpstream_shouldNotDuplicateRecordedContent() {
+        // Given: 记录器攒批窗口（200ms）长于合并窗口（20ms），合并输出时记录器仍持有片段
+        ReactiveDiagnosisStreamCacheService cacheService = mock(ReactiveDiagnosisStreamCacheService.class);
+        StringBuilder recorded = new StringBuilder();
+        when(cacheService.appendStreamContents(eq(1L), eq(100L), any(), any(), any(), anyBoolean()))
+                .thenAnswer(invocation -> {
+                    recorded.append((String) invocation.getArgument(3));
+                    return Mono.empty();
+                });
+        DiagnosisStreamRecorder recorder = new DiagnosisStreamRecorder(
+                cacheService, mock(DiagnosisPersistenceService.class), 256, 200, 4);
+        ExecutionEventCoalescer timed = new ExecutionEventCoalescer(MAPPER, true, 20, 4096);
+        Flux<ExecutionEventDTO> events = Flux.concat(
+                Flux.just(chunk("llm.stream", "100", "a"), chunk("llm.stream", "100", "b"),
+                        chunk("llm.stream", "100", "c")),
+                Mono.delay(Duration.ofMillis(400)).thenMany(Flux.<ExecutionEventDTO>empty()));
+
+        // When
+        List<ExecutionEventDTO> output = recorder.record(1L, events)
+                .transform(timed::coalesce)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(List.of("llm.stream:abc"), describe(output));
+        assertEquals("abc", recorded.toString());
+    }
+
+    @Test
+    @DisplayName("同一 Agent 片段类型切换时先输出已合并的内容")
+    void coalesce_typeSwitch_shouldFlushAgent() {
+        // When
+        List<ExecutionEventDTO> output = collect(
+                chunk("llm.reasoning", "100", "r1"),
+                chunk("llm.reasoning", "100", "r2"),
+                chunk("llm.stream", "100", "s1"),
+                chunk("llm.reasoning", "100", "r3"));
+
+        // Then
+        assertEquals(List.of("llm.reasoning:r1r2", "llm.stream:s1", "llm.reasoning:r3"), describe(output));
+    }
+
+    @Test
+    @DisplayName("不同 Agent 分别合并，按首个片段到达顺序输出")
+    void coalesce_interleavedAgents_shouldMergePerAgent() {
+        // When
+        List<ExecutionEventDTO> output = collect(
+                chunk("llm.stream", "200", "x1"),
+                chunk("llm.stream", "100", "y1"),
+                chunk("llm.stream", "200", "x2"),
+                chunk("llm.stream", "100", "y2"));
+
+        // Then
+        assertEquals(List.of("llm.stream:x1x2", "llm.stream:y1y2"), describe(output));
+        assertEquals("200", output.get(0).getAgentId());
+    }
+
+    @Test
+    @DisplayName("非片段事件先输出全部已合并内容，再立即透传")
+    void coalesce_otherEvent_shouldFlushAllThenPassThrough() {
+        // Given
+        ExecutionEventDTO lifecycle = ExecutionEventDTO.builder().type("lifecycle.completed").agentId("100").build();
+
+        // When
+        List<ExecutionEventDTO> output = collect(
+                chunk("llm.stream", "100", "a"),
+                chunk("llm.stream", "200", "b"),
+                lifecycle,
+                chunk("llm.stream", "100", "c"));
+
+        // Then
+        assertEquals(List.of("llm.stream:a", "llm.stream:b", "lifecycle.completed:null", "llm.stream:c"),
+                describe(output));
+        assertSame(lifecycle, output.get(2));
+    }
+
+    @Test
+    @DisplayName("没有内容的片段不参与合并")
+    void coalesce_chunkWithoutContent_shouldPassThrough() {
+        // When
+        List<ExecutionEventDTO> output = collect(
+                chunk("llm.stream", "100", "a"),
+                chunk("llm.stream", "100", null),
+                chunk("llm.stream", "100", "b"));
+
+        // Then
+        assertEquals(List.of("llm.stream:a", "llm.stream:null", "llm.stream:b"), describe(output));
+    }
+
+    @Test
+    @DisplayName("合并内容达到字符上限时立即输出")
+    void coalesce_maxChars_shouldFlushImmediately() {
+        // Given
+        ExecutionEventCoalescer small = new ExecutionEventCoalescer(MAPPER, true, 60_000, 4);
+
+        // When
+        List<ExecutionEventDTO> output = small.coalesce(Flux.just(
+                        chunk("llm.stream", "100", "ab"),
+                        chunk("llm.stream", "100", "cd"),
+                        chunk("llm.stream", "100", "e"),
+                        chunk("llm.stream", "100", "fghij")))
+                .collectList().block();
+
+        // Then
+        assertEquals(List.of("llm.stream:abcd", "llm.stream:efghij"), describe(output));
+    }
+
+    @Test
+    @DisplayName("定时输出：窗口到期后输出已合并的内容")
+    void coalesce_windowElapsed_shouldFlushPending() {
+        // Given
+        ExecutionEventCoalescer timed = new ExecutionEventCoalescer(MAPPER, true, 20, 4096);
+        Flux<ExecutionEventDTO> events = Flux.concat(
+                Flux.just(chunk("llm.stream", "100", "a"), chunk("llm.stream", "100", "b")),
+                Mono.delay(Duration.ofMillis(300)).thenReturn(chunk("llm.stream", "100", "c")));
+
+        // When
+        List<ExecutionEventDTO> output = timed.coalesce(events).collectList().block(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(List.of("llm.stream:ab", "llm.stream:c"), describe(output));
+    }
+
+    @Test
+    @DisplayName("上游出错时先输出已合并的内容，再传递错误")
+    void coalesce_error_shouldFlushThenPropagate() {
+        // Given
+        Flux<ExecutionEventDTO> events = Flux.concat(
+                Flux.just(chunk("llm.stream", "100", "a"), chunk("llm.stream", "100", "b")),
+                Flux.error(new IllegalStateException("boom")));
+        List<ExecutionEventDTO> received = new ArrayList<>();
+
+        // When
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> coalescer.coalesce(events).doOnNext(received::add).blockLast());
+
+        // Then
+        assertEquals("boom", error.getMessage());
+        assertEquals(List.of("llm.stream:ab"), describe(received));
+    }
+
+    @Test
+    @DisplayName("未启用时原样返回事件流")
+    void coalesce_disabled_shouldReturnSource() {
+        // Given
+        ExecutionEventCoalescer disabled = new ExecutionEventCoalescer(MAPPER, false, 50, 4096);
+        Flux<ExecutionEventDTO> events = Flux.just(chunk("llm.stream", "100", "a"), chunk("llm.stream", "100", "b"));
+
+        // When
+        Flux<ExecutionEventDTO> result = disabled.coalesce(events);
+
+        // Then
+        assertSame(events, result);
+    }
+
+    @Test
+    @DisplayName("原始 metadata 只替换 content，其余文本原样保留")
+    void coalesce_rawMetadata_shouldSpliceContentOnly() {
+        // Given
+        ExecutionEventDTO first = chunk("llm.stream", "100", "你好");
+        first.setRawMetadata("{\"tokens\":1.50,\"content\":\"你好\",\"extra\":{\"a\":[1,2e3]}}");
+        ExecutionEventDTO second = chunk("llm.stream", "100", "，\"世界\"");
+        second.setRawMetadata("{\"tokens\":2,\"content\":\"，\\\"世界\\\"\"}");
+
+        // When
+        List<ExecutionEventDTO> output = collect(first, second);
+
+        // Then
+        assertEquals(1, output.size());
+        ExecutionEventDTO merged = output.get(0);
+        assertEquals("你好，\"世界\"", merged.getContent());
+        assertEquals("{\"tokens\":1.50,\"content\":\"你好，\\\"世界\\\"\",\"extra\":{\"a\":[1,2e3]}}",
+                merged.getRawMetadata());
+        assertNull(merged.getMetadata());
+    }
+
+    @Test
+    @DisplayName("content 为最后一个字段或非字符串值时同样按偏移替换")
+    void coalesce_rawMetadataContentLastOrNonString_shouldSplice() {
+        // Given
+        ExecutionEventDTO first = chunk("llm.stream", "100", "a");
+        first.setRawMetadata("{ \"model\" : \"claude\" , \"content\" : 12 }");
+        ExecutionEventDTO second = chunk("llm.stream", "100", "b");
+
+        // When
+        ExecutionEventDTO merged = collect(first, second).get(0);
+
+        // Then
+        assertEquals("{ \"model\" : \"claude\" , \"content\" : \"ab\" }", merged.getRawMetadata());
+    }
+
+    @Test
+    @DisplayName("原始 metadata 没有 content 字段时原样保留")
+    void coalesce_rawMetadataWithoutContent_shouldKeepRaw() {
+        // Given
+        ExecutionEventDTO first = chunk("llm.stream", "100", "a");
+        first.setRawMetadata("{\"model\":\"claude\",\"nested\":{\"content\":\"inner\"}}");
+        ExecutionEventDTO second = chunk("llm.stream", "100", "b");
+
+        // When
+        ExecutionEventDTO merged = collect(first, second).get(0);
+
+        // Then
+        assertEquals("ab", merged.getContent());
+        assertEquals("{\"model\":\"claude\",\"nested\":{\"content\":\"inner\"}}", merged.getRawMetadata());
+    }
+
+    @Test
+    @DisplayName("原始 metadata 无法解析时保留原文，content 仍为合并结果")
+    void coalesce_unreadableRawMetadata_shouldKeepRaw() {
+        // Given
+        ExecutionEventDTO first = chunk("llm.stream", "100", "a");
+        first.setRawMetadata("{\"model\":");
+        ExecutionEventDTO second = chunk("llm.stream", "100", "b");
+
+        // When
+        ExecutionEventDTO merged = collect(first, second).get(0);
+
+        // Then
+        assertEquals("ab", merged.getContent());
+        assertEquals("{\"model\":", merged.getRawMetadata());
+    }
+
+    @Test
+    @DisplayName("Map 形式的 metadata 复制后替换 content")
+    void coalesce_mapMetadata_shouldReplaceContent() {
+        // Given
+        ExecutionEventDTO first = chunk("llm.stream", "100", "a");
+        Map<String, Object> metadata = Map.of("content", "a", "model", "claude");
+        first.setMetadata(metadata);
+        ExecutionEventDTO second = chunk("llm.stream", "100", "b");
+
+        // When
+        ExecutionEventDTO merged = collect(first, second).get(0);
+
+        // Then
+        assertEquals(Map.of("content", "ab", "model", "claude"), merged.getMetadata());
+        assertEquals("a", metadata.get("content"));
+    }
+
+    static List<String> describe(List<ExecutionEventDTO> events) {
+        return events.stream().map(event -> event.getType() + ":" + event.getContent()).toList();
+    }
+
+    static ExecutionEventDTO chunk(String type, String agentId, String content) {
+        return ExecutionEventDTO.builder().type(type).agentId(agentId).content(content).build();
+    }
+
+    List<ExecutionEventDTO> collect(ExecutionEventDTO... events) {
+        return coalescer.coalesce(Flux.just(events)).collectList().block();
+    }
+}
@@ -0,0 +1,104 @@
+package com.catface996.aiops.application.impl.service.execution;
+
+import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 执行事件多播中心单元测试（观看者离开后的上游取消）
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@DisplayName("执行事件多播中心测试")
+class ExecutionRunHubTest {
+
+    private static final Long TASK_ID = 1L;
+
+    @Test
+    @DisplayName("最后一个观看者离开超过宽限期后取消上游并归还许可")
+    void lastViewerLeaves_shouldCancelUpstreamAfterGrace() throws InterruptedException {
+        // Given
+        ExecutionRunHub hub = new ExecutionRunHub(16, 1, 50);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        assertTrue(hub.tryAcquirePermit());
+        Flux<ExecutionEventDTO> events = hub.publish(TASK_ID, Flux.<ExecutionEventDTO>never()
+                .doOnCancel(cancelled::countDown));
+
+        // When
+        events.subscribe().dispose();
+
+        // Then
+        assertTrue(cancelled.await(2, TimeUnit.SECONDS));
+        // doFinally 在取消信号传递给上游之后执行
+        Thread.sleep(50);
+        assertTrue(hub.watch(TASK_ID).isEmpty());
+        assertTrue(hub.tryAcquirePermit());
+    }
+
+    @Test
+    @DisplayName("宽限期内重新观看时不取消上游")
+    void viewerRejoinsWithinGrace_shouldKeepUpstream() throws InterruptedException {
+        // Given
+        ExecutionRunHub hub = new ExecutionRunHub(16, 1, 200);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        hub.tryAcquirePermit();
+        Flux<ExecutionEventDTO> events = hub.publish(TASK_ID, Flux.<ExecutionEventDTO>never()
+                .doOnCancel(() -> cancelled.set(true)));
+        events.subscribe().dispose();
+
+        // When
+        Disposable watcher = hub.watch(TASK_ID).orElseThrow().subscribe();
+        Thread.sleep(400);
+
+        // Then
+        assertFalse(cancelled.get());
+        assertTrue(hub.watch(TASK_ID).isPresent());
+        watcher.dispose();
+    }
+
+    @Test
+    @DisplayName("续传连接计为观看者")
+    void attachedViewer_shouldKeepUpstream() throws InterruptedException {
+        // Given
+        ExecutionRunHub hub = new ExecutionRunHub(16, 1, 100);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        hub.tryAcquirePermit();
+        hub.publish(TASK_ID, Flux.<ExecutionEventDTO>never().doOnCancel(() -> cancelled.set(true)));
+
+        // When
+        Disposable resumed = hub.attach(TASK_ID, Flux.never()).subscribe();
+        Thread.sleep(300);
+
+        // Then
+        assertFalse(cancelled.get());
+        resumed.dispose();
+    }
+
+    @Test
+    @DisplayName("宽限期为负数时执行始终运行到结束")
+    void negativeGrace_shouldNeverCancel() throws InterruptedException {
+        // Given
+        ExecutionRunHub hub = new ExecutionRunHub(16, 1, -1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        hub.tryAcquirePermit();
+        Flux<ExecutionEventDTO> events = hub.publish(TASK_ID, Flux.<ExecutionEventDTO>never()
+                .doOnCancel(() -> cancelled.set(true)));
+
+        // When
+        events.subscribe().dispose();
+        Thread.sleep(200);
+
+        // Then
+        assertFalse(cancelled.get());
+        assertTrue(hub.watch(TASK_ID).isPresent());
+    }
+}
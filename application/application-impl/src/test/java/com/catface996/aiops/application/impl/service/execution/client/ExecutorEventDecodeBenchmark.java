@@ -0,0 +1,108 @@
+package com.catface996.aiops.application.impl.service.execution.client;
+
+import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
+import com.catface996.aiops.application.impl.service.execution.client.dto.ExecutorEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor 事件解码基准测试
+ *
+ * <p>对比单个 llm.stream 事件从 SSE data 文本到下游 JSON 的两条路径：</p>
+ * <ul>
+ *   <li>dataBinding：ObjectMapper 绑定为 ExecutorEvent（data 为 Map），格式化器解析时间戳，Map 复制到 metadata 后重新序列化</li>
+ *   <li>streamingDecode：{@link ExecutorEventDecoder} 流式解码，按位解析时间戳，data 原始 JSON 直接写出</li>
+ * </ul>
+ *
+ * <p>运行方式（结果中的 gc.alloc.rate.norm 为每个事件的分配字节数）：</p>
+ * <pre>
+ * mvn -pl application/application-impl -am -Pbenchmark -DskipTests verify
+ * </pre>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorEventDecodeBenchmark {
+
+    private static final String LLM_STREAM_EVENT = """
+            {"run_id":"a1567309-4c03-43f8-bbae-9a2d75fd6d80","timestamp":"2025-12-31T10:00:00.123456Z",\
+            "sequence":1024,"source":{"agent_id":"100","agent_type":"worker","agent_name":"Global Monitor",\
+            "team_name":"分析组"},"event":{"category":"llm","action":"stream"},\
+            "data":{"content":"正在分析系统性能指标，","model":"claude","tokens":12}}""";
+
+    private ObjectMapper objectMapper;
+    private ExecutorEventDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        decoder = new ExecutorEventDecoder();
+    }
+
+    @Benchmark
+    public byte[] dataBinding() throws IOException {
+        ExecutorEvent event = objectMapper.readValue(LLM_STREAM_EVENT, ExecutorEvent.class);
+        LocalDateTime timestamp;
+        try {
+            timestamp = LocalDateTime.parse(event.getTimestamp(), DateTimeFormatter.ISO_DATE_TIME);
+        } catch (Exception e) {
+            timestamp = LocalDateTime.now();
+        }
+        return objectMapper.writeValueAsBytes(toDto(event, timestamp));
+    }
+
+    @Benchmark
+    public byte[] streamingDecode() throws IOException {
+        ExecutorEvent event = decoder.decode(LLM_STREAM_EVENT);
+        LocalDateTime timestamp = ExecutorEventDecoder.parseTimestamp(event.getTimestamp());
+        return objectMapper.writeValueAsBytes(toDto(event, timestamp));
+    }
+
+    private static ExecutionEventDTO toDto(ExecutorEvent event, LocalDateTime timestamp) {
+        return ExecutionEventDTO.builder()
+                .type(event.getEventType())
+                .runId(event.getRunId())
+                .agentId(event.getAgentId())
+                .agentName(event.getAgentName())
+                .agentType(event.getAgentType())
+                .teamName(event.getTeamName())
+                .content(event.getEventContent())
+                .timestamp(timestamp)
+                .metadata(event.getData())
+                .rawMetadata(event.getRawData())
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExecutorEventDecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
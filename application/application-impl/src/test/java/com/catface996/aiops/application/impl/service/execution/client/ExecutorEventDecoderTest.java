@@ -0,0 +1,187 @@
+package com.catface996.aiops.application.impl.service.execution.client;
+
+import com.catface996.aiops.application.impl.service.execution.client.dto.ExecutorEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Executor 事件流式解码器单元测试
+ *
+ * <p>以 ObjectMapper 绑定 {@link ExecutorEvent} 的结果为基准，逐字段比较解码结果。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@DisplayName("Executor 事件流式解码器测试")
+class ExecutorEventDecoderTest {
+
+    /**
+     * 与 Spring Boot 默认配置一致：忽略未知字段
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private final ExecutorEventDecoder decoder = new ExecutorEventDecoder();
+
+    @ParameterizedTest
+    @DisplayName("解码结果与数据绑定一致")
+    @ValueSource(strings = {
+            // llm.stream 片段
+            """
+            {"run_id":"a1567309-4c03-43f8-bbae-9a2d75fd6d80","timestamp":"2025-12-31T10:00:00.123456Z",\
+            "sequence":1024,"source":{"agent_id":"100","agent_type":"worker","agent_name":"Global Monitor",\
+            "team_name":"分析组"},"event":{"category":"llm","action":"stream"},\
+            "data":{"content":"正在分析系统性能指标，\\n\\"CPU\\"","model":"claude","tokens":12}}""",
+            // 生命周期事件：无 content，未知字段与嵌套结构
+            """
+            {"run_id":"r-1","timestamp":"2025-12-31T10:00:01+08:00","sequence":1,\
+            "source":{"agent_id":"1","agent_type":"global_supervisor","agent_name":"Supervisor","team_name":null},\
+            "event":{"category":"lifecycle","action":"started","extra":{"a":[1,2]}},\
+            "data":{"status":"running","steps":[{"id":1},{"id":2}]},"trace":{"span":"x"}}""",
+            // 旧格式：type / agent / content
+            """
+            {"type":"thinking","agent":"Agent A","content":"旧格式内容","timestamp":"2025-12-31T10:00:02"}""",
+            // data.content 为数字
+            """
+            {"event":{"category":"tool","action":"result"},"sequence":7,"data":{"content":42,"ok":true}}""",
+            // data.content 为浮点数
+            """
+            {"event":{"category":"tool","action":"result"},"data":{"content":1.50}}""",
+            // data.content 为对象与数组
+            """
+            {"event":{"category":"tool","action":"result"},"data":{"content":{"rows":[1,2],"ok":true}}}""",
+            """
+            {"event":{"category":"tool","action":"result"},"data":{"content":["a",null,3]}}""",
+            // data.content 为 null 时不回退到旧格式 content
+            """
+            {"type":"llm.stream","content":"legacy","data":{"content":null}}""",
+            // data 中没有 content 时回退到旧格式 content
+            """
+            {"type":"llm.stream","content":"legacy","data":{"model":"claude"}}""",
+            // 序号为浮点数或数字字符串
+            """
+            {"sequence":12.0,"event":{"category":"llm","action":"stream"},"data":{"content":"x"}}""",
+            """
+            {"sequence":"13","event":{"category":"llm","action":"stream"},"data":{"content":"x"}}"""
+    })
+    void decode_shouldMatchDataBinding(String json) throws IOException {
+        // Given
+        ExecutorEvent expected = MAPPER.readValue(json, ExecutorEvent.class);
+
+        // When
+        ExecutorEvent actual = decoder.decode(json);
+
+        // Then
+        assertEquals(expected.getRunId(), actual.getRunId());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getSequence(), actual.getSequence());
+        assertEquals(expected.getSource(), actual.getSource());
+        assertEquals(expected.getEventType(), actual.getEventType());
+        assertEquals(expected.getEventContent(), actual.getEventContent());
+        assertEquals(expected.getAgentName(), actual.getAgentName());
+        assertNull(actual.getData());
+        if (expected.getData() == null) {
+            assertNull(actual.getRawData());
+        } else {
+            assertEquals(MAPPER.valueToTree(expected.getData()), MAPPER.readTree(actual.getRawData()));
+        }
+    }
+
+    @Test
+    @DisplayName("sequence 为对象或数组时跳过整个值并继续解码后续字段")
+    void decode_structuredSequence_shouldSkipChildren() throws IOException {
+        // Given
+        String json = """
+                {"sequence":{"value":{"nested":1}},"run_id":"r-1","data":{"content":"a"}}""";
+        String arrayJson = """
+                {"sequence":[1,[2]],"run_id":"r-2","data":{"content":"b"}}""";
+
+        // When
+        ExecutorEvent event = decoder.decode(json);
+        ExecutorEvent arrayEvent = decoder.decode(arrayJson);
+
+        // Then
+        assertNull(event.getSequence());
+        assertEquals("r-1", event.getRunId());
+        assertEquals("a", event.getEventContent());
+        assertNull(arrayEvent.getSequence());
+        assertEquals("r-2", arrayEvent.getRunId());
+        assertEquals("b", arrayEvent.getEventContent());
+    }
+
+    @Test
+    @DisplayName("事件类型驻留：相同类别与动作返回同一实例")
+    void decode_sameType_shouldReturnInternedInstance() throws IOException {
+        // Given
+        String json = """
+                {"event":{"category":"llm","action":"stream"},"data":{"content":"x"}}""";
+
+        // When
+        String first = decoder.decode(json).getType();
+        String second = decoder.decode(json).getType();
+
+        // Then
+        assertEquals("llm.stream", first);
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("驻留上限按事件类型总数计算：同一类别下的大量动作不再进入缓存")
+    void decode_manyActions_shouldStopInterningAtLimit() throws IOException {
+        // Given
+        for (int i = 0; i < 2000; i++) {
+            decoder.decode("{\"event\":{\"category\":\"llm\",\"action\":\"a" + i + "\"}}");
+        }
+        String json = "{\"event\":{\"category\":\"llm\",\"action\":\"a1999\"}}";
+
+        // When
+        String first = decoder.decode(json).getType();
+        String second = decoder.decode(json).getType();
+
+        // Then
+        assertEquals("llm.a1999", first);
+        assertEquals(first, second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    @DisplayName("非 JSON 对象抛出解析异常")
+    void decode_notObject_shouldThrow() {
+        assertThrows(IOException.class, () -> decoder.decode("[1,2]"));
+    }
+
+    @ParameterizedTest
+    @DisplayName("时间戳解析与 ISO_DATE_TIME 一致（时区偏移与小数秒）")
+    @ValueSource(strings = {
+            "2025-12-31T10:00:00",
+            "2025-12-31T10:00:00Z",
+            "2025-12-31T10:00:00+08:00",
+            "2025-12-31T10:00:00-05:30",
+            "2025-12-31T10:00:00.1Z",
+            "2025-12-31T10:00:00.123456",
+            "2025-12-31T10:00:00.123456789+08:00",
+            "2025-12-31T10:00:00+08:00[Asia/Shanghai]",
+            "2025-12-31T10:00"
+    })
+    void parseTimestamp_shouldMatchIsoDateTime(String text) {
+        assertEquals(LocalDateTime.parse(text, DateTimeFormatter.ISO_DATE_TIME),
+                ExecutorEventDecoder.parseTimestamp(text));
+    }
+
+    @ParameterizedTest
+    @DisplayName("无法解析的时间戳返回 null")
+    @ValueSource(strings = {"2025-13-31T10:00:00Z", "2025-12-31 10:00:00", "not-a-time", "2025-12-3XT10:00:00Z"})
+    void parseTimestamp_invalid_shouldReturnNull(String text) {
+        assertNull(ExecutorEventDecoder.parseTimestamp(text));
+    }
+}
@@ -0,0 +1,182 @@
+package com.catface996.aiops.application.impl.service.execution.client;
+
+import com.catface996.aiops.application.impl.service.execution.client.dto.ExecutorEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Executor 服务客户端事件流单元测试
+ *
+ * <p>通过桩 ExchangeFunction 按顺序返回预设的 SSE 响应，验证序号去重与断线重连。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@DisplayName("Executor 服务客户端事件流测试")
+class ExecutorServiceClientTest {
+
+    private static final String RUN_ID = "run-1";
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+    private final Queue<ClientResponse> responses = new ConcurrentLinkedQueue<>();
+
+    @Test
+    @DisplayName("收到运行结束事件后正常完成，不再重连")
+    void streamEvents_terminalEvent_shouldComplete() {
+        // Given
+        respond(event(1, "llm", "stream", "worker"), event(2, "lifecycle", "completed", "global_supervisor"));
+
+        // When
+        List<Integer> sequences = sequences(client(3));
+
+        // Then
+        assertEquals(List.of(1, 2), sequences);
+        assertEquals(1, requests.size());
+        assertNull(requests.get(0).headers().getFirst("Last-Event-ID"));
+    }
+
+    @Test
+    @DisplayName("结束事件之前正常关闭时携带最后序号重连，重放的重复事件被丢弃")
+    void streamEvents_cleanCloseBeforeTerminal_shouldReconnectAndDedupe() {
+        // Given
+        respond(event(1, "llm", "stream", "worker"), event(2, "llm", "stream", "worker"));
+        respond(event(1, "llm", "stream", "worker"), event(2, "llm", "stream", "worker"),
+                event(3, "llm", "stream", "worker"), event(4, "lifecycle", "completed", "global_supervisor"));
+
+        // When
+        List<Integer> sequences = sequences(client(3));
+
+        // Then
+        assertEquals(List.of(1, 2, 3, 4), sequences);
+        assertEquals(2, requests.size());
+        assertEquals("2", requests.get(1).headers().getFirst("Last-Event-ID"));
+    }
+
+    @Test
+    @DisplayName("Agent 级的 lifecycle.completed 不结束运行")
+    void streamEvents_agentCompleted_shouldNotTerminate() {
+        // Given
+        respond(event(1, "lifecycle", "completed", "worker"));
+        respond(event(2, "lifecycle", "failed", null));
+
+        // When
+        List<Integer> sequences = sequences(client(3));
+
+        // Then
+        assertEquals(List.of(1, 2), sequences);
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    @DisplayName("旧格式 complete 事件视为运行结束")
+    void streamEvents_legacyComplete_shouldComplete() {
+        // Given
+        respond("{\"type\":\"complete\",\"content\":\"done\"}");
+
+        // When
+        List<ExecutorEvent> events = client(3).streamEvents(RUN_ID).collectList().block(Duration.ofSeconds(5));
+
+        // Then
+        assertEquals(1, events.size());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    @DisplayName("连续重连均未收到新事件时达到上限后报错")
+    void streamEvents_repeatedPrematureClose_shouldExhaustRetries() {
+        // Given
+        respond(event(1, "llm", "stream", "worker"));
+        respond(event(1, "llm", "stream", "worker"));
+        respond(event(1, "llm", "stream", "worker"));
+        List<Integer> received = new ArrayList<>();
+
+        // When
+        Throwable error = assertThrows(RuntimeException.class, () -> client(2).streamEvents(RUN_ID)
+                .doOnNext(event -> received.add(event.getSequence()))
+                .blockLast(Duration.ofSeconds(5)));
+
+        // Then
+        assertTrue(Exceptions.isRetryExhausted(error));
+        assertEquals(List.of(1), received);
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    @DisplayName("5xx 响应重连，4xx 响应不重连")
+    void streamEvents_httpErrors_shouldOnlyRetryServerErrors() {
+        // Given
+        responses.add(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        respond(event(1, "lifecycle", "completed", null));
+
+        // When
+        List<Integer> sequences = sequences(client(3));
+
+        // Then
+        assertEquals(List.of(1), sequences);
+        assertEquals(2, requests.size());
+
+        // Given
+        requests.clear();
+        responses.add(ClientResponse.create(HttpStatus.NOT_FOUND).build());
+        respond(event(1, "lifecycle", "completed", null));
+
+        // When / Then
+        assertThrows(WebClientResponseException.NotFound.class,
+                () -> client(3).streamEvents(RUN_ID).blockLast(Duration.ofSeconds(5)));
+        assertEquals(1, requests.size());
+    }
+
+    private ExecutorServiceClient client(int maxAttempts) {
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    ClientResponse response = responses.poll();
+                    return response != null ? Mono.just(response) : Mono.error(new IllegalStateException("no response"));
+                })
+                .build();
+        return new ExecutorServiceClient(webClient, webClient, 5_000, maxAttempts, 1, 5, 0.0);
+    }
+
+    private List<Integer> sequences(ExecutorServiceClient client) {
+        return client.streamEvents(RUN_ID)
+                .map(ExecutorEvent::getSequence)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+    }
+
+    private void respond(String... events) {
+        StringBuilder body = new StringBuilder(": heartbeat\n\n");
+        for (String event : events) {
+            body.append("data:").append(event).append("\n\n");
+        }
+        responses.add(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_EVENT_STREAM_VALUE)
+                .body(body.toString())
+                .build());
+    }
+
+    private static String event(int sequence, String category, String action, String agentType) {
+        String source = agentType == null
+                ? ""
+                : ",\"source\":{\"agent_id\":\"" + sequence + "\",\"agent_type\":\"" + agentType + "\"}";
+        return "{\"run_id\":\"" + RUN_ID + "\",\"sequence\":" + sequence + source
+                + ",\"event\":{\"category\":\"" + category + "\",\"action\":\"" + action + "\"},\"data\":{}}";
+    }
+}
@@ -0,0 +1,134 @@
+package com.catface996.aiops.application.impl.service.topology;
+
+import com.catface996.aiops.domain.model.topology.TopologyGraphData;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 拓扑图紧凑格式输出单元测试
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@DisplayName("拓扑图紧凑格式输出测试")
+class TopologyGraphCompactWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    @DisplayName("节点按列输出，空值保留为 null")
+    void writeHeader_shouldWriteNodeColumns() throws IOException {
+        // Given
+        TopologyGraphData graph = TopologyGraphData.builder()
+                .topologyId(101L)
+                .topologyName("支付链路")
+                .version(42L)
+                .nodes(List.of(
+                        node(201L, "api-gateway", 10, 20),
+                        node(202L, "order-db", null, null)))
+                .build();
+
+        // When
+        JsonNode root = write(graph, List.of(), 0);
+
+        // Then
+        assertEquals(TopologyGraphCompactWriter.FORMAT, root.get("format").asText());
+        assertEquals(101L, root.get("topology").get("id").asLong());
+        assertEquals("支付链路", root.get("topology").get("name").asText());
+        assertEquals(42L, root.get("version").asLong());
+        JsonNode nodes = root.get("nodes");
+        assertEquals("[201,202]", nodes.get("id").toString());
+        assertEquals("[\"api-gateway\",\"order-db\"]", nodes.get("name").toString());
+        assertEquals("[10,null]", nodes.get("positionX").toString());
+        assertEquals("[20,null]", nodes.get("positionY").toString());
+        assertEquals(0, root.get("edges").size());
+        assertEquals(0L, root.get("totalEdges").asLong());
+    }
+
+    @Test
+    @DisplayName("边按 edgeFields 顺序展平，枚举字段输出为字典下标")
+    void writeEdge_shouldFlattenEdgesWithDictionaryCodes() throws IOException {
+        // Given
+        TopologyGraphData graph = TopologyGraphData.builder().topologyId(101L).nodes(List.of()).build();
+        TopologyGraphData.GraphEdge edge = TopologyGraphData.GraphEdge.builder()
+                .id(1L).sourceId(201L).targetId(202L)
+                .relationshipType("CALL").direction("BIDIRECTIONAL").strength("WEAK").status("ABNORMAL")
+                .build();
+
+        // When
+        JsonNode root = write(graph, List.of(edge), 1);
+
+        // Then
+        JsonNode fields = root.get("edgeFields");
+        JsonNode edges = root.get("edges");
+        assertEquals(fields.size(), edges.size());
+        JsonNode dictionaries = root.get("dictionaries");
+        assertEquals("CALL", dictionaries.get("relationshipType").get(edges.get(3).asInt()).asText());
+        assertEquals("BIDIRECTIONAL", dictionaries.get("direction").get(edges.get(4).asInt()).asText());
+        assertEquals("WEAK", dictionaries.get("strength").get(edges.get(5).asInt()).asText());
+        assertEquals("ABNORMAL", dictionaries.get("status").get(edges.get(6).asInt()).asText());
+        assertEquals(1L, edges.get(0).asLong());
+        assertEquals(201L, edges.get(1).asLong());
+        assertEquals(202L, edges.get(2).asLong());
+        assertEquals(1L, root.get("totalEdges").asLong());
+    }
+
+    @Test
+    @DisplayName("未知或缺失的枚举取值输出为 -1")
+    void writeEdge_unknownEnum_shouldWriteMinusOne() throws IOException {
+        // Given
+        TopologyGraphData graph = TopologyGraphData.builder().topologyId(101L).nodes(List.of()).build();
+        TopologyGraphData.GraphEdge edge = TopologyGraphData.GraphEdge.builder()
+                .id(7L).sourceId(1L).targetId(2L).relationshipType("UNKNOWN").build();
+
+        // When
+        JsonNode edges = write(graph, List.of(edge), 1).get("edges");
+
+        // Then
+        for (int i = 3; i < edges.size(); i++) {
+            assertEquals(-1, edges.get(i).asInt());
+        }
+    }
+
+    @Test
+    @DisplayName("拓扑图ID与版本为空时输出 null")
+    void writeHeader_nullIds_shouldWriteNull() throws IOException {
+        // Given
+        TopologyGraphData graph = TopologyGraphData.builder().nodes(List.of()).build();
+
+        // When
+        JsonNode root = write(graph, List.of(), 0);
+
+        // Then
+        assertTrue(root.get("topology").get("id").isNull());
+        assertTrue(root.get("version").isNull());
+    }
+
+    private static JsonNode write(TopologyGraphData graph, List<TopologyGraphData.GraphEdge> edges, long totalEdges)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(out)) {
+            TopologyGraphCompactWriter writer = new TopologyGraphCompactWriter(generator);
+            writer.writeHeader(graph);
+            edges.forEach(writer::writeEdge);
+            writer.writeFooter(totalEdges);
+        }
+        return MAPPER.readTree(out.toString());
+    }
+
+    private static TopologyGraphData.GraphNode node(Long id, String name, Integer x, Integer y) {
+        return TopologyGraphData.GraphNode.builder()
+                .id(id).name(name).nodeTypeCode("SERVICE").status("RUNNING").layer("APPLICATION")
+                .positionX(x).positionY(y)
+                .build();
+    }
+}
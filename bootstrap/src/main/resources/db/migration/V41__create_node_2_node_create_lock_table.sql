@@ -0,0 +1,13 @@
+-- =====================================================
+-- V41: 创建节点关系创建锁表
+-- Date: 2026-10-17
+-- Description: 单行锁表。创建关系时在事务内 SELECT ... FOR UPDATE 锁定该行，
+--              使循环依赖检查与插入在所有实例间串行执行，锁随事务提交或回滚释放
+-- =====================================================
+
+CREATE TABLE node_2_node_create_lock (
+    id              TINYINT         NOT NULL COMMENT '主键ID（固定为 1）',
+    PRIMARY KEY (id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='节点关系创建锁表';
+
+INSERT INTO node_2_node_create_lock (id) VALUES (1);
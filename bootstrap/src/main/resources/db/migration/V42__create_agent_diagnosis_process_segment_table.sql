@@ -0,0 +1,24 @@
+-- =====================================================
+-- V42: 创建Agent诊断过程内容片段表
+-- Date: 2026-10-17
+-- Description: 增量持久化的每个内容片段单独插入一行，不再对 agent_diagnosis_process.content
+--              执行 CONCAT 追加（每次追加都会重写整个 LONGTEXT，总写入量随内容长度二次增长）。
+--              查询时按 seq 顺序拼接为完整内容
+-- =====================================================
+
+CREATE TABLE agent_diagnosis_process_segment (
+    -- 主键
+    id              BIGINT          NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+
+    -- 业务核心字段
+    process_id      BIGINT          NOT NULL COMMENT '关联Agent诊断过程ID',
+    seq             BIGINT          NOT NULL COMMENT '片段序号（片段结束处的内容游标，单调递增）',
+    content         MEDIUMTEXT      NOT NULL COMMENT '内容片段',
+
+    -- 审计字段
+    created_at      DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+
+    -- 约束
+    PRIMARY KEY (id),
+    UNIQUE KEY uk_process_seq (process_id, seq)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Agent诊断过程内容片段表';
@@ -0,0 +1,9 @@
+-- =====================================================
+-- V43: 节点关系创建锁行增加关系版本号
+-- Date: 2026-10-17
+-- Description: 创建、删除关系时在锁行上递增版本号。创建关系时在锁内读取版本号，
+--              本实例缓存的邻接索引版本一致时直接用于循环检查，无需再逐层查询可达子图
+-- =====================================================
+
+ALTER TABLE node_2_node_create_lock
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '关系版本号（每次创建、删除关系时递增）';
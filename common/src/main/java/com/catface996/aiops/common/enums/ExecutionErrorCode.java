@@ -0,0 +1,49 @@
+package com.catface996.aiops.common.enums;
+
+/**
+ * 执行相关错误码
+ *
+ * <p>包括多智能体执行的准入控制、断线续传等错误。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+public enum ExecutionErrorCode implements ErrorCode {
+
+    // ==================== 资源不存在 (404) ====================
+
+    /**
+     * 执行事件日志不存在或已过期，无法续传
+     */
+    EVENT_LOG_NOT_FOUND("NOT_FOUND_004", "任务 {0} 的执行事件日志不存在或已过期"),
+
+    /**
+     * 续传起点之后的事件已被日志长度限制截断，无法无缝续传
+     */
+    EVENT_LOG_TRIMMED("NOT_FOUND_005", "任务 {0} 序号 {1} 之后的事件已被截断（最早保留序号 {2}），请重新加载完整结果"),
+
+    // ==================== 限流错误 (429) ====================
+
+    /**
+     * 并发执行数已达上限
+     */
+    TOO_MANY_EXECUTIONS("THROTTLE_001", "当前执行任务过多（上限 {0}），请稍后重试");
+
+    private final String code;
+    private final String message;
+
+    ExecutionErrorCode(String code, String message) {
+        this.code = code;
+        this.message = message;
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public String getMessage() {
+        return message;
+    }
+}
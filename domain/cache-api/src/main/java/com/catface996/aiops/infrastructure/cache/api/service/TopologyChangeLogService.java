@@ -0,0 +1,70 @@
+package com.catface996.aiops.infrastructure.cache.api.service;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * 拓扑图变更日志服务接口
+ *
+ * <p>为每个拓扑图维护单调递增的变更版本号，并记录每个节点、边最近一次变更时的版本号，
+ * 用于拓扑图增量查询：客户端携带上次获取的版本号，只拉取之后变更过的节点和边。</p>
+ *
+ * <p>日志只记录实体ID，不记录变更内容；调用方按ID重新读取当前状态，读不到即视为已删除。
+ * 因此重复或多余的记录不会导致错误结果。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+public interface TopologyChangeLogService {
+
+    /**
+     * 获取拓扑图当前版本号
+     *
+     * @param topologyId 拓扑图ID
+     * @return 当前版本号，从未变更时为 0
+     */
+    long currentVersion(Long topologyId);
+
+    /**
+     * 记录一次拓扑图变更（版本号加一）
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    变更的节点ID，可为空
+     * @param edgeIds    变更的边（关系）ID，可为空
+     * @return 变更后的版本号
+     */
+    long record(Long topologyId, Collection<Long> nodeIds, Collection<Long> edgeIds);
+
+    /**
+     * 使拓扑图的增量日志失效（版本号加一并将截断水位提升到新版本）
+     *
+     * <p>在变更未能记录时调用：此前同步过的客户端都会在下次增量查询时收到 truncated 并回退到全量同步，
+     * 避免因漏记变更而永久错过某个实体的更新。</p>
+     *
+     * @param topologyId 拓扑图ID
+     * @return 失效后的版本号
+     */
+    long invalidate(Long topologyId);
+
+    /**
+     * 查询指定版本之后变更过的节点和边
+     *
+     * @param topologyId   拓扑图ID
+     * <p>版本号、截断水位与变更集合在一次原子读取中获得，与并发的记录和裁剪互不交错。</p>
+     *
+     * @param sinceVersion 客户端已同步的版本号
+     * @return 变更集合；日志已被截断或版本号无效时 {@link ChangeSet#truncated()} 为 true，调用方需全量同步
+     */
+    ChangeSet changesSince(Long topologyId, long sinceVersion);
+
+    /**
+     * 变更集合
+     *
+     * @param version   读取时的当前版本号
+     * @param truncated 是否需要全量同步
+     * @param nodeIds   变更过的节点ID
+     * @param edgeIds   变更过的边ID
+     */
+    record ChangeSet(long version, boolean truncated, Set<Long> nodeIds, Set<Long> edgeIds) {
+    }
+}
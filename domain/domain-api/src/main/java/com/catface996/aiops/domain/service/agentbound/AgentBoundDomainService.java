@@ -6,6 +6,7 @@ import com.catface996.aiops.domain.model.agentbound.BoundEntityType;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Agent 绑定关系领域服务接口
@@ -85,6 +86,17 @@ public interface AgentBoundDomainService {
      */
     List<AgentBound> queryHierarchyByTopology(Long topologyId);
 
+    /**
+     * 流式遍历 Topology 的层级成员（包含未绑定 Agent 的 Node）
+     *
+     * <p>单次查询、不分页，适用于任意规模的 Topology。回调顺序：Global Supervisor 绑定在前，
+     * 之后同一 Node 的记录连续出现；未绑定 Agent 的 Node 以 id 为 null 的记录出现一次。</p>
+     *
+     * @param topologyId Topology ID
+     * @param consumer   逐条处理回调
+     */
+    void scanHierarchyMembers(Long topologyId, Consumer<AgentBound> consumer);
+
     /**
      * 解绑 Agent
      *
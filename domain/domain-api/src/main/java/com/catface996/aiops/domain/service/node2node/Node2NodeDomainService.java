@@ -130,6 +130,15 @@ public interface Node2NodeDomainService {
      */
     CycleDetectionResult detectCycle(Long nodeId);
 
+    /**
+     * 检测全部循环依赖（强连通分量）
+     *
+     * <p>仅由双向关系连通的节点属于互相依赖，不作为循环依赖报告；分量内至少包含一条单向关系时才会报告。</p>
+     *
+     * @return 每组循环依赖涉及的节点ID列表，无循环时为空
+     */
+    List<List<Long>> detectAllCycles();
+
     /**
      * 广度优先遍历
      *
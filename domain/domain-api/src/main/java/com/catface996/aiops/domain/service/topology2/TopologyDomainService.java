@@ -2,10 +2,13 @@ package com.catface996.aiops.domain.service.topology2;
 
 import com.catface996.aiops.domain.model.topology.Topology;
 import com.catface996.aiops.domain.model.topology.TopologyGraphData;
+import com.catface996.aiops.domain.model.topology.TopologyGraphDelta;
 import com.catface996.aiops.domain.model.topology.TopologyStatus;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * 拓扑图领域服务接口（新版本）
@@ -91,6 +94,14 @@ public interface TopologyDomainService {
      */
     int countMembers(Long topologyId);
 
+    /**
+     * 批量获取多个拓扑图的成员数量（单次查询）
+     *
+     * @param topologyIds 拓扑图ID列表
+     * @return topologyId -> 成员数量（无成员的拓扑图不包含在内）
+     */
+    Map<Long, Integer> countMembersByTopologyIds(List<Long> topologyIds);
+
     /**
      * 添加成员到拓扑图
      *
@@ -128,5 +139,40 @@ public interface TopologyDomainService {
      */
     TopologyGraphData getTopologyGraph(Long topologyId, boolean includeRelationships);
 
+    /**
+     * 获取拓扑图数据（支持邻域子图与边分页）
+     *
+     * @param topologyId           拓扑图ID
+     * @param includeRelationships 是否包含节点关系（边）
+     * @param focusNodeId          焦点节点ID，为空时返回完整拓扑图
+     * @param depth                邻域跳数（仅指定焦点节点时生效）
+     * @param edgeOffset           边偏移量（edgeLimit 为空时忽略）
+     * @param edgeLimit            边最大条数，为空时返回全部边
+     * @return 拓扑图数据
+     */
+    TopologyGraphData getTopologyGraph(Long topologyId, boolean includeRelationships,
+                                       Long focusNodeId, int depth, Integer edgeOffset, Integer edgeLimit);
+
+    /**
+     * 流式遍历拓扑图的全部边（按关系ID排序）
+     *
+     * <p>用于大拓扑图的紧凑格式输出，不在内存中构建边列表。
+     * 回调参数是同一个复用的实例，调用方不得持有其引用。</p>
+     *
+     * @param topologyId 拓扑图ID
+     * @param consumer   边回调
+     * @return 边数量
+     */
+    long forEachTopologyEdge(Long topologyId, Consumer<TopologyGraphData.GraphEdge> consumer);
+
+    /**
+     * 获取拓扑图增量数据
+     *
+     * @param topologyId   拓扑图ID
+     * @param sinceVersion 客户端已同步的版本号
+     * @return 增量数据；需要全量同步时 fullResync 为 true 且不包含变更内容
+     */
+    TopologyGraphDelta getTopologyGraphDelta(Long topologyId, long sinceVersion);
+
     // Note: Global Supervisor Agent 绑定/解绑方法已移至 AgentBoundDomainService (Feature 040)
 }
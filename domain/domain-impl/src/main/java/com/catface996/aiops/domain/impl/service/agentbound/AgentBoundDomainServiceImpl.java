@@ -12,6 +12,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Agent 绑定关系领域服务实现
@@ -112,6 +113,14 @@ public class AgentBoundDomainServiceImpl implements AgentBoundDomainService {
         return agentBoundRepository.findHierarchyByTopologyId(topologyId);
     }
 
+    @Override
+    public void scanHierarchyMembers(Long topologyId, Consumer<AgentBound> consumer) {
+        if (topologyId == null) {
+            throw new IllegalArgumentException("topologyId 不能为空");
+        }
+        agentBoundRepository.scanHierarchyMembersByTopologyId(topologyId, consumer);
+    }
+
     @Override
     @Transactional
     public int unbind(Long agentId, Long entityId, BoundEntityType entityType) {
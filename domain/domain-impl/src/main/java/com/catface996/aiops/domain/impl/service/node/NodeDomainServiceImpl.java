@@ -1,5 +1,6 @@
 package com.catface996.aiops.domain.impl.service.node;
 
+import com.catface996.aiops.domain.impl.service.topology2.TopologyChangeRecorder;
 import com.catface996.aiops.domain.model.node.Node;
 import com.catface996.aiops.domain.model.node.NodeLayer;
 import com.catface996.aiops.domain.model.node.NodeStatus;
@@ -28,10 +29,15 @@ public class NodeDomainServiceImpl implements NodeDomainService {
 
     private final NodeRepository nodeRepository;
     private final NodeTypeRepository nodeTypeRepository;
+    private final NodeNameCache nodeNameCache;
+    private final TopologyChangeRecorder changeRecorder;
 
-    public NodeDomainServiceImpl(NodeRepository nodeRepository, NodeTypeRepository nodeTypeRepository) {
+    public NodeDomainServiceImpl(NodeRepository nodeRepository, NodeTypeRepository nodeTypeRepository,
+                                 NodeNameCache nodeNameCache, TopologyChangeRecorder changeRecorder) {
         this.nodeRepository = nodeRepository;
         this.nodeTypeRepository = nodeTypeRepository;
+        this.nodeNameCache = nodeNameCache;
+        this.changeRecorder = changeRecorder;
     }
 
     @Override
@@ -94,6 +100,8 @@ public class NodeDomainServiceImpl implements NodeDomainService {
         if (!nodeRepository.update(node)) {
             throw new IllegalStateException("更新失败，版本冲突");
         }
+        nodeNameCache.evict(nodeId);
+        changeRecorder.nodeChanged(nodeId);
 
         return nodeRepository.findById(nodeId).orElse(node);
     }
@@ -107,8 +115,12 @@ public class NodeDomainServiceImpl implements NodeDomainService {
             throw new IllegalArgumentException("节点不存在: " + nodeId);
         }
 
+        // 删除前记录拓扑图变更（删除后无法再查到节点所属的拓扑图）
+        changeRecorder.nodeChanged(nodeId);
+
         // 删除节点（关联的关系由数据库外键级联删除或在应用层处理）
         nodeRepository.deleteById(nodeId);
+        nodeNameCache.evict(nodeId);
     }
 
     @Override
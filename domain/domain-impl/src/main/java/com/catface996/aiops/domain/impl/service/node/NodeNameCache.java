@@ -0,0 +1,85 @@
+package com.catface996.aiops.domain.impl.service.node;
+
+import com.catface996.aiops.repository.node.NodeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 节点名称缓存
+ *
+ * <p>为关系列表等场景批量提供节点名称：命中部分直接返回，未命中部分以一次 IN 查询加载。</p>
+ *
+ * <p>本实例内节点更新、删除时调用 {@link #evict(Long)}；条目超过 {@code node.name-cache.ttl-ms} 后重新加载，
+ * 限制其他实例修改名称后的不一致时间。条目数超过上限时整体清空，避免无界增长。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Component
+public class NodeNameCache {
+
+    private final NodeRepository nodeRepository;
+    private final long ttlMs;
+    private final int maxSize;
+    private final Map<Long, CachedName> names = new ConcurrentHashMap<>();
+
+    public NodeNameCache(NodeRepository nodeRepository,
+                         @Value("${node.name-cache.ttl-ms:30000}") long ttlMs,
+                         @Value("${node.name-cache.max-size:10000}") int maxSize) {
+        this.nodeRepository = nodeRepository;
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 批量获取节点名称
+     *
+     * @param nodeIds 节点ID集合
+     * @return 节点ID → 名称（不存在的节点不包含在结果中）
+     */
+    public Map<Long, String> getNames(Collection<Long> nodeIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, String> result = new HashMap<>(nodeIds.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (Long id : nodeIds) {
+            CachedName cached = names.get(id);
+            if (cached != null && now - cached.loadedAt() < ttlMs) {
+                result.put(id, cached.name());
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, String> loaded = nodeRepository.findNamesByIds(misses);
+        if (names.size() + loaded.size() > maxSize) {
+            names.clear();
+        }
+        loaded.forEach((id, name) -> {
+            names.put(id, new CachedName(name, now));
+            result.put(id, name);
+        });
+        return result;
+    }
+
+    /**
+     * 移除节点名称缓存（节点更新、删除后调用）
+     *
+     * @param nodeId 节点ID
+     */
+    public void evict(Long nodeId) {
+        names.remove(nodeId);
+    }
+
+    private record CachedName(String name, long loadedAt) {
+    }
+}
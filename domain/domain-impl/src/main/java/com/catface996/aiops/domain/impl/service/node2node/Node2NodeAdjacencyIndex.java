@@ -0,0 +1,171 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import com.catface996.aiops.domain.model.node2node.Node2Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 节点关系邻接索引（CSR 压缩稀疏行格式，不可变）
+ *
+ * <p>节点以排序后的 {@code long[]} 存储，通过二分查找将节点ID映射为下标；
+ * 下标 i 的出边位于 {@code [offsets[i], offsets[i + 1])}，目标节点下标存于 {@code targets}，
+ * 对应的关系对象存于 {@code edges}。遍历过程只使用原始类型数组，无装箱开销。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+public final class Node2NodeAdjacencyIndex {
+
+    private final long[] nodeIds;
+    private final int[] offsets;
+    private final int[] targets;
+    private final Node2Node[] edges;
+
+    /**
+     * 强连通分量分析结果（首次使用时计算，索引不可变因此可复用）
+     */
+    private volatile Node2NodeSccAnalysis sccAnalysis;
+
+    private Node2NodeAdjacencyIndex(long[] nodeIds, int[] offsets, int[] targets, Node2Node[] edges) {
+        this.nodeIds = nodeIds;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.edges = edges;
+    }
+
+    /**
+     * 由关系列表构建索引（同一源节点的出边保持输入顺序）
+     *
+     * @param relationships 全部关系
+     * @return 邻接索引
+     */
+    public static Node2NodeAdjacencyIndex build(List<Node2Node> relationships) {
+        int edgeCount = relationships.size();
+
+        // 1. 收集并去重节点ID
+        long[] ids = new long[edgeCount * 2];
+        for (int e = 0; e < edgeCount; e++) {
+            Node2Node rel = relationships.get(e);
+            ids[2 * e] = rel.getSourceId();
+            ids[2 * e + 1] = rel.getTargetId();
+        }
+        Arrays.sort(ids);
+        int nodeCount = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[nodeCount++] = ids[i];
+            }
+        }
+        long[] nodeIds = Arrays.copyOf(ids, nodeCount);
+
+        // 2. 统计出度并计算偏移
+        int[] sources = new int[edgeCount];
+        int[] offsets = new int[nodeCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            sources[e] = Arrays.binarySearch(nodeIds, relationships.get(e).getSourceId());
+            offsets[sources[e] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        // 3. 按源节点填充出边
+        int[] cursor = Arrays.copyOf(offsets, nodeCount);
+        int[] targets = new int[edgeCount];
+        Node2Node[] edges = new Node2Node[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            Node2Node rel = relationships.get(e);
+            int slot = cursor[sources[e]]++;
+            targets[slot] = Arrays.binarySearch(nodeIds, rel.getTargetId());
+            edges[slot] = rel;
+        }
+        return new Node2NodeAdjacencyIndex(nodeIds, offsets, targets, edges);
+    }
+
+    /**
+     * 在当前索引的基础上追加关系，构建新索引（当前索引不变）
+     *
+     * @param added 新增关系
+     * @return 新的邻接索引
+     */
+    public Node2NodeAdjacencyIndex withEdges(List<Node2Node> added) {
+        List<Node2Node> relationships = new ArrayList<>(edges.length + added.size());
+        Collections.addAll(relationships, edges);
+        relationships.addAll(added);
+        return build(relationships);
+    }
+
+    /**
+     * 获取强连通分量分析结果
+     *
+     * @return 分析结果
+     */
+    public Node2NodeSccAnalysis sccAnalysis() {
+        Node2NodeSccAnalysis analysis = sccAnalysis;
+        if (analysis == null) {
+            analysis = Node2NodeSccAnalysis.compute(this);
+            sccAnalysis = analysis;
+        }
+        return analysis;
+    }
+
+    /**
+     * @return 索引中的节点数量
+     */
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    /**
+     * @return 索引中的关系数量
+     */
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    /**
+     * 节点ID对应的下标
+     *
+     * @param nodeId 节点ID
+     * @return 下标，节点不在索引中（无任何关系）时返回 -1
+     */
+    public int indexOf(long nodeId) {
+        int index = Arrays.binarySearch(nodeIds, nodeId);
+        return index >= 0 ? index : -1;
+    }
+
+    public long nodeId(int index) {
+        return nodeIds[index];
+    }
+
+    /**
+     * 出边起始位置（含）
+     */
+    public int edgeStart(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * 出边结束位置（不含）
+     */
+    public int edgeEnd(int index) {
+        return offsets[index + 1];
+    }
+
+    /**
+     * 出边的目标节点下标
+     */
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * 出边对应的关系
+     */
+    public Node2Node edge(int edge) {
+        return edges[edge];
+    }
+}
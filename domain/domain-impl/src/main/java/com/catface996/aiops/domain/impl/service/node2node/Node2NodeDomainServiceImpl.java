@@ -3,6 +3,8 @@ package com.catface996.aiops.domain.impl.service.node2node;
 import com.catface996.aiops.common.enums.RelationshipErrorCode;
 import com.catface996.aiops.common.enums.ResourceErrorCode;
 import com.catface996.aiops.common.exception.BusinessException;
+import com.catface996.aiops.domain.impl.service.node.NodeNameCache;
+import com.catface996.aiops.domain.impl.service.topology2.TopologyChangeRecorder;
 import com.catface996.aiops.domain.model.node.Node;
 import com.catface996.aiops.domain.model.node2node.Node2Node;
 import com.catface996.aiops.domain.model.relationship.*;
@@ -13,7 +15,9 @@ import com.catface996.aiops.repository.node.NodeRepository;
 import com.catface996.aiops.repository.topology2.TopologyRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
@@ -36,17 +40,35 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
     private final Node2NodeRepository node2NodeRepository;
     private final NodeRepository nodeRepository;
     private final TopologyRepository topologyRepository;
+    private final Node2NodeIndexCache indexCache;
+    private final NodeNameCache nodeNameCache;
+    private final TopologyChangeRecorder changeRecorder;
+    private final boolean indexEnabled;
+    private final int maxFrontierSize;
+    private final boolean rejectCycleOnCreate;
 
     public Node2NodeDomainServiceImpl(Node2NodeRepository node2NodeRepository,
                                        NodeRepository nodeRepository,
-                                       TopologyRepository topologyRepository) {
+                                       TopologyRepository topologyRepository,
+                                       Node2NodeIndexCache indexCache,
+                                       NodeNameCache nodeNameCache,
+                                       TopologyChangeRecorder changeRecorder,
+                                       @Value("${node2node.index.enabled:true}") boolean indexEnabled,
+                                       @Value("${node2node.traverse.max-frontier-size:500}") int maxFrontierSize,
+                                       @Value("${node2node.cycle-check.reject-on-create:true}") boolean rejectCycleOnCreate) {
         this.node2NodeRepository = node2NodeRepository;
         this.nodeRepository = nodeRepository;
         this.topologyRepository = topologyRepository;
+        this.indexCache = indexCache;
+        this.nodeNameCache = nodeNameCache;
+        this.changeRecorder = changeRecorder;
+        this.indexEnabled = indexEnabled;
+        this.maxFrontierSize = Math.max(1, maxFrontierSize);
+        this.rejectCycleOnCreate = rejectCycleOnCreate;
     }
 
     @Override
-    @Transactional
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Node2Node createRelationship(Long sourceId, Long targetId,
                                          RelationshipType type, RelationshipDirection direction,
                                          RelationshipStrength strength, String description,
@@ -78,27 +100,61 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
             throw new BusinessException(ResourceErrorCode.FORBIDDEN);
         }
 
-        // 5. 检查关系是否已存在
+        // 5. 检查关系是否已存在（并发重复创建由唯一索引兜底）
         if (node2NodeRepository.existsBySourceAndTargetAndType(sourceId, targetId, type)) {
             throw new BusinessException(RelationshipErrorCode.RELATIONSHIP_ALREADY_EXISTS,
                     sourceId, targetId, type.name());
         }
 
-        // 6. 创建关系
+        // 6. 廉价校验通过后再串行化关系创建：读已提交隔离级别下，锁定后的查询能看到其他实例已提交的关系，
+        //    并发创建 A → B 与 B → A 时后者等待前者提交后再做循环检查
+        long relationVersion = 0;
+        Node2NodeAdjacencyIndex checkedIndex = null;
+        if (rejectCycleOnCreate) {
+            relationVersion = node2NodeRepository.lockForCreate();
+            if (indexEnabled) {
+                checkedIndex = indexCache.getAtVersion(relationVersion);
+            }
+        }
+
+        // 7. 检查新关系是否形成循环依赖（双向关系本身即互相依赖，不做检查）
+        if (rejectCycleOnCreate && !direction.isBidirectional()) {
+            List<Long> cyclePath = findCycleCreatedBy(checkedIndex, sourceId, targetId);
+            if (!cyclePath.isEmpty()) {
+                throw new BusinessException(RelationshipErrorCode.CYCLE_DEPENDENCY_DETECTED, cyclePath.toString());
+            }
+        }
+
+        // 8. 创建关系
         Node2Node node2Node = Node2Node.create(sourceId, targetId, type, direction, strength, description);
         node2Node = node2NodeRepository.save(node2Node);
+        List<Node2Node> created = new ArrayList<>(2);
+        created.add(node2Node);
 
         log.info("关系创建成功: {} -> {} [{}]", sourceId, targetId, type);
 
-        // 7. 如果是双向关系，创建反向关系
+        // 9. 如果是双向关系，创建反向关系
         if (direction.isBidirectional()) {
             if (!node2NodeRepository.existsBySourceAndTargetAndType(targetId, sourceId, type)) {
-                Node2Node reverseRelationship = node2Node.createReverseRelationship();
-                node2NodeRepository.save(reverseRelationship);
+                Node2Node reverseRelationship = node2NodeRepository.save(node2Node.createReverseRelationship());
+                created.add(reverseRelationship);
                 log.info("反向关系创建成功: {} -> {} [{}]", targetId, sourceId, type);
             }
         }
 
+        // 10. 递增关系版本号，并在检查所用索引上追加新关系作为下一版本发布
+        if (rejectCycleOnCreate) {
+            node2NodeRepository.incrementVersion();
+        }
+        if (checkedIndex != null) {
+            indexCache.publishCreated(checkedIndex, relationVersion, created);
+        } else {
+            indexCache.invalidate();
+        }
+
+        List<Long> changedIds = created.stream().map(Node2Node::getId).collect(Collectors.toList());
+        changeRecorder.relationshipsChanged(sourceId, changedIds);
+
         // 设置节点名称用于返回
         node2Node.setSourceName(sourceNode.getName());
         node2Node.setTargetName(targetNode.getName());
@@ -171,6 +227,8 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
         // 3. 更新关系
         relationship.update(type, strength, status, description);
         relationship = node2NodeRepository.update(relationship);
+        indexCache.invalidate();
+        changeRecorder.relationshipsChanged(relationship.getSourceId(), List.of(relationshipId));
 
         log.info("关系更新成功: {}", relationshipId);
 
@@ -199,18 +257,31 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
             throw new BusinessException(ResourceErrorCode.FORBIDDEN);
         }
 
-        // 3. 删除关系
+        // 3. 删除关系（先递增关系版本号：等待进行中的关系创建提交，并使其他实例缓存的索引版本失配）
+        if (rejectCycleOnCreate) {
+            node2NodeRepository.incrementVersion();
+        }
         node2NodeRepository.deleteById(relationshipId);
+        indexCache.invalidate();
         log.info("关系删除成功: {}", relationshipId);
 
         // 4. 如果是双向关系，删除反向关系
+        List<Long> changedIds = new ArrayList<>();
+        changedIds.add(relationshipId);
         if (relationship.isBidirectional()) {
+            for (Node2Node reverse : node2NodeRepository.findBySourceId(relationship.getTargetId())) {
+                if (reverse.getTargetId().equals(relationship.getSourceId())
+                        && reverse.getRelationshipType() == relationship.getRelationshipType()) {
+                    changedIds.add(reverse.getId());
+                }
+            }
             node2NodeRepository.deleteBySourceAndTargetAndType(
                     relationship.getTargetId(),
                     relationship.getSourceId(),
                     relationship.getRelationshipType());
             log.info("反向关系删除成功");
         }
+        changeRecorder.relationshipsChanged(relationship.getSourceId(), changedIds);
     }
 
     @Override
@@ -219,7 +290,16 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
         if (nodeId == null) {
             return;
         }
+        List<Long> changedIds = new ArrayList<>();
+        node2NodeRepository.findBySourceId(nodeId).forEach(rel -> changedIds.add(rel.getId()));
+        node2NodeRepository.findByTargetId(nodeId).forEach(rel -> changedIds.add(rel.getId()));
+
+        if (rejectCycleOnCreate) {
+            node2NodeRepository.incrementVersion();
+        }
         node2NodeRepository.deleteByNodeId(nodeId);
+        indexCache.invalidate();
+        changeRecorder.relationshipsChanged(nodeId, changedIds);
         log.info("节点关联的所有关系已删除: {}", nodeId);
     }
 
@@ -229,45 +309,71 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
             throw new IllegalArgumentException("节点ID不能为空");
         }
 
-        Set<Long> visited = new HashSet<>();
-        Set<Long> recursionStack = new HashSet<>();
-        List<Long> cyclePath = new ArrayList<>();
-
-        boolean hasCycle = dfsDetectCycle(nodeId, visited, recursionStack, cyclePath);
+        Node2NodeAdjacencyIndex index = indexEnabled ? indexCache.get() : loadReachableIndex(nodeId);
+        int start = index.indexOf(nodeId);
+        if (start < 0) {
+            return CycleDetectionResult.noCycle();
+        }
 
-        if (hasCycle) {
-            return CycleDetectionResult.withCycle(cyclePath);
+        // 迭代 DFS：0=未访问，1=在当前路径上，2=已完成
+        byte[] state = new byte[index.nodeCount()];
+        int[] pathNodes = new int[index.nodeCount()];
+        int[] pathCursors = new int[index.nodeCount()];
+        int depth = 0;
+
+        pathNodes[0] = start;
+        pathCursors[0] = index.edgeStart(start);
+        state[start] = 1;
+
+        while (depth >= 0) {
+            int current = pathNodes[depth];
+            if (pathCursors[depth] < index.edgeEnd(current)) {
+                int next = index.target(pathCursors[depth]++);
+                if (state[next] == 1) {
+                    // 找到循环：当前路径 + 重复出现的节点
+                    List<Long> cyclePath = new ArrayList<>(depth + 2);
+                    for (int i = 0; i <= depth; i++) {
+                        cyclePath.add(index.nodeId(pathNodes[i]));
+                    }
+                    cyclePath.add(index.nodeId(next));
+                    return CycleDetectionResult.withCycle(cyclePath);
+                }
+                if (state[next] == 0) {
+                    state[next] = 1;
+                    depth++;
+                    pathNodes[depth] = next;
+                    pathCursors[depth] = index.edgeStart(next);
+                }
+            } else {
+                state[current] = 2;
+                depth--;
+            }
         }
         return CycleDetectionResult.noCycle();
     }
 
-    private boolean dfsDetectCycle(Long nodeId, Set<Long> visited,
-                                    Set<Long> recursionStack, List<Long> cyclePath) {
-        if (recursionStack.contains(nodeId)) {
-            // 找到循环，构建循环路径
-            cyclePath.add(nodeId);
-            return true;
-        }
-
-        if (visited.contains(nodeId)) {
-            return false;
-        }
+    @Override
+    public List<List<Long>> detectAllCycles() {
+        Node2NodeAdjacencyIndex index = indexEnabled
+                ? indexCache.get()
+                : Node2NodeAdjacencyIndex.build(node2NodeRepository.findAllOrderBySourceId());
+        return index.sccAnalysis().cyclicComponents();
+    }
 
-        visited.add(nodeId);
-        recursionStack.add(nodeId);
-        cyclePath.add(nodeId);
-
-        // 获取下游依赖
-        List<Node2Node> downstreams = node2NodeRepository.findBySourceId(nodeId);
-        for (Node2Node rel : downstreams) {
-            if (dfsDetectCycle(rel.getTargetId(), visited, recursionStack, cyclePath)) {
-                return true;
-            }
+    /**
+     * 新增边 source → target 会形成的循环路径
+     *
+     * <p>在创建锁内执行。优先使用与锁内关系版本一致的缓存索引（{@code checkedIndex}），
+     * 版本校验保证其他实例刚提交的关系不会被遗漏；未启用邻接索引时按层批量加载 target 当前可达的子图后搜索。</p>
+     */
+    private List<Long> findCycleCreatedBy(Node2NodeAdjacencyIndex checkedIndex, Long sourceId, Long targetId) {
+        Node2NodeAdjacencyIndex index = checkedIndex != null ? checkedIndex : loadReachableIndex(targetId);
+        int source = index.indexOf(sourceId);
+        int target = index.indexOf(targetId);
+        if (source < 0 || target < 0) {
+            return Collections.emptyList();
         }
-
-        recursionStack.remove(nodeId);
-        cyclePath.remove(cyclePath.size() - 1);
-        return false;
+        return Node2NodeSccAnalysis.findCyclePath(index, source, target);
     }
 
     @Override
@@ -279,38 +385,53 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
             maxDepth = DEFAULT_MAX_DEPTH;
         }
 
+        if (!indexEnabled) {
+            return traverseByFrontier(nodeId, maxDepth);
+        }
+
         Map<Integer, List<Long>> nodesByLevel = new HashMap<>();
         List<Relationship> allRelationships = new ArrayList<>();
-        Set<Long> visited = new HashSet<>();
 
-        // BFS 遍历
-        Queue<Long> queue = new LinkedList<>();
-        Queue<Integer> levelQueue = new LinkedList<>();
+        Node2NodeAdjacencyIndex index = indexCache.get();
+        int start = index.indexOf(nodeId);
+        if (start < 0) {
+            // 节点没有任何关系，只包含起始节点
+            nodesByLevel.computeIfAbsent(0, k -> new ArrayList<>()).add(nodeId);
+            return new TraverseResult(nodeId, nodesByLevel, allRelationships);
+        }
+
+        // BFS 遍历（基于邻接索引，队列与访问标记均为原始类型数组）
+        int nodeCount = index.nodeCount();
+        int[] queue = new int[Math.min(nodeCount, MAX_TRAVERSE_NODES)];
+        int[] levels = new int[queue.length];
+        BitSet visited = new BitSet(nodeCount);
+        int head = 0;
+        int tail = 0;
 
-        queue.offer(nodeId);
-        levelQueue.offer(0);
-        visited.add(nodeId);
+        queue[tail] = start;
+        levels[tail++] = 0;
+        visited.set(start);
+        int visitedCount = 1;
 
-        while (!queue.isEmpty() && visited.size() < MAX_TRAVERSE_NODES) {
-            Long currentId = queue.poll();
-            int currentLevel = levelQueue.poll();
+        while (head < tail && visitedCount < MAX_TRAVERSE_NODES) {
+            int current = queue[head];
+            int currentLevel = levels[head++];
 
             // 添加到当前层级
-            nodesByLevel.computeIfAbsent(currentLevel, k -> new ArrayList<>()).add(currentId);
+            nodesByLevel.computeIfAbsent(currentLevel, k -> new ArrayList<>()).add(index.nodeId(current));
 
             // 如果还没到最大深度，继续遍历
             if (currentLevel < maxDepth) {
-                List<Node2Node> downstreams = node2NodeRepository.findBySourceId(currentId);
-                for (Node2Node rel : downstreams) {
+                for (int e = index.edgeStart(current), end = index.edgeEnd(current); e < end; e++) {
                     // 转换为 Relationship 以兼容 TraverseResult
-                    Relationship r = toRelationship(rel);
-                    allRelationships.add(r);
-
-                    Long targetId = rel.getTargetId();
-                    if (!visited.contains(targetId)) {
-                        visited.add(targetId);
-                        queue.offer(targetId);
-                        levelQueue.offer(currentLevel + 1);
+                    allRelationships.add(toRelationship(index.edge(e)));
+
+                    int target = index.target(e);
+                    if (!visited.get(target) && tail < queue.length) {
+                        visited.set(target);
+                        visitedCount++;
+                        queue[tail] = target;
+                        levels[tail++] = currentLevel + 1;
                     }
                 }
             }
@@ -319,6 +440,107 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
         return new TraverseResult(nodeId, nodesByLevel, allRelationships);
     }
 
+    /**
+     * 按层批量查询的 BFS 遍历（未启用邻接索引时使用）
+     *
+     * <p>每层的待扩展节点按 {@code maxFrontierSize} 分片，每片一次 {@code source_id IN (...)} 查询，
+     * 数据库往返次数与层数（而非节点数）成正比。遍历顺序与结果与索引遍历一致。</p>
+     */
+    private TraverseResult traverseByFrontier(Long nodeId, int maxDepth) {
+        Map<Integer, List<Long>> nodesByLevel = new HashMap<>();
+        List<Relationship> allRelationships = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        visited.add(nodeId);
+
+        long[] frontier = {nodeId};
+        int frontierSize = 1;
+        int level = 0;
+
+        while (frontierSize > 0) {
+            long[] next = new long[Math.min(frontierSize * 2, MAX_TRAVERSE_NODES)];
+            int nextSize = 0;
+
+            for (int from = 0; from < frontierSize; from += maxFrontierSize) {
+                int to = Math.min(from + maxFrontierSize, frontierSize);
+                Map<Long, List<Node2Node>> outgoing = level < maxDepth
+                        ? findOutgoingGrouped(frontier, from, to)
+                        : Collections.emptyMap();
+
+                for (int i = from; i < to; i++) {
+                    if (visited.size() >= MAX_TRAVERSE_NODES) {
+                        return new TraverseResult(nodeId, nodesByLevel, allRelationships);
+                    }
+                    long currentId = frontier[i];
+                    nodesByLevel.computeIfAbsent(level, k -> new ArrayList<>()).add(currentId);
+
+                    for (Node2Node rel : outgoing.getOrDefault(currentId, Collections.emptyList())) {
+                        allRelationships.add(toRelationship(rel));
+                        if (visited.add(rel.getTargetId())) {
+                            if (nextSize == next.length) {
+                                next = Arrays.copyOf(next, Math.max(nextSize * 2, 16));
+                            }
+                            next[nextSize++] = rel.getTargetId();
+                        }
+                    }
+                }
+            }
+
+            frontier = next;
+            frontierSize = nextSize;
+            level++;
+        }
+
+        return new TraverseResult(nodeId, nodesByLevel, allRelationships);
+    }
+
+    /**
+     * 按层批量加载起始节点可达的全部关系，构建临时邻接索引（未启用邻接索引时用于循环检测）
+     */
+    private Node2NodeAdjacencyIndex loadReachableIndex(Long nodeId) {
+        List<Node2Node> reachable = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        visited.add(nodeId);
+
+        long[] frontier = {nodeId};
+        int frontierSize = 1;
+        while (frontierSize > 0) {
+            long[] next = new long[Math.max(frontierSize * 2, 16)];
+            int nextSize = 0;
+            for (int from = 0; from < frontierSize; from += maxFrontierSize) {
+                int to = Math.min(from + maxFrontierSize, frontierSize);
+                for (List<Node2Node> rels : findOutgoingGrouped(frontier, from, to).values()) {
+                    for (Node2Node rel : rels) {
+                        reachable.add(rel);
+                        if (visited.add(rel.getTargetId())) {
+                            if (nextSize == next.length) {
+                                next = Arrays.copyOf(next, nextSize * 2);
+                            }
+                            next[nextSize++] = rel.getTargetId();
+                        }
+                    }
+                }
+            }
+            frontier = next;
+            frontierSize = nextSize;
+        }
+        return Node2NodeAdjacencyIndex.build(reachable);
+    }
+
+    /**
+     * 批量查询 frontier[from, to) 中节点的出边，按源节点分组
+     */
+    private Map<Long, List<Node2Node>> findOutgoingGrouped(long[] frontier, int from, int to) {
+        List<Long> sourceIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            sourceIds.add(frontier[i]);
+        }
+        Map<Long, List<Node2Node>> grouped = new HashMap<>();
+        for (Node2Node rel : node2NodeRepository.findBySourceIds(sourceIds)) {
+            grouped.computeIfAbsent(rel.getSourceId(), k -> new ArrayList<>()).add(rel);
+        }
+        return grouped;
+    }
+
     /**
      * 为关系列表填充节点名称
      */
@@ -334,12 +556,8 @@ public class Node2NodeDomainServiceImpl implements Node2NodeDomainService {
             nodeIds.add(rel.getTargetId());
         }
 
-        // 查询节点名称
-        Map<Long, String> nodeNameMap = new HashMap<>();
-        for (Long id : nodeIds) {
-            nodeRepository.findById(id)
-                    .ifPresent(n -> nodeNameMap.put(id, n.getName()));
-        }
+        // 批量查询节点名称（优先使用缓存）
+        Map<Long, String> nodeNameMap = nodeNameCache.getNames(nodeIds);
 
         // 填充名称
         for (Node2Node rel : relationships) {
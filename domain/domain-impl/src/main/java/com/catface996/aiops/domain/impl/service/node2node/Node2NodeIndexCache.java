@@ -0,0 +1,170 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import com.catface996.aiops.domain.model.node2node.Node2Node;
+import com.catface996.aiops.repository.node.Node2NodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 节点关系邻接索引缓存
+ *
+ * <p>以单次查询加载全部关系并构建 {@link Node2NodeAdjacencyIndex}，供遍历和循环检测在内存中执行。</p>
+ *
+ * <p>失效策略：</p>
+ * <ul>
+ *   <li>本实例内的关系写操作调用 {@link #invalidate()}，事务中调用时在提交后再次失效，避免缓存未提交前的旧数据</li>
+ *   <li>超过 {@code node2node.index.max-age-ms} 的索引重新加载，限制其他实例写入后的不一致时间</li>
+ * </ul>
+ *
+ * <p>关系创建时的循环检查使用 {@link #getAtVersion(long)}：索引记录加载时的数据库关系版本号，
+ * 与创建锁内读取的版本一致时说明期间没有任何实例写入，可直接复用；创建成功后通过
+ * {@link #publishCreated} 在原索引上追加新关系作为下一版本发布，连续创建无需重新加载。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Component
+public class Node2NodeIndexCache {
+
+    private static final Logger log = LoggerFactory.getLogger(Node2NodeIndexCache.class);
+
+    /**
+     * 不在创建锁内加载的索引无法确定对应的关系版本号
+     */
+    private static final long UNKNOWN_VERSION = -1;
+
+    private final Node2NodeRepository node2NodeRepository;
+    private final long maxAgeMs;
+
+    /**
+     * 失效版本号，加载期间发生失效时丢弃本次加载结果
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile CachedIndex cached;
+
+    public Node2NodeIndexCache(Node2NodeRepository node2NodeRepository,
+                               @Value("${node2node.index.max-age-ms:60000}") long maxAgeMs) {
+        this.node2NodeRepository = node2NodeRepository;
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * 获取当前邻接索引（不存在或过期时加载）
+     *
+     * @return 邻接索引
+     */
+    public Node2NodeAdjacencyIndex get() {
+        CachedIndex current = cached;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < maxAgeMs) {
+            return current.index;
+        }
+        return load();
+    }
+
+    /**
+     * 获取与数据库关系版本一致的邻接索引（必须在持有关系创建锁的事务内调用）
+     *
+     * <p>缓存索引的版本一致时直接返回，不受最长使用时间限制；否则在当前事务内重新加载全部关系。</p>
+     *
+     * @param relationVersion 创建锁内读取的关系版本号
+     * @return 邻接索引
+     */
+    public Node2NodeAdjacencyIndex getAtVersion(long relationVersion) {
+        CachedIndex current = cached;
+        if (current != null && current.relationVersion == relationVersion) {
+            return current.index;
+        }
+        return loadAtVersion(relationVersion);
+    }
+
+    /**
+     * 发布关系创建后的索引（关系创建成功后调用，替代 {@link #invalidate()}）
+     *
+     * <p>立即使当前缓存失效；事务中调用时在提交后以 {@code base} 追加新关系作为
+     * {@code relationVersion + 1} 的索引发布。事务回滚时数据库版本号不变，该索引不会被版本检查命中。</p>
+     *
+     * @param base            循环检查使用的索引（版本为 {@code relationVersion}）
+     * @param relationVersion 创建锁内读取的关系版本号
+     * @param created         本次创建的关系
+     */
+    public void publishCreated(Node2NodeAdjacencyIndex base, long relationVersion, List<Node2Node> created) {
+        evict();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(base.withEdges(created), relationVersion + 1);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(base.withEdges(created), relationVersion + 1);
+            }
+        });
+    }
+
+    /**
+     * 使缓存失效（关系创建、更新、删除后调用）
+     */
+    public void invalidate() {
+        evict();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict();
+                }
+            });
+        }
+    }
+
+    private void evict() {
+        version.incrementAndGet();
+        cached = null;
+    }
+
+    private synchronized void publish(Node2NodeAdjacencyIndex index, long relationVersion) {
+        version.incrementAndGet();
+        cached = new CachedIndex(index, System.currentTimeMillis(), relationVersion);
+    }
+
+    private synchronized Node2NodeAdjacencyIndex load() {
+        CachedIndex current = cached;
+        if (current != null && System.currentTimeMillis() - current.loadedAt < maxAgeMs) {
+            return current.index;
+        }
+        return loadAndCache(UNKNOWN_VERSION);
+    }
+
+    private synchronized Node2NodeAdjacencyIndex loadAtVersion(long relationVersion) {
+        CachedIndex current = cached;
+        if (current != null && current.relationVersion == relationVersion) {
+            return current.index;
+        }
+        return loadAndCache(relationVersion);
+    }
+
+    private Node2NodeAdjacencyIndex loadAndCache(long relationVersion) {
+        long loadVersion = version.get();
+        long start = System.currentTimeMillis();
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(node2NodeRepository.findAllOrderBySourceId());
+        if (version.get() == loadVersion) {
+            cached = new CachedIndex(index, start, relationVersion);
+        }
+        log.debug("节点关系邻接索引已加载: nodes={}, edges={}, cost={}ms",
+                index.nodeCount(), index.edgeCount(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    /**
+     * @param relationVersion 加载时的数据库关系版本号，不在创建锁内加载时为 {@link #UNKNOWN_VERSION}
+     */
+    private record CachedIndex(Node2NodeAdjacencyIndex index, long loadedAt, long relationVersion) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 节点关系强连通分量分析（迭代 Tarjan）
+ *
+ * <p>对 {@link Node2NodeAdjacencyIndex} 计算强连通分量，节点数大于 1 且分量内至少有一条单向关系的分量
+ * 即为一组循环依赖。双向关系以一对互逆的关系存储，本身就是互相依赖（创建时也不做循环检查），
+ * 因此仅由双向关系连通的分量不算循环依赖；经过双向关系、但包含单向关系的环仍会被报告。
+ * 调用栈、分量栈与 lowLink 均为原始类型数组，不使用递归，深链路不会栈溢出。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+public final class Node2NodeSccAnalysis {
+
+    private final Node2NodeAdjacencyIndex index;
+    private final List<int[]> cyclicComponents;
+
+    private Node2NodeSccAnalysis(Node2NodeAdjacencyIndex index, List<int[]> cyclicComponents) {
+        this.index = index;
+        this.cyclicComponents = cyclicComponents;
+    }
+
+    /**
+     * 计算强连通分量
+     *
+     * @param index 邻接索引
+     * @return 分析结果
+     */
+    public static Node2NodeSccAnalysis compute(Node2NodeAdjacencyIndex index) {
+        int n = index.nodeCount();
+        int[] discovery = new int[n];
+        int[] lowLink = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] sccStack = new int[n];
+        int[] callNodes = new int[n];
+        int[] callCursors = new int[n];
+        int[] componentOf = new int[n];
+        Arrays.fill(discovery, -1);
+        Arrays.fill(componentOf, -1);
+
+        List<int[]> cyclic = new ArrayList<>();
+        int counter = 0;
+        int sccTop = 0;
+        int componentCount = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (discovery[root] != -1) {
+                continue;
+            }
+            int callTop = 0;
+            callNodes[0] = root;
+            callCursors[0] = index.edgeStart(root);
+            discovery[root] = lowLink[root] = counter++;
+            sccStack[sccTop++] = root;
+            onStack[root] = true;
+
+            while (callTop >= 0) {
+                int v = callNodes[callTop];
+                if (callCursors[callTop] < index.edgeEnd(v)) {
+                    int w = index.target(callCursors[callTop]++);
+                    if (discovery[w] == -1) {
+                        discovery[w] = lowLink[w] = counter++;
+                        sccStack[sccTop++] = w;
+                        onStack[w] = true;
+                        callTop++;
+                        callNodes[callTop] = w;
+                        callCursors[callTop] = index.edgeStart(w);
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], discovery[w]);
+                    }
+                    continue;
+                }
+
+                // v 的出边处理完毕：若为分量根则弹出整个分量
+                if (lowLink[v] == discovery[v]) {
+                    int end = sccTop;
+                    int component = componentCount++;
+                    int w;
+                    do {
+                        w = sccStack[--sccTop];
+                        onStack[w] = false;
+                        componentOf[w] = component;
+                    } while (w != v);
+                    if (end - sccTop > 1 && hasDirectedEdge(index, sccStack, sccTop, end, componentOf, component)) {
+                        cyclic.add(Arrays.copyOfRange(sccStack, sccTop, end));
+                    }
+                }
+                callTop--;
+                if (callTop >= 0) {
+                    int parent = callNodes[callTop];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+        return new Node2NodeSccAnalysis(index, cyclic);
+    }
+
+    /**
+     * 分量 members[from, to) 内部是否存在单向关系
+     */
+    private static boolean hasDirectedEdge(Node2NodeAdjacencyIndex index, int[] members, int from, int to,
+                                           int[] componentOf, int component) {
+        for (int i = from; i < to; i++) {
+            int node = members[i];
+            for (int e = index.edgeStart(node), end = index.edgeEnd(node); e < end; e++) {
+                if (componentOf[index.target(e)] == component && !index.edge(e).isBidirectional()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 所有循环依赖分量（每个分量为节点ID列表，按节点ID升序）
+     *
+     * @return 分量列表，无循环时为空
+     */
+    public List<List<Long>> cyclicComponents() {
+        List<List<Long>> result = new ArrayList<>(cyclicComponents.size());
+        for (int[] component : cyclicComponents) {
+            int[] sorted = component.clone();
+            Arrays.sort(sorted);
+            List<Long> ids = new ArrayList<>(sorted.length);
+            for (int node : sorted) {
+                ids.add(index.nodeId(node));
+            }
+            result.add(ids);
+        }
+        return result;
+    }
+
+    /**
+     * 在索引中搜索 target 到 source 的路径，并拼接为新增边 source → target 形成的循环
+     *
+     * @return 循环路径（source, target, ..., source），不存在时返回空列表
+     */
+    static List<Long> findCyclePath(Node2NodeAdjacencyIndex index, int source, int target) {
+        BitSet visited = new BitSet(index.nodeCount());
+        int[] pathNodes = new int[16];
+        int[] pathCursors = new int[16];
+        int depth = 0;
+        pathNodes[0] = target;
+        pathCursors[0] = index.edgeStart(target);
+        visited.set(target);
+
+        while (depth >= 0) {
+            int current = pathNodes[depth];
+            if (current == source) {
+                List<Long> cycle = new ArrayList<>(depth + 2);
+                cycle.add(index.nodeId(source));
+                for (int i = 0; i <= depth; i++) {
+                    cycle.add(index.nodeId(pathNodes[i]));
+                }
+                return cycle;
+            }
+            if (pathCursors[depth] < index.edgeEnd(current)) {
+                int next = index.target(pathCursors[depth]++);
+                if (visited.get(next)) {
+                    continue;
+                }
+                visited.set(next);
+                depth++;
+                if (depth == pathNodes.length) {
+                    pathNodes = Arrays.copyOf(pathNodes, depth * 2);
+                    pathCursors = Arrays.copyOf(pathCursors, depth * 2);
+                }
+                pathNodes[depth] = next;
+                pathCursors[depth] = index.edgeStart(next);
+            } else {
+                depth--;
+            }
+        }
+        return Collections.emptyList();
+    }
+}
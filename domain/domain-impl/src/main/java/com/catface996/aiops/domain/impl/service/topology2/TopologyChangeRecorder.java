@@ -0,0 +1,133 @@
+package com.catface996.aiops.domain.impl.service.topology2;
+
+import com.catface996.aiops.infrastructure.cache.api.service.TopologyChangeLogService;
+import com.catface996.aiops.repository.topology2.Topology2NodeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 拓扑图变更记录器
+ *
+ * <p>在拓扑成员、节点、节点关系写操作后递增相关拓扑图的版本号并记录变更实体，供拓扑图增量查询使用。</p>
+ *
+ * <p>所属拓扑图在调用时查询（节点删除前仍能找到其所属拓扑图），变更在事务提交后才写入日志：
+ * 客户端读到新版本号时，对应的数据库变更一定已经可见。记录失败不影响业务写操作，
+ * 但会使该拓扑图的增量日志失效（{@link TopologyChangeLogService#invalidate}），客户端回退到全量同步；
+ * 失效操作本身也失败时，拓扑图ID暂存在内存中，在下一次记录前重试。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Component
+public class TopologyChangeRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopologyChangeRecorder.class);
+
+    private final TopologyChangeLogService changeLogService;
+    private final Topology2NodeRepository topology2NodeRepository;
+
+    /**
+     * 变更未能记录、且增量日志也未能失效的拓扑图ID
+     */
+    private final Set<Long> pendingInvalidations = ConcurrentHashMap.newKeySet();
+
+    public TopologyChangeRecorder(TopologyChangeLogService changeLogService,
+                                  Topology2NodeRepository topology2NodeRepository) {
+        this.changeLogService = changeLogService;
+        this.topology2NodeRepository = topology2NodeRepository;
+    }
+
+    /**
+     * 记录拓扑图成员变更（加入、移出）
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    变更的节点ID
+     */
+    public void membersChanged(Long topologyId, Collection<Long> nodeIds) {
+        List<Long> changedNodeIds = List.copyOf(nodeIds);
+        afterCommit(() -> record(topologyId, changedNodeIds, null));
+    }
+
+    /**
+     * 记录节点变更（更新、删除），需在节点删除前调用
+     *
+     * @param nodeId 节点ID
+     */
+    public void nodeChanged(Long nodeId) {
+        List<Long> topologyIds = topology2NodeRepository.findTopologyIdsByNodeId(nodeId);
+        if (topologyIds.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> topologyIds.forEach(topologyId -> record(topologyId, List.of(nodeId), null)));
+    }
+
+    /**
+     * 记录节点关系变更（创建、更新、删除）
+     *
+     * <p>关系只在两端节点都属于拓扑图时可见，因此记录到包含其任一端节点的所有拓扑图即可覆盖全部可见位置。</p>
+     *
+     * @param endpointNodeId  关系任一端的节点ID
+     * @param relationshipIds 变更的关系ID
+     */
+    public void relationshipsChanged(Long endpointNodeId, Collection<Long> relationshipIds) {
+        if (relationshipIds.isEmpty()) {
+            return;
+        }
+        List<Long> topologyIds = topology2NodeRepository.findTopologyIdsByNodeId(endpointNodeId);
+        if (topologyIds.isEmpty()) {
+            return;
+        }
+        List<Long> changedIds = List.copyOf(relationshipIds);
+        afterCommit(() -> topologyIds.forEach(topologyId -> record(topologyId, null, changedIds)));
+    }
+
+    /**
+     * 记录单个拓扑图的变更，失败时使其增量日志失效
+     */
+    private void record(Long topologyId, Collection<Long> nodeIds, Collection<Long> edgeIds) {
+        retryPendingInvalidations();
+        try {
+            changeLogService.record(topologyId, nodeIds, edgeIds);
+        } catch (Exception e) {
+            logger.error("记录拓扑图变更失败，使增量日志失效: topologyId={}, error={}", topologyId, e.getMessage(), e);
+            invalidate(topologyId);
+        }
+    }
+
+    private void invalidate(Long topologyId) {
+        try {
+            changeLogService.invalidate(topologyId);
+            pendingInvalidations.remove(topologyId);
+        } catch (Exception e) {
+            pendingInvalidations.add(topologyId);
+            logger.error("拓扑图增量日志失效失败，稍后重试: topologyId={}, error={}", topologyId, e.getMessage());
+        }
+    }
+
+    private void retryPendingInvalidations() {
+        for (Long topologyId : pendingInvalidations) {
+            invalidate(topologyId);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
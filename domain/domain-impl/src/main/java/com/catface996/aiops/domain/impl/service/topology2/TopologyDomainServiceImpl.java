@@ -2,8 +2,10 @@ package com.catface996.aiops.domain.impl.service.topology2;
 
 import com.catface996.aiops.domain.model.topology.Topology;
 import com.catface996.aiops.domain.model.topology.TopologyGraphData;
+import com.catface996.aiops.domain.model.topology.TopologyGraphDelta;
 import com.catface996.aiops.domain.model.topology.TopologyStatus;
 import com.catface996.aiops.domain.service.topology2.TopologyDomainService;
+import com.catface996.aiops.infrastructure.cache.api.service.TopologyChangeLogService;
 import com.catface996.aiops.repository.node.Node2NodeRepository;
 import com.catface996.aiops.repository.node.NodeRepository;
 import com.catface996.aiops.repository.topology2.Topology2NodeRepository;
@@ -14,8 +16,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -33,15 +41,21 @@ public class TopologyDomainServiceImpl implements TopologyDomainService {
     private final Topology2NodeRepository topology2NodeRepository;
     private final NodeRepository nodeRepository;
     private final Node2NodeRepository node2NodeRepository;
+    private final TopologyChangeLogService changeLogService;
+    private final TopologyChangeRecorder changeRecorder;
 
     public TopologyDomainServiceImpl(TopologyRepository topologyRepository,
                                      Topology2NodeRepository topology2NodeRepository,
                                      NodeRepository nodeRepository,
-                                     Node2NodeRepository node2NodeRepository) {
+                                     Node2NodeRepository node2NodeRepository,
+                                     TopologyChangeLogService changeLogService,
+                                     TopologyChangeRecorder changeRecorder) {
         this.topologyRepository = topologyRepository;
         this.topology2NodeRepository = topology2NodeRepository;
         this.nodeRepository = nodeRepository;
         this.node2NodeRepository = node2NodeRepository;
+        this.changeLogService = changeLogService;
+        this.changeRecorder = changeRecorder;
     }
 
     @Override
@@ -122,6 +136,11 @@ public class TopologyDomainServiceImpl implements TopologyDomainService {
         return topology2NodeRepository.countByTopologyId(topologyId);
     }
 
+    @Override
+    public Map<Long, Integer> countMembersByTopologyIds(List<Long> topologyIds) {
+        return topology2NodeRepository.countByTopologyIds(topologyIds);
+    }
+
     @Override
     @Transactional
     public void addMembers(Long topologyId, List<Long> nodeIds, Long operatorId) {
@@ -138,6 +157,7 @@ public class TopologyDomainServiceImpl implements TopologyDomainService {
         }
 
         topology2NodeRepository.addMembers(topologyId, nodeIds, operatorId);
+        changeRecorder.membersChanged(topologyId, nodeIds);
     }
 
     @Override
@@ -150,6 +170,7 @@ public class TopologyDomainServiceImpl implements TopologyDomainService {
         }
 
         topology2NodeRepository.removeMembers(topologyId, nodeIds);
+        changeRecorder.membersChanged(topologyId, nodeIds);
     }
 
     @Override
@@ -159,61 +180,206 @@ public class TopologyDomainServiceImpl implements TopologyDomainService {
 
     @Override
     public TopologyGraphData getTopologyGraph(Long topologyId, boolean includeRelationships) {
-        logger.info("获取拓扑图数据，topologyId: {}, includeRelationships: {}", topologyId, includeRelationships);
+        return getTopologyGraph(topologyId, includeRelationships, null, 0, null, null);
+    }
+
+    @Override
+    public TopologyGraphData getTopologyGraph(Long topologyId, boolean includeRelationships,
+                                              Long focusNodeId, int depth, Integer edgeOffset, Integer edgeLimit) {
+        logger.info("获取拓扑图数据，topologyId: {}, includeRelationships: {}, focusNodeId: {}, depth: {}",
+                topologyId, includeRelationships, focusNodeId, depth);
 
         // 1. 获取拓扑图基本信息
         Topology topology = topologyRepository.findById(topologyId)
                 .orElseThrow(() -> new IllegalArgumentException("拓扑图不存在: " + topologyId));
 
-        // 2. 获取拓扑图的所有成员节点
-        List<Topology2NodeRepository.MemberInfo> members = topology2NodeRepository.findMembersByTopologyId(topologyId);
+        // 2. 先读取版本号再读取数据，数据至少与版本号一样新，增量查询不会遗漏变更
+        long version = changeLogService.currentVersion(topologyId);
+        List<Topology2NodeRepository.MemberInfo> members;
 
         // 3. 构建响应
         TopologyGraphData.TopologyGraphDataBuilder builder = TopologyGraphData.builder()
                 .topologyId(topology.getId())
-                .topologyName(topology.getName());
-
-        // 4. 转换节点列表
-        List<TopologyGraphData.GraphNode> nodes = members.stream()
-                .map(member -> TopologyGraphData.GraphNode.builder()
-                        .id(member.nodeId())
-                        .name(member.nodeName())
-                        .nodeTypeCode(member.nodeTypeCode())
-                        .status(member.nodeStatus())
-                        .layer(member.nodeLayer())
-                        .positionX(member.positionX())
-                        .positionY(member.positionY())
-                        .build())
-                .collect(Collectors.toList());
-        builder.nodes(nodes);
-
-        // 5. 如果需要包含关系，查询节点间的边
-        if (includeRelationships && !members.isEmpty()) {
-            List<Long> nodeIds = members.stream()
-                    .map(Topology2NodeRepository.MemberInfo::nodeId)
+                .topologyName(topology.getName())
+                .version(version);
+
+        // 4. 确定节点范围与边：未指定焦点节点时为完整拓扑图，否则为焦点节点的邻域子图
+        List<Node2NodeRepository.RelationshipInfo> relationships;
+        long totalEdges;
+        if (focusNodeId == null) {
+            members = topology2NodeRepository.findMembersByTopologyId(topologyId);
+            if (includeRelationships && !members.isEmpty()) {
+                relationships = node2NodeRepository.findRelationshipsByTopologyId(topologyId, edgeOffset, edgeLimit);
+                totalEdges = edgeLimit == null
+                        ? relationships.size()
+                        : node2NodeRepository.countRelationshipsByTopologyId(topologyId);
+            } else {
+                relationships = new ArrayList<>();
+                totalEdges = 0;
+            }
+        } else {
+            // 只加载邻域内的成员，不读取整个拓扑图的成员列表
+            if (topology2NodeRepository.findMembersByTopologyIdAndNodeIds(topologyId, List.of(focusNodeId)).isEmpty()) {
+                throw new IllegalArgumentException("节点不属于该拓扑图: " + focusNodeId);
+            }
+            Map<Long, Node2NodeRepository.RelationshipInfo> neighborhoodEdges = new TreeMap<>();
+            Set<Long> reachedNodeIds = expandNeighborhood(topologyId, focusNodeId, Math.max(depth, 1), neighborhoodEdges);
+            // 与完整拓扑图一致，按加入时间倒序
+            members = topology2NodeRepository.findMembersByTopologyIdAndNodeIds(topologyId, reachedNodeIds).stream()
+                    .sorted(Comparator.comparing(Topology2NodeRepository.MemberInfo::addedAt,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
                     .collect(Collectors.toList());
 
-            List<Node2NodeRepository.RelationshipInfo> relationships =
-                    node2NodeRepository.findRelationshipsByNodeIds(nodeIds);
-
-            List<TopologyGraphData.GraphEdge> edges = relationships.stream()
-                    .map(rel -> TopologyGraphData.GraphEdge.builder()
-                            .id(rel.id())
-                            .sourceId(rel.sourceId())
-                            .targetId(rel.targetId())
-                            .relationshipType(rel.relationshipType())
-                            .direction(rel.direction())
-                            .strength(rel.strength())
-                            .status(rel.status())
-                            .build())
-                    .collect(Collectors.toList());
-            builder.edges(edges);
-        } else {
-            builder.edges(new ArrayList<>());
+            List<Node2NodeRepository.RelationshipInfo> allEdges = includeRelationships
+                    ? new ArrayList<>(neighborhoodEdges.values())
+                    : new ArrayList<>();
+            totalEdges = allEdges.size();
+            relationships = pageEdges(allEdges, edgeOffset, edgeLimit);
         }
 
+        // 5. 转换节点和边
+        builder.nodes(members.stream().map(this::toGraphNode).collect(Collectors.toList()));
+        builder.edges(relationships.stream().map(this::toGraphEdge).collect(Collectors.toList()));
+        builder.totalEdges(totalEdges);
+
         return builder.build();
     }
 
+    @Override
+    public long forEachTopologyEdge(Long topologyId, Consumer<TopologyGraphData.GraphEdge> consumer) {
+        TopologyGraphData.GraphEdge edge = new TopologyGraphData.GraphEdge();
+        return node2NodeRepository.streamRelationshipsByTopologyId(topologyId, rel -> {
+            edge.setId(rel.id());
+            edge.setSourceId(rel.sourceId());
+            edge.setTargetId(rel.targetId());
+            edge.setRelationshipType(rel.relationshipType());
+            edge.setDirection(rel.direction());
+            edge.setStrength(rel.strength());
+            edge.setStatus(rel.status());
+            consumer.accept(edge);
+        });
+    }
+
+    @Override
+    public TopologyGraphDelta getTopologyGraphDelta(Long topologyId, long sinceVersion) {
+        logger.info("获取拓扑图增量数据，topologyId: {}, sinceVersion: {}", topologyId, sinceVersion);
+
+        if (!topologyRepository.existsById(topologyId)) {
+            throw new IllegalArgumentException("拓扑图不存在: " + topologyId);
+        }
+
+        TopologyChangeLogService.ChangeSet changes = changeLogService.changesSince(topologyId, sinceVersion);
+        TopologyGraphDelta.TopologyGraphDeltaBuilder builder = TopologyGraphDelta.builder()
+                .topologyId(topologyId)
+                .sinceVersion(sinceVersion)
+                .version(changes.version());
+        if (changes.truncated()) {
+            return builder.fullResync(true).build();
+        }
+
+        // 1. 变更节点：仍是成员的为新增/更新，否则为移除
+        List<Topology2NodeRepository.MemberInfo> members =
+                topology2NodeRepository.findMembersByTopologyIdAndNodeIds(topologyId, changes.nodeIds());
+        Set<Long> memberIds = members.stream()
+                .map(Topology2NodeRepository.MemberInfo::nodeId)
+                .collect(Collectors.toSet());
+        List<Long> removedNodeIds = changes.nodeIds().stream()
+                .filter(nodeId -> !memberIds.contains(nodeId))
+                .collect(Collectors.toList());
+
+        // 2. 变更边：按ID读取当前状态；变更节点的关联边一并返回（节点新加入拓扑图时其关联边随之可见）
+        Map<Long, Node2NodeRepository.RelationshipInfo> edges = new TreeMap<>();
+        node2NodeRepository.findRelationshipsByTopologyIdAndIds(topologyId, changes.edgeIds())
+                .forEach(rel -> edges.put(rel.id(), rel));
+        node2NodeRepository.findIncidentRelationshipsInTopology(topologyId, memberIds)
+                .forEach(rel -> edges.putIfAbsent(rel.id(), rel));
+        List<Long> removedEdgeIds = changes.edgeIds().stream()
+                .filter(edgeId -> !edges.containsKey(edgeId))
+                .sorted()
+                .collect(Collectors.toList());
+
+        return builder
+                .upsertedNodes(members.stream().map(this::toGraphNode).collect(Collectors.toList()))
+                .removedNodeIds(removedNodeIds)
+                .upsertedEdges(edges.values().stream().map(this::toGraphEdge).collect(Collectors.toList()))
+                .removedEdgeIds(removedEdgeIds)
+                .build();
+    }
+
+    private TopologyGraphData.GraphNode toGraphNode(Topology2NodeRepository.MemberInfo member) {
+        return TopologyGraphData.GraphNode.builder()
+                .id(member.nodeId())
+                .name(member.nodeName())
+                .nodeTypeCode(member.nodeTypeCode())
+                .status(member.nodeStatus())
+                .layer(member.nodeLayer())
+                .positionX(member.positionX())
+                .positionY(member.positionY())
+                .build();
+    }
+
+    private TopologyGraphData.GraphEdge toGraphEdge(Node2NodeRepository.RelationshipInfo rel) {
+        return TopologyGraphData.GraphEdge.builder()
+                .id(rel.id())
+                .sourceId(rel.sourceId())
+                .targetId(rel.targetId())
+                .relationshipType(rel.relationshipType())
+                .direction(rel.direction())
+                .strength(rel.strength())
+                .status(rel.status())
+                .build();
+    }
+
+    /**
+     * 按跳扩展焦点节点的邻域（上下游双向，仅限拓扑图成员节点）
+     *
+     * <p>每跳一次批量查询，最后再查询一次最外层节点的关联边，只保留两端都在邻域内的边，
+     * 使结果为邻域节点的导出子图（包含最外层节点之间的边）。查询次数不超过 depth + 1。</p>
+     *
+     * @param edges 收集到的邻域边（按关系ID排序）
+     * @return 邻域内的节点ID
+     */
+    private Set<Long> expandNeighborhood(Long topologyId, Long focusNodeId, int depth,
+                                         Map<Long, Node2NodeRepository.RelationshipInfo> edges) {
+        Set<Long> reached = new HashSet<>();
+        reached.add(focusNodeId);
+        List<Long> frontier = List.of(focusNodeId);
+
+        for (int hop = 0; hop < depth && !frontier.isEmpty(); hop++) {
+            List<Long> next = new ArrayList<>();
+            for (Node2NodeRepository.RelationshipInfo rel
+                    : node2NodeRepository.findIncidentRelationshipsInTopology(topologyId, frontier)) {
+                edges.putIfAbsent(rel.id(), rel);
+                if (reached.add(rel.sourceId())) {
+                    next.add(rel.sourceId());
+                }
+                if (reached.add(rel.targetId())) {
+                    next.add(rel.targetId());
+                }
+            }
+            frontier = next;
+        }
+
+        if (!frontier.isEmpty()) {
+            for (Node2NodeRepository.RelationshipInfo rel
+                    : node2NodeRepository.findIncidentRelationshipsInTopology(topologyId, frontier)) {
+                if (reached.contains(rel.sourceId()) && reached.contains(rel.targetId())) {
+                    edges.putIfAbsent(rel.id(), rel);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private List<Node2NodeRepository.RelationshipInfo> pageEdges(List<Node2NodeRepository.RelationshipInfo> edges,
+                                                                 Integer offset, Integer limit) {
+        if (limit == null) {
+            return edges;
+        }
+        int from = Math.min(offset != null ? offset : 0, edges.size());
+        int to = Math.min(from + limit, edges.size());
+        return new ArrayList<>(edges.subList(from, to));
+    }
+
     // Note: Global Supervisor Agent 绑定/解绑方法已移至 AgentBoundDomainService (Feature 040)
 }
@@ -9,7 +9,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 拓扑图-报告模板绑定领域服务实现
@@ -60,11 +62,12 @@ public class TopologyReportTemplateDomainServiceImpl implements TopologyReportTe
         }
 
         // 验证所有模板存在
-        List<Long> existingIds = reportTemplateRepository.findExistingIds(reportTemplateIds);
-        if (existingIds.size() != reportTemplateIds.size()) {
-            List<Long> missingIds = reportTemplateIds.stream()
-                    .filter(id -> !existingIds.contains(id))
-                    .toList();
+        Set<Long> existingIds = new HashSet<>(reportTemplateRepository.findExistingIds(reportTemplateIds));
+        List<Long> missingIds = reportTemplateIds.stream()
+                .filter(id -> !existingIds.contains(id))
+                .distinct()
+                .toList();
+        if (!missingIds.isEmpty()) {
             throw new IllegalArgumentException("报告模板不存在: " + missingIds);
         }
 
@@ -0,0 +1,100 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import com.catface996.aiops.domain.model.node2node.Node2Node;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.catface996.aiops.domain.impl.service.node2node.Node2NodeSccAnalysisTest.edge;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点关系邻接索引（CSR）单元测试
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@DisplayName("节点关系邻接索引测试")
+class Node2NodeAdjacencyIndexTest {
+
+    @Test
+    @DisplayName("节点ID去重排序，下标与ID双向映射")
+    void build_shouldMapNodeIdsToSortedIndexes() {
+        // Given
+        List<Node2Node> relationships = List.of(edge(30, 10), edge(10, 20), edge(30, 20));
+
+        // When
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(relationships);
+
+        // Then
+        assertEquals(3, index.nodeCount());
+        assertEquals(3, index.edgeCount());
+        assertEquals(0, index.indexOf(10));
+        assertEquals(1, index.indexOf(20));
+        assertEquals(2, index.indexOf(30));
+        assertEquals(30L, index.nodeId(2));
+        assertEquals(-1, index.indexOf(99));
+        assertEquals(-1, index.indexOf(5));
+    }
+
+    @Test
+    @DisplayName("出边按源节点聚合，同一源节点保持输入顺序")
+    void build_shouldGroupEdgesBySourceInInputOrder() {
+        // Given: 输入不按源节点排序
+        Node2Node e1 = edge(2, 3);
+        Node2Node e2 = edge(1, 3);
+        Node2Node e3 = edge(2, 1);
+        Node2Node e4 = edge(1, 2);
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(List.of(e1, e2, e3, e4));
+
+        // When
+        List<Node2Node> fromOne = outgoing(index, 1);
+        List<Node2Node> fromTwo = outgoing(index, 2);
+        List<Node2Node> fromThree = outgoing(index, 3);
+
+        // Then
+        assertEquals(List.of(e2, e4), fromOne);
+        assertEquals(List.of(e1, e3), fromTwo);
+        assertTrue(fromThree.isEmpty());
+        int one = index.indexOf(1);
+        assertEquals(index.indexOf(3), index.target(index.edgeStart(one)));
+        assertEquals(index.indexOf(2), index.target(index.edgeStart(one) + 1));
+    }
+
+    @Test
+    @DisplayName("仅作为目标出现的节点出边为空")
+    void build_sinkNode_shouldHaveEmptyRange() {
+        // Given
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(List.of(edge(1, 2)));
+
+        // When
+        int sink = index.indexOf(2);
+
+        // Then
+        assertEquals(index.edgeStart(sink), index.edgeEnd(sink));
+    }
+
+    @Test
+    @DisplayName("空关系列表构建空索引")
+    void build_empty_shouldBuildEmptyIndex() {
+        // When
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(List.of());
+
+        // Then
+        assertEquals(0, index.nodeCount());
+        assertEquals(0, index.edgeCount());
+        assertEquals(-1, index.indexOf(1));
+        assertTrue(index.sccAnalysis().cyclicComponents().isEmpty());
+    }
+
+    private static List<Node2Node> outgoing(Node2NodeAdjacencyIndex index, long nodeId) {
+        List<Node2Node> result = new ArrayList<>();
+        int node = index.indexOf(nodeId);
+        for (int e = index.edgeStart(node); e < index.edgeEnd(node); e++) {
+            result.add(index.edge(e));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,177 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import com.catface996.aiops.common.exception.BusinessException;
+import com.catface996.aiops.domain.impl.service.node.NodeNameCache;
+import com.catface996.aiops.domain.impl.service.topology2.TopologyChangeRecorder;
+import com.catface996.aiops.domain.model.node.Node;
+import com.catface996.aiops.domain.model.node2node.Node2Node;
+import com.catface996.aiops.domain.model.relationship.RelationshipDirection;
+import com.catface996.aiops.domain.model.relationship.RelationshipStrength;
+import com.catface996.aiops.domain.model.relationship.RelationshipType;
+import com.catface996.aiops.domain.model.topology.Topology;
+import com.catface996.aiops.repository.node.Node2NodeRepository;
+import com.catface996.aiops.repository.node.NodeRepository;
+import com.catface996.aiops.repository.topology2.TopologyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.catface996.aiops.domain.impl.service.node2node.Node2NodeSccAnalysisTest.edge;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 节点关系领域服务单元测试（关系创建时的循环依赖检查）
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("节点关系领域服务测试")
+class Node2NodeDomainServiceImplTest {
+
+    private static final Long OPERATOR_ID = 1L;
+    private static final Long TOPOLOGY_ID = 10L;
+
+    @Mock
+    private Node2NodeRepository node2NodeRepository;
+    @Mock
+    private NodeRepository nodeRepository;
+    @Mock
+    private TopologyRepository topologyRepository;
+    @Mock
+    private Node2NodeIndexCache indexCache;
+    @Mock
+    private NodeNameCache nodeNameCache;
+    @Mock
+    private TopologyChangeRecorder changeRecorder;
+
+    private Node2NodeDomainServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new Node2NodeDomainServiceImpl(node2NodeRepository, nodeRepository, topologyRepository,
+                indexCache, nodeNameCache, changeRecorder, true, 500, true);
+        Topology topology = new Topology();
+        topology.setCreatedBy(OPERATOR_ID);
+        lenient().when(topologyRepository.findById(TOPOLOGY_ID)).thenReturn(Optional.of(topology));
+        lenient().when(nodeRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Node node = new Node();
+            node.setName("node-" + invocation.getArgument(0));
+            return Optional.of(node);
+        });
+        lenient().when(node2NodeRepository.save(any())).thenAnswer(invocation -> {
+            Node2Node saved = invocation.getArgument(0);
+            saved.setId(100L);
+            return saved;
+        });
+    }
+
+    @Test
+    @DisplayName("廉价校验通过后再加锁，循环检查基于与锁内版本一致的索引")
+    void createRelationship_shouldLockAfterValidationsAndCheckVersionedIndex() {
+        // Given: 锁内读取的版本 7 对应的索引中已有 2 → 1
+        when(node2NodeRepository.lockForCreate()).thenReturn(7L);
+        when(indexCache.getAtVersion(7L)).thenReturn(Node2NodeAdjacencyIndex.build(List.of(edge(2, 1))));
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () -> create(1L, 2L));
+
+        // Then
+        assertEquals("REL_CYCLE_001", exception.getErrorCode());
+        assertTrue(exception.getMessage().contains("[1, 2, 1]"));
+        InOrder inOrder = inOrder(node2NodeRepository, nodeRepository, indexCache);
+        inOrder.verify(nodeRepository).findById(1L);
+        inOrder.verify(node2NodeRepository).existsBySourceAndTargetAndType(1L, 2L, RelationshipType.DEPENDENCY);
+        inOrder.verify(node2NodeRepository).lockForCreate();
+        inOrder.verify(indexCache).getAtVersion(7L);
+        verify(node2NodeRepository, never()).save(any());
+        verify(node2NodeRepository, never()).findBySourceIds(any());
+    }
+
+    @Test
+    @DisplayName("关系已存在时直接拒绝，不加锁")
+    void createRelationship_duplicate_shouldRejectWithoutLock() {
+        // Given
+        when(node2NodeRepository.existsBySourceAndTargetAndType(1L, 2L, RelationshipType.DEPENDENCY))
+                .thenReturn(true);
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () -> create(1L, 2L));
+
+        // Then
+        assertEquals("REL_CONFLICT_001", exception.getErrorCode());
+        verify(node2NodeRepository, never()).lockForCreate();
+    }
+
+    @Test
+    @DisplayName("不形成循环时创建关系，并在检查所用索引上发布下一版本")
+    void createRelationship_noCycle_shouldSaveAndPublishIndex() {
+        // Given: 已有 2 → 3
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(List.of(edge(2, 3)));
+        when(node2NodeRepository.lockForCreate()).thenReturn(7L);
+        when(indexCache.getAtVersion(7L)).thenReturn(index);
+
+        // When
+        Node2Node created = create(1L, 2L);
+
+        // Then
+        assertEquals(100L, created.getId());
+        assertEquals("node-1", created.getSourceName());
+        verify(node2NodeRepository).incrementVersion();
+        verify(indexCache).publishCreated(index, 7L, List.of(created));
+        verify(indexCache, never()).invalidate();
+        verify(changeRecorder).relationshipsChanged(eq(1L), eq(List.of(100L)));
+    }
+
+    @Test
+    @DisplayName("未启用邻接索引时在锁内按层加载可达子图检查")
+    void createRelationship_indexDisabled_shouldCheckReachableSubgraph() {
+        // Given: 数据库中已有 2 → 1
+        service = new Node2NodeDomainServiceImpl(node2NodeRepository, nodeRepository, topologyRepository,
+                indexCache, nodeNameCache, changeRecorder, false, 500, true);
+        when(node2NodeRepository.findBySourceIds(any())).thenAnswer(invocation -> {
+            Collection<Long> sourceIds = invocation.getArgument(0);
+            return sourceIds.contains(2L) ? List.of(edge(2, 1)) : List.of();
+        });
+
+        // When
+        BusinessException exception = assertThrows(BusinessException.class, () -> create(1L, 2L));
+
+        // Then
+        assertEquals("REL_CYCLE_001", exception.getErrorCode());
+        verify(node2NodeRepository).lockForCreate();
+        verifyNoInteractions(indexCache);
+    }
+
+    @Test
+    @DisplayName("关闭循环检查时不加锁也不检查")
+    void createRelationship_checkDisabled_shouldSkipLock() {
+        // Given
+        service = new Node2NodeDomainServiceImpl(node2NodeRepository, nodeRepository, topologyRepository,
+                indexCache, nodeNameCache, changeRecorder, true, 500, false);
+
+        // When
+        create(1L, 2L);
+
+        // Then
+        verify(node2NodeRepository, never()).lockForCreate();
+        verify(node2NodeRepository, never()).incrementVersion();
+        verify(node2NodeRepository, never()).findBySourceIds(any());
+        verify(indexCache).invalidate();
+    }
+
+    private Node2Node create(Long sourceId, Long targetId) {
+        return service.createRelationship(sourceId, targetId, RelationshipType.DEPENDENCY,
+                RelationshipDirection.UNIDIRECTIONAL, RelationshipStrength.STRONG, null, TOPOLOGY_ID, OPERATOR_ID);
+    }
+}
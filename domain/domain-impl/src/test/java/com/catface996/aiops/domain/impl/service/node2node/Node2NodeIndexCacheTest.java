@@ -0,0 +1,68 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import com.catface996.aiops.repository.node.Node2NodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.catface996.aiops.domain.impl.service.node2node.Node2NodeSccAnalysisTest.edge;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 节点关系邻接索引缓存单元测试（按关系版本复用索引）
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("节点关系邻接索引缓存测试")
+class Node2NodeIndexCacheTest {
+
+    @Mock
+    private Node2NodeRepository node2NodeRepository;
+
+    private Node2NodeIndexCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new Node2NodeIndexCache(node2NodeRepository, 60000);
+        lenient().when(node2NodeRepository.findAllOrderBySourceId()).thenReturn(List.of(edge(1, 2)));
+    }
+
+    @Test
+    @DisplayName("关系版本一致时复用索引，不一致时重新加载")
+    void getAtVersion_shouldReloadOnlyOnVersionMismatch() {
+        // When
+        Node2NodeAdjacencyIndex first = cache.getAtVersion(3L);
+        Node2NodeAdjacencyIndex same = cache.getAtVersion(3L);
+        Node2NodeAdjacencyIndex reloaded = cache.getAtVersion(4L);
+
+        // Then
+        assertSame(first, same);
+        assertNotSame(first, reloaded);
+        verify(node2NodeRepository, times(2)).findAllOrderBySourceId();
+    }
+
+    @Test
+    @DisplayName("创建后发布的索引包含新关系，作为下一版本直接复用")
+    void publishCreated_shouldServeNextVersionWithoutReload() {
+        // Given
+        Node2NodeAdjacencyIndex base = cache.getAtVersion(3L);
+
+        // When
+        cache.publishCreated(base, 3L, List.of(edge(2, 3)));
+        Node2NodeAdjacencyIndex next = cache.getAtVersion(4L);
+
+        // Then
+        assertEquals(2, next.edgeCount());
+        assertTrue(next.indexOf(3L) >= 0);
+        assertEquals(1, base.edgeCount());
+        verify(node2NodeRepository, times(1)).findAllOrderBySourceId();
+    }
+}
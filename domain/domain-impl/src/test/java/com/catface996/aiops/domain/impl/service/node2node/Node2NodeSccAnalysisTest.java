@@ -0,0 +1,171 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import com.catface996.aiops.domain.model.node2node.Node2Node;
+import com.catface996.aiops.domain.model.relationship.RelationshipDirection;
+import com.catface996.aiops.domain.model.relationship.RelationshipStrength;
+import com.catface996.aiops.domain.model.relationship.RelationshipType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点关系强连通分量分析单元测试
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@DisplayName("节点关系强连通分量分析测试")
+class Node2NodeSccAnalysisTest {
+
+    @Test
+    @DisplayName("无环图没有循环依赖分量")
+    void cyclicComponents_acyclic_shouldBeEmpty() {
+        // Given
+        Node2NodeAdjacencyIndex index = index(1, 2, 1, 3, 2, 4, 3, 4);
+
+        // When
+        List<List<Long>> components = index.sccAnalysis().cyclicComponents();
+
+        // Then
+        assertTrue(components.isEmpty());
+    }
+
+    @Test
+    @DisplayName("多个循环分别输出，分量内节点按ID升序")
+    void cyclicComponents_multipleCycles_shouldReportEach() {
+        // Given: 3 → 1 → 2 → 3 与 5 ⇄ 6，二者通过 3 → 5 相连但不互相可达
+        Node2NodeAdjacencyIndex index = index(3, 1, 1, 2, 2, 3, 3, 5, 5, 6, 6, 5, 6, 7);
+
+        // When
+        List<List<Long>> components = sorted(index.sccAnalysis().cyclicComponents());
+
+        // Then
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(5L, 6L)), components);
+    }
+
+    @Test
+    @DisplayName("嵌套循环合并为一个分量")
+    void cyclicComponents_nestedCycles_shouldMerge() {
+        // Given: 1 → 2 → 1 与 2 → 3 → 4 → 2 共享节点 2
+        Node2NodeAdjacencyIndex index = index(1, 2, 2, 1, 2, 3, 3, 4, 4, 2, 4, 9);
+
+        // When
+        List<List<Long>> components = index.sccAnalysis().cyclicComponents();
+
+        // Then
+        assertEquals(List.of(List.of(1L, 2L, 3L, 4L)), components);
+    }
+
+    @Test
+    @DisplayName("仅由双向关系连通的分量不算循环依赖")
+    void cyclicComponents_bidirectionalPairOnly_shouldBeIgnored() {
+        // Given: 1 ⇄ 2、2 ⇄ 3 均为双向关系（各存储为一对互逆关系）
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(List.of(
+                bidirectional(1, 2), bidirectional(2, 1), bidirectional(2, 3), bidirectional(3, 2)));
+
+        // When
+        List<List<Long>> components = index.sccAnalysis().cyclicComponents();
+
+        // Then
+        assertTrue(components.isEmpty());
+    }
+
+    @Test
+    @DisplayName("经过双向关系的单向循环仍被报告")
+    void cyclicComponents_cycleThroughBidirectional_shouldReport() {
+        // Given: 1 → 2 ⇄ 3 → 1
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(List.of(
+                edge(1, 2), bidirectional(2, 3), bidirectional(3, 2), edge(3, 1)));
+
+        // When
+        List<List<Long>> components = index.sccAnalysis().cyclicComponents();
+
+        // Then
+        assertEquals(List.of(List.of(1L, 2L, 3L)), components);
+    }
+
+    @Test
+    @DisplayName("超长链路迭代计算，不会栈溢出")
+    void cyclicComponents_deepChain_shouldNotOverflow() {
+        // Given: 1 → 2 → ... → 200000 → 1
+        int length = 200_000;
+        List<Node2Node> relationships = new ArrayList<>(length);
+        for (long id = 1; id < length; id++) {
+            relationships.add(edge(id, id + 1));
+        }
+        relationships.add(edge(length, 1));
+        Node2NodeAdjacencyIndex index = Node2NodeAdjacencyIndex.build(relationships);
+
+        // When
+        List<List<Long>> components = index.sccAnalysis().cyclicComponents();
+
+        // Then
+        assertEquals(1, components.size());
+        assertEquals(length, components.get(0).size());
+    }
+
+    @Test
+    @DisplayName("分析结果在索引上缓存复用")
+    void sccAnalysis_shouldBeCached() {
+        // Given
+        Node2NodeAdjacencyIndex index = index(1, 2, 2, 1);
+
+        // When / Then
+        assertSame(index.sccAnalysis(), index.sccAnalysis());
+    }
+
+    @Test
+    @DisplayName("新增边形成循环时返回完整循环路径")
+    void findCyclePath_reachable_shouldReturnPath() {
+        // Given: 已有 2 → 3 → 4 → 1，检查新增边 1 → 2
+        Node2NodeAdjacencyIndex index = index(2, 3, 3, 4, 4, 1, 3, 9);
+
+        // When
+        List<Long> path = Node2NodeSccAnalysis.findCyclePath(index, index.indexOf(1), index.indexOf(2));
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L, 4L, 1L), path);
+    }
+
+    @Test
+    @DisplayName("target 无法到达 source 时返回空列表")
+    void findCyclePath_unreachable_shouldReturnEmpty() {
+        // Given: 已有 1 → 2 → 3，检查新增边 1 → 2（反向不可达）
+        Node2NodeAdjacencyIndex index = index(1, 2, 2, 3);
+
+        // When
+        List<Long> path = Node2NodeSccAnalysis.findCyclePath(index, index.indexOf(1), index.indexOf(2));
+
+        // Then
+        assertTrue(path.isEmpty());
+    }
+
+    private static Node2NodeAdjacencyIndex index(long... pairs) {
+        List<Node2Node> relationships = new ArrayList<>(pairs.length / 2);
+        for (int i = 0; i < pairs.length; i += 2) {
+            relationships.add(edge(pairs[i], pairs[i + 1]));
+        }
+        return Node2NodeAdjacencyIndex.build(relationships);
+    }
+
+    static Node2Node edge(long sourceId, long targetId) {
+        return Node2Node.create(sourceId, targetId, RelationshipType.DEPENDENCY,
+                RelationshipDirection.UNIDIRECTIONAL, RelationshipStrength.STRONG, null);
+    }
+
+    private static Node2Node bidirectional(long sourceId, long targetId) {
+        return Node2Node.create(sourceId, targetId, RelationshipType.DEPENDENCY,
+                RelationshipDirection.BIDIRECTIONAL, RelationshipStrength.STRONG, null);
+    }
+
+    private static List<List<Long>> sorted(List<List<Long>> components) {
+        List<List<Long>> result = new ArrayList<>(components);
+        result.sort(Comparator.comparing(component -> component.get(0)));
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package com.catface996.aiops.domain.impl.service.node2node;
+
+import com.catface996.aiops.domain.impl.service.node.NodeNameCache;
+import com.catface996.aiops.domain.impl.service.topology2.TopologyChangeRecorder;
+import com.catface996.aiops.domain.model.node2node.Node2Node;
+import com.catface996.aiops.domain.model.relationship.TraverseResult;
+import com.catface996.aiops.repository.node.Node2NodeRepository;
+import com.catface996.aiops.repository.node.NodeRepository;
+import com.catface996.aiops.repository.topology2.TopologyRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.catface996.aiops.domain.impl.service.node2node.Node2NodeSccAnalysisTest.edge;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 节点关系遍历单元测试（按层批量查询与邻接索引两种实现）
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("节点关系遍历测试")
+class Node2NodeTraverseTest {
+
+    /**
+     * 1 → 2, 1 → 3, 1 → 4, 2 → 5, 3 → 5, 4 → 6, 5 → 1（回边）, 5 → 7, 6 → 7, 7 → 8
+     */
+    private static final List<Node2Node> GRAPH = List.of(
+            edge(1, 2), edge(1, 3), edge(1, 4), edge(2, 5), edge(3, 5),
+            edge(4, 6), edge(5, 1), edge(5, 7), edge(6, 7), edge(7, 8));
+
+    @Mock
+    private Node2NodeRepository node2NodeRepository;
+    @Mock
+    private NodeRepository nodeRepository;
+    @Mock
+    private TopologyRepository topologyRepository;
+    @Mock
+    private Node2NodeIndexCache indexCache;
+    @Mock
+    private NodeNameCache nodeNameCache;
+    @Mock
+    private TopologyChangeRecorder changeRecorder;
+
+    @Test
+    @DisplayName("按层批量查询的遍历结果与邻接索引遍历一致")
+    void traverseByFrontier_shouldMatchIndexTraversal() {
+        // Given
+        stubFindBySourceIds();
+        when(indexCache.get()).thenReturn(Node2NodeAdjacencyIndex.build(GRAPH));
+
+        // When
+        TraverseResult byFrontier = service(false, 2).traverse(1L, 10);
+        TraverseResult byIndex = service(true, 2).traverse(1L, 10);
+
+        // Then
+        assertEquals(Map.of(0, List.of(1L), 1, List.of(2L, 3L, 4L), 2, List.of(5L, 6L), 3, List.of(7L), 4, List.of(8L)),
+                byFrontier.getNodesByLevel());
+        assertEquals(byIndex.getNodesByLevel(), byFrontier.getNodesByLevel());
+        assertEquals(describe(byIndex), describe(byFrontier));
+        assertEquals(GRAPH.size(), byFrontier.getRelationships().size());
+    }
+
+    @Test
+    @DisplayName("每层按 maxFrontierSize 分片，查询次数与层数和分片数成正比")
+    void traverseByFrontier_shouldQueryOncePerChunk() {
+        // Given
+        stubFindBySourceIds();
+
+        // When
+        service(false, 2).traverse(1L, 10);
+
+        // Then: 层 0 [1]、层 1 [2,3] [4]、层 2 [5,6]、层 3 [7]、层 4 [8]
+        verify(node2NodeRepository, times(6)).findBySourceIds(any());
+    }
+
+    @Test
+    @DisplayName("达到最大深度的节点不再查询出边")
+    void traverseByFrontier_maxDepth_shouldStopExpanding() {
+        // Given
+        stubFindBySourceIds();
+
+        // When
+        TraverseResult result = service(false, 500).traverse(1L, 1);
+
+        // Then
+        assertEquals(Map.of(0, List.of(1L), 1, List.of(2L, 3L, 4L)), result.getNodesByLevel());
+        assertEquals(List.of("1->2", "1->3", "1->4"), describe(result));
+        verify(node2NodeRepository, times(1)).findBySourceIds(any());
+    }
+
+    @Test
+    @DisplayName("没有关系的节点只包含起始节点")
+    void traverseByFrontier_isolatedNode_shouldReturnStartOnly() {
+        // Given
+        stubFindBySourceIds();
+
+        // When
+        TraverseResult result = service(false, 500).traverse(42L, 10);
+
+        // Then
+        assertEquals(Map.of(0, List.of(42L)), result.getNodesByLevel());
+        assertTrue(result.getRelationships().isEmpty());
+    }
+
+    private void stubFindBySourceIds() {
+        when(node2NodeRepository.findBySourceIds(any())).thenAnswer(invocation -> {
+            Collection<Long> sourceIds = invocation.getArgument(0);
+            List<Node2Node> result = new ArrayList<>();
+            for (Node2Node rel : GRAPH) {
+                if (sourceIds.contains(rel.getSourceId())) {
+                    result.add(rel);
+                }
+            }
+            return result;
+        });
+    }
+
+    private Node2NodeDomainServiceImpl service(boolean indexEnabled, int maxFrontierSize) {
+        return new Node2NodeDomainServiceImpl(node2NodeRepository, nodeRepository, topologyRepository,
+                indexCache, nodeNameCache, changeRecorder, indexEnabled, maxFrontierSize, true);
+    }
+
+    private static List<String> describe(TraverseResult result) {
+        return result.getRelationships().stream()
+                .map(rel -> rel.getSourceResourceId() + "->" + rel.getTargetResourceId())
+                .toList();
+    }
+}
@@ -0,0 +1,119 @@
+package com.catface996.aiops.domain.impl.service.topology2;
+
+import com.catface996.aiops.domain.model.topology.Topology;
+import com.catface996.aiops.domain.model.topology.TopologyGraphData;
+import com.catface996.aiops.infrastructure.cache.api.service.TopologyChangeLogService;
+import com.catface996.aiops.repository.node.Node2NodeRepository;
+import com.catface996.aiops.repository.node.NodeRepository;
+import com.catface996.aiops.repository.topology2.Topology2NodeRepository;
+import com.catface996.aiops.repository.topology2.TopologyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 拓扑图领域服务单元测试（焦点节点邻域子图）
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("拓扑图领域服务测试")
+class TopologyDomainServiceImplTest {
+
+    private static final Long TOPOLOGY_ID = 10L;
+
+    /**
+     * 1 → 2、1 → 3、2 → 3、3 → 4
+     */
+    private static final List<Node2NodeRepository.RelationshipInfo> RELATIONSHIPS = List.of(
+            relationship(101L, 1L, 2L),
+            relationship(102L, 1L, 3L),
+            relationship(103L, 2L, 3L),
+            relationship(104L, 3L, 4L));
+
+    @Mock
+    private TopologyRepository topologyRepository;
+    @Mock
+    private Topology2NodeRepository topology2NodeRepository;
+    @Mock
+    private NodeRepository nodeRepository;
+    @Mock
+    private Node2NodeRepository node2NodeRepository;
+    @Mock
+    private TopologyChangeLogService changeLogService;
+    @Mock
+    private TopologyChangeRecorder changeRecorder;
+
+    private TopologyDomainServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TopologyDomainServiceImpl(topologyRepository, topology2NodeRepository, nodeRepository,
+                node2NodeRepository, changeLogService, changeRecorder);
+        Topology topology = new Topology();
+        topology.setId(TOPOLOGY_ID);
+        lenient().when(topologyRepository.findById(TOPOLOGY_ID)).thenReturn(Optional.of(topology));
+        lenient().when(topology2NodeRepository.findMembersByTopologyIdAndNodeIds(eq(TOPOLOGY_ID), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> nodeIds = invocation.getArgument(1);
+                    return nodeIds.stream().map(TopologyDomainServiceImplTest::member).collect(Collectors.toList());
+                });
+        lenient().when(node2NodeRepository.findIncidentRelationshipsInTopology(eq(TOPOLOGY_ID), any()))
+                .thenAnswer(invocation -> {
+                    Collection<Long> nodeIds = invocation.getArgument(1);
+                    return RELATIONSHIPS.stream()
+                            .filter(rel -> nodeIds.contains(rel.sourceId()) || nodeIds.contains(rel.targetId()))
+                            .collect(Collectors.toList());
+                });
+    }
+
+    @Test
+    @DisplayName("邻域子图包含最外层节点之间的边，且只加载邻域内的成员")
+    void getTopologyGraph_focusNode_shouldReturnInducedSubgraph() {
+        // When: 以 1 为焦点展开 1 跳，邻域为 {1, 2, 3}
+        TopologyGraphData graph = service.getTopologyGraph(TOPOLOGY_ID, true, 1L, 1, null, null);
+
+        // Then: 2 → 3 两端都在最外层，同样返回；3 → 4 不在邻域内
+        assertEquals(List.of(1L, 2L, 3L), graph.getNodes().stream()
+                .map(TopologyGraphData.GraphNode::getId).sorted().collect(Collectors.toList()));
+        assertEquals(List.of(101L, 102L, 103L), graph.getEdges().stream()
+                .map(TopologyGraphData.GraphEdge::getId).collect(Collectors.toList()));
+        assertEquals(3L, graph.getTotalEdges());
+        verify(topology2NodeRepository, never()).findMembersByTopologyId(anyLong());
+    }
+
+    @Test
+    @DisplayName("焦点节点不属于拓扑图时拒绝")
+    void getTopologyGraph_focusNodeNotMember_shouldThrow() {
+        // Given
+        when(topology2NodeRepository.findMembersByTopologyIdAndNodeIds(TOPOLOGY_ID, List.of(9L)))
+                .thenReturn(List.of());
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getTopologyGraph(TOPOLOGY_ID, true, 9L, 1, null, null));
+    }
+
+    private static Node2NodeRepository.RelationshipInfo relationship(Long id, Long sourceId, Long targetId) {
+        return new Node2NodeRepository.RelationshipInfo(id, sourceId, targetId,
+                "DEPENDENCY", "UNIDIRECTIONAL", "STRONG", "NORMAL", null);
+    }
+
+    private static Topology2NodeRepository.MemberInfo member(Long nodeId) {
+        return new Topology2NodeRepository.MemberInfo(nodeId, TOPOLOGY_ID, nodeId, "node-" + nodeId,
+                "SERVICE", "服务", "RUNNING", "APPLICATION", null, null, null, null);
+    }
+}
@@ -50,6 +50,16 @@ public class TopologyGraphData {
     @Builder.Default
     private List<GraphEdge> edges = new ArrayList<>();
 
+    /**
+     * 边总数（边分页时为分页前的总数）
+     */
+    private Long totalEdges;
+
+    /**
+     * 拓扑图变更版本号（用于增量查询）
+     */
+    private Long version;
+
     // ==================== 嵌套类 ====================
 
     /**
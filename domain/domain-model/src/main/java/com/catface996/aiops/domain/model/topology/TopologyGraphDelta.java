@@ -0,0 +1,68 @@
+package com.catface996.aiops.domain.model.topology;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 拓扑图增量数据领域模型
+ *
+ * <p>客户端已同步版本之后的节点和边变更。被移除的节点的关联边不单独列出，客户端移除节点时应一并移除其关联边。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopologyGraphDelta {
+
+    /**
+     * 拓扑图ID
+     */
+    private Long topologyId;
+
+    /**
+     * 客户端已同步的版本号
+     */
+    private Long sinceVersion;
+
+    /**
+     * 当前版本号（客户端下次增量查询时携带）
+     */
+    private Long version;
+
+    /**
+     * 是否需要全量同步（变更日志已截断或版本号无效）
+     */
+    private boolean fullResync;
+
+    /**
+     * 新增或更新的节点
+     */
+    @Builder.Default
+    private List<TopologyGraphData.GraphNode> upsertedNodes = new ArrayList<>();
+
+    /**
+     * 移除的节点ID
+     */
+    @Builder.Default
+    private List<Long> removedNodeIds = new ArrayList<>();
+
+    /**
+     * 新增或更新的边
+     */
+    @Builder.Default
+    private List<TopologyGraphData.GraphEdge> upsertedEdges = new ArrayList<>();
+
+    /**
+     * 移除的边ID
+     */
+    @Builder.Default
+    private List<Long> removedEdgeIds = new ArrayList<>();
+}
@@ -6,6 +6,7 @@ import com.catface996.aiops.domain.model.agentbound.BoundEntityType;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Agent 绑定关系仓储接口
@@ -60,6 +61,18 @@ public interface AgentBoundRepository {
      */
     List<AgentBound> findHierarchyByTopologyId(Long topologyId);
 
+    /**
+     * 流式遍历 Topology 的层级成员（不分页，单次查询）
+     *
+     * <p>先回调 Global Supervisor 绑定，再按 Node 依次回调成员 Node 的绑定；
+     * 同一 Node 的记录连续回调。未绑定 Agent 的 Node 也回调一次，此时仅
+     * entityId、entityType、entityName 有值（id 为 null）。</p>
+     *
+     * @param topologyId Topology ID
+     * @param consumer   逐条处理回调
+     */
+    void scanHierarchyMembersByTopologyId(Long topologyId, Consumer<AgentBound> consumer);
+
     /**
      * 查询指定实体的 Supervisor 绑定
      *
@@ -2,6 +2,7 @@ package com.catface996.aiops.repository.diagnosis;
 
 import com.catface996.aiops.domain.model.diagnosis.AgentDiagnosisProcess;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -23,7 +24,37 @@ public interface AgentDiagnosisProcessRepository {
     int batchSave(List<AgentDiagnosisProcess> processes);
 
     /**
-     * 根据诊断任务ID查询所有Agent诊断过程
+     * 保存单条Agent诊断过程（用于增量持久化，内容随后分段追加）
+     *
+     * @param process Agent诊断过程
+     * @return 保存后的Agent诊断过程（包含ID）
+     */
+    AgentDiagnosisProcess save(AgentDiagnosisProcess process);
+
+    /**
+     * 追加诊断内容片段
+     *
+     * <p>每个片段单独插入一行，写入量只与片段大小有关，不会重写已持久化的内容；
+     * 同一序号重复追加时忽略，检查点重试不会产生重复内容。</p>
+     *
+     * @param id      Agent诊断过程ID
+     * @param seq     片段序号（同一诊断过程内单调递增）
+     * @param segment 内容片段
+     * @return 是否写入了新片段
+     */
+    boolean appendContent(Long id, long seq, String segment);
+
+    /**
+     * 更新Agent结束诊断时间
+     *
+     * @param id      Agent诊断过程ID
+     * @param endedAt 结束时间
+     * @return 是否更新成功
+     */
+    boolean updateEndedAt(Long id, LocalDateTime endedAt);
+
+    /**
+     * 根据诊断任务ID查询所有Agent诊断过程（内容为按序号拼接的全部片段）
      *
      * @param taskId 诊断任务ID
      * @return Agent诊断过程列表
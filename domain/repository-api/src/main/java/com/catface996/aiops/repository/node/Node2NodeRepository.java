@@ -4,8 +4,10 @@ import com.catface996.aiops.domain.model.node2node.Node2Node;
 import com.catface996.aiops.domain.model.relationship.RelationshipStatus;
 import com.catface996.aiops.domain.model.relationship.RelationshipType;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * 节点关系仓储接口
@@ -41,6 +43,53 @@ public interface Node2NodeRepository {
      */
     List<RelationshipInfo> findRelationshipsByNodeIds(List<Long> nodeIds);
 
+    /**
+     * 查询拓扑图成员节点之间的关系（单次关联查询，按关系ID排序）
+     *
+     * @param topologyId 拓扑图ID
+     * @param offset     偏移量（limit 为空时忽略）
+     * @param limit      最大条数，为空时返回全部
+     * @return 关系列表
+     */
+    List<RelationshipInfo> findRelationshipsByTopologyId(Long topologyId, Integer offset, Integer limit);
+
+    /**
+     * 统计拓扑图成员节点之间的关系数量
+     *
+     * @param topologyId 拓扑图ID
+     * @return 数量
+     */
+    long countRelationshipsByTopologyId(Long topologyId);
+
+    /**
+     * 流式读取拓扑图成员节点之间的关系（按关系ID排序）
+     *
+     * <p>逐行回调，不在内存中构建关系列表；回调的关系不包含描述字段。</p>
+     *
+     * @param topologyId 拓扑图ID
+     * @param consumer   关系回调
+     * @return 关系数量
+     */
+    long streamRelationshipsByTopologyId(Long topologyId, Consumer<RelationshipInfo> consumer);
+
+    /**
+     * 查询与指定节点相连（作为源或目标）、且两端都属于拓扑图的关系
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    节点ID集合
+     * @return 关系列表（按批查询，可能包含重复关系）
+     */
+    List<RelationshipInfo> findIncidentRelationshipsInTopology(Long topologyId, Collection<Long> nodeIds);
+
+    /**
+     * 按ID查询关系，仅返回两端都属于拓扑图的关系
+     *
+     * @param topologyId 拓扑图ID
+     * @param ids        关系ID集合
+     * @return 关系列表（已删除或不在拓扑图中的关系不包含在内）
+     */
+    List<RelationshipInfo> findRelationshipsByTopologyIdAndIds(Long topologyId, Collection<Long> ids);
+
     /**
      * 查询节点的出边关系（RelationshipInfo 版本，用于拓扑图）
      *
@@ -143,6 +192,23 @@ public interface Node2NodeRepository {
      */
     List<Node2Node> findBySourceId(Long sourceId);
 
+    /**
+     * 批量查询多个源节点的所有关系
+     *
+     * <p>源节点较多时按批拆分 IN 列表，每批一次查询。</p>
+     *
+     * @param sourceIds 源节点ID集合
+     * @return 关系列表
+     */
+    List<Node2Node> findBySourceIds(Collection<Long> sourceIds);
+
+    /**
+     * 查询全部关系（按源节点排序，用于构建内存邻接索引）
+     *
+     * @return 关系列表
+     */
+    List<Node2Node> findAllOrderBySourceId();
+
     /**
      * 查询目标节点的所有关系（Node2Node 版本）
      *
@@ -159,4 +225,21 @@ public interface Node2NodeRepository {
      * @param type 关系类型
      */
     void deleteBySourceAndTargetAndType(Long sourceId, Long targetId, RelationshipType type);
+
+    /**
+     * 锁定关系创建（必须在事务内调用）
+     *
+     * <p>在数据库中锁定全局唯一的锁行，锁随当前事务提交或回滚释放。
+     * 用于让循环依赖检查与插入在所有实例间串行执行。</p>
+     *
+     * @return 当前关系版本号
+     */
+    long lockForCreate();
+
+    /**
+     * 递增关系版本号（必须在事务内调用，创建或删除关系后调用）
+     *
+     * <p>更新锁行本身，未持有锁时会等待正在进行的关系创建提交。</p>
+     */
+    void incrementVersion();
 }
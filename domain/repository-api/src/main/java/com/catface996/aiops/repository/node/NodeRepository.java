@@ -4,7 +4,9 @@ import com.catface996.aiops.domain.model.node.Node;
 import com.catface996.aiops.domain.model.node.NodeLayer;
 import com.catface996.aiops.domain.model.node.NodeStatus;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -137,4 +139,12 @@ public interface NodeRepository {
      * @return 存在的节点ID列表
      */
     List<Long> findExistingIds(List<Long> ids);
+
+    /**
+     * 批量查询节点名称
+     *
+     * @param ids 节点ID集合
+     * @return 节点ID → 名称（不存在的节点不包含在结果中）
+     */
+    Map<Long, String> findNamesByIds(Collection<Long> ids);
 }
@@ -1,7 +1,9 @@
 package com.catface996.aiops.repository.topology2;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 拓扑图-节点关联仓储接口
@@ -86,6 +88,14 @@ public interface Topology2NodeRepository {
      */
     int countByTopologyId(Long topologyId);
 
+    /**
+     * 批量统计多个拓扑图的成员数量
+     *
+     * @param topologyIds 拓扑图ID列表
+     * @return topologyId -> 成员数量（无成员的拓扑图不包含在内）
+     */
+    Map<Long, Integer> countByTopologyIds(List<Long> topologyIds);
+
     /**
      * 成员关联信息
      */
@@ -111,4 +121,21 @@ public interface Topology2NodeRepository {
      * @return 成员详情列表
      */
     List<MemberInfo> findMembersByTopologyId(Long topologyId);
+
+    /**
+     * 查询拓扑图中指定节点的成员详情
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    节点ID集合
+     * @return 成员详情列表（不属于该拓扑图的节点不包含在内）
+     */
+    List<MemberInfo> findMembersByTopologyIdAndNodeIds(Long topologyId, Collection<Long> nodeIds);
+
+    /**
+     * 查询包含指定节点的所有拓扑图ID
+     *
+     * @param nodeId 节点ID
+     * @return 拓扑图ID列表
+     */
+    List<Long> findTopologyIdsByNodeId(Long nodeId);
 }
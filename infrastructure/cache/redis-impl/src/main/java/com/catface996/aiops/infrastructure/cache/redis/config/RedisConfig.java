@@ -6,9 +6,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 /**
@@ -52,18 +56,8 @@ public class RedisConfig {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
 
-        // 配置 ObjectMapper
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        objectMapper.activateDefaultTyping(
-            LaissezFaireSubTypeValidator.instance,
-            ObjectMapper.DefaultTyping.NON_FINAL
-        );
-
         // 使用 Jackson2JsonRedisSerializer 来序列化和反序列化 redis 的 value 值
-        // 使用新的构造函数方式，避免使用已废弃的 setObjectMapper 方法
-        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = 
-            new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = jsonRedisSerializer();
 
         // 使用 StringRedisSerializer 来序列化和反序列化 redis 的 key 值
         StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
@@ -80,4 +74,60 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * 配置 ReactiveRedisTemplate
+     *
+     * <p>与 {@link #redisTemplate} 使用相同的序列化方式，两者写入的数据可以互相读取。
+     * 用于 WebClient 事件流等响应式链路中，避免在 Netty 事件循环线程上执行阻塞 Redis 调用。</p>
+     *
+     * @param connectionFactory 响应式 Redis 连接工厂
+     * @return ReactiveRedisTemplate
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> reactiveObjectRedisTemplate(
+            ReactiveRedisConnectionFactory connectionFactory) {
+        StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
+        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = jsonRedisSerializer();
+
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(stringRedisSerializer)
+                .value(jackson2JsonRedisSerializer)
+                .hashKey(stringRedisSerializer)
+                .hashValue(jackson2JsonRedisSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+
+    /**
+     * 配置响应式 Redis 消息监听容器
+     *
+     * <p>所有频道订阅共享同一个 pub/sub 连接，应用关闭时释放。</p>
+     *
+     * @param connectionFactory Redis 连接工厂
+     * @return ReactiveRedisMessageListenerContainer
+     */
+    @Bean(destroyMethod = "destroy")
+    public ReactiveRedisMessageListenerContainer reactiveRedisMessageListenerContainer(
+            ReactiveRedisConnectionFactory connectionFactory) {
+        return new ReactiveRedisMessageListenerContainer(connectionFactory);
+    }
+
+    /**
+     * 创建 value 的 JSON 序列化器
+     *
+     * @return Jackson2JsonRedisSerializer
+     */
+    private Jackson2JsonRedisSerializer<Object> jsonRedisSerializer() {
+        // 配置 ObjectMapper
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        objectMapper.activateDefaultTyping(
+            LaissezFaireSubTypeValidator.instance,
+            ObjectMapper.DefaultTyping.NON_FINAL
+        );
+
+        // 使用新的构造函数方式，避免使用已废弃的 setObjectMapper 方法
+        return new Jackson2JsonRedisSerializer<>(objectMapper, Object.class);
+    }
 }
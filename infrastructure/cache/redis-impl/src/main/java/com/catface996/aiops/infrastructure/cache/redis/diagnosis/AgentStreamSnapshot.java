@@ -0,0 +1,60 @@
+package com.catface996.aiops.infrastructure.cache.redis.diagnosis;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 单个 Agent 流式数据快照
+ *
+ * <p>由 {@link DiagnosisStreamCacheService#getTaskSnapshot} 一次性批量获取，包含元数据与内容长度，
+ * 内容本身按需通过 {@link DiagnosisStreamCacheService#readAgentContentSegments} 分段读取。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Getter
+@AllArgsConstructor
+public class AgentStreamSnapshot {
+
+    /**
+     * Agent绑定ID
+     */
+    private final Long agentBoundId;
+
+    /**
+     * 元数据（agentName, startedAt, endedAt, processId, persistedCursor）
+     */
+    private final Map<String, String> meta;
+
+    /**
+     * 内容长度（APPEND 模式为字节数，LIST 模式为元素个数，与持久化游标单位一致）
+     */
+    private final long contentLength;
+
+    public String getAgentName() {
+        return meta.getOrDefault(DiagnosisStreamCacheService.META_AGENT_NAME, "Unknown");
+    }
+
+    public LocalDateTime getStartedAt() {
+        return parseDateTime(meta.get(DiagnosisStreamCacheService.META_STARTED_AT));
+    }
+
+    public LocalDateTime getEndedAt() {
+        return parseDateTime(meta.get(DiagnosisStreamCacheService.META_ENDED_AT));
+    }
+
+    public Long getPersistedProcessId() {
+        return DiagnosisStreamCacheService.getPersistedProcessId(meta);
+    }
+
+    public long getPersistedCursor() {
+        return DiagnosisStreamCacheService.getPersistedCursor(meta);
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        return value != null && !value.isEmpty() ? LocalDateTime.parse(value) : null;
+    }
+}
@@ -1,9 +1,17 @@
 package com.catface996.aiops.infrastructure.cache.redis.diagnosis;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -15,15 +23,23 @@ import java.util.stream.Collectors;
 /**
  * 诊断流式数据缓存服务
  *
- * <p>使用 Redis List 存储 executor 流式响应数据，按 Agent 维度分类存储。</p>
+ * <p>按 Agent 维度存储 executor 流式响应数据，存储方式由 {@code diagnosis.stream.storage-mode} 决定：</p>
+ * <ul>
+ *   <li>LIST：Redis List，每个片段一个 JSON 元素</li>
+ *   <li>APPEND：Redis String，片段以原始字符串 APPEND 到同一个值（默认）</li>
+ * </ul>
  *
  * <p>Key 命名规范：</p>
  * <ul>
  *   <li>诊断任务 Agent 列表索引：diagnosis:task:{taskId}:agents</li>
- *   <li>Agent 流式数据：diagnosis:task:{taskId}:agent:{agentBoundId}</li>
+ *   <li>Agent 流式数据（LIST）：diagnosis:task:{taskId}:agent:{agentBoundId}</li>
+ *   <li>Agent 流式数据（APPEND）：diagnosis:task:{taskId}:agent:{agentBoundId}:text</li>
  *   <li>Agent 元数据：diagnosis:task:{taskId}:agent:{agentBoundId}:meta</li>
  * </ul>
  *
+ * <p>写入只使用当前存储方式的数据 Key；读取时若当前方式的 Key 不存在，回退到另一种方式的 Key，
+ * 使切换存储方式前已开始的任务仍可被读取和持久化。</p>
+ *
  * <p>TTL: 24小时（86400秒）</p>
  *
  * @author AI Assistant
@@ -40,19 +56,42 @@ public class DiagnosisStreamCacheService {
     /**
      * 默认 TTL: 24小时
      */
-    private static final long DEFAULT_TTL_SECONDS = 86400L;
+    static final long DEFAULT_TTL_SECONDS = 86400L;
 
     /**
      * 元数据字段
      */
-    private static final String META_AGENT_NAME = "agentName";
-    private static final String META_STARTED_AT = "startedAt";
-    private static final String META_ENDED_AT = "endedAt";
+    static final String META_AGENT_NAME = "agentName";
+    static final String META_STARTED_AT = "startedAt";
+    static final String META_ENDED_AT = "endedAt";
+    static final String META_PROCESS_ID = "processId";
+    static final String META_PERSISTED_CURSOR = "persistedCursor";
+
+    /**
+     * LIST 模式下分段读取时每段的元素个数
+     */
+    private static final int LIST_SEGMENT_ELEMENTS = 256;
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final DiagnosisStreamStorageMode storageMode;
 
-    public DiagnosisStreamCacheService(RedisTemplate<String, Object> redisTemplate) {
+    public DiagnosisStreamCacheService(
+            RedisTemplate<String, Object> redisTemplate,
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${diagnosis.stream.storage-mode:APPEND}") DiagnosisStreamStorageMode storageMode) {
         this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.storageMode = storageMode;
+    }
+
+    /**
+     * 获取当前的流式数据存储方式
+     *
+     * @return 存储方式
+     */
+    public DiagnosisStreamStorageMode getStorageMode() {
+        return storageMode;
     }
 
     // ==================== 写入操作 ====================
@@ -66,12 +105,19 @@ public class DiagnosisStreamCacheService {
      * @param content      流式内容片段
      */
     public void appendStreamContent(Long taskId, Long agentBoundId, String agentName, String content) {
-        String dataKey = buildAgentDataKey(taskId, agentBoundId);
+        String dataKey = buildAgentDataKey(taskId, agentBoundId, storageMode);
         String agentsKey = buildAgentsIndexKey(taskId);
 
-        // 追加数据到 List
-        redisTemplate.opsForList().rightPush(dataKey, content);
-        redisTemplate.expire(dataKey, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+        // 追加数据到 List / String
+        if (storageMode == DiagnosisStreamStorageMode.APPEND) {
+            if (content != null && !content.isEmpty()) {
+                redisTemplate.opsForValue().append(dataKey, content);
+                redisTemplate.expire(dataKey, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+            }
+        } else {
+            redisTemplate.opsForList().rightPush(dataKey, content);
+            redisTemplate.expire(dataKey, DEFAULT_TTL_SECONDS, TimeUnit.SECONDS);
+        }
 
         // 添加 agentBoundId 到索引 Set
         redisTemplate.opsForSet().add(agentsKey, agentBoundId.toString());
@@ -126,7 +172,12 @@ public class DiagnosisStreamCacheService {
      * @return 完整内容字符串
      */
     public String getAgentContent(Long taskId, Long agentBoundId) {
-        String dataKey = buildAgentDataKey(taskId, agentBoundId);
+        DiagnosisStreamStorageMode mode = resolveStorageMode(taskId, agentBoundId);
+        String dataKey = buildAgentDataKey(taskId, agentBoundId, mode);
+        if (mode == DiagnosisStreamStorageMode.APPEND) {
+            String content = stringRedisTemplate.opsForValue().get(dataKey);
+            return content != null ? content : "";
+        }
         List<Object> contents = redisTemplate.opsForList().range(dataKey, 0, -1);
         if (contents == null || contents.isEmpty()) {
             return "";
@@ -136,6 +187,178 @@ public class DiagnosisStreamCacheService {
                 .collect(Collectors.joining());
     }
 
+    /**
+     * 从指定游标开始分段读取 Agent 流式内容
+     *
+     * <p>用于增量持久化：每次只在内存中保留一个片段，读取量与内容总长度无关。</p>
+     * <ul>
+     *   <li>APPEND 模式：游标为字节偏移，使用 STRLEN + GETRANGE 按 {@code segmentBytes} 分段，
+     *       片段边界回退到完整的 UTF-8 字符</li>
+     *   <li>LIST 模式：游标为元素下标，每段读取固定数量的元素</li>
+     * </ul>
+     *
+     * @param taskId       诊断任务ID
+     * @param agentBoundId Agent绑定ID
+     * @param fromCursor   起始游标（上次持久化后的位置）
+     * @param segmentBytes APPEND 模式下单个片段的最大字节数（至少 4）
+     * @param consumer     片段消费者，接收片段内容与该片段之后的游标
+     * @return 读取结束后的游标
+     */
+    public long readAgentContentSegments(Long taskId, Long agentBoundId, long fromCursor, int segmentBytes,
+                                         ContentSegmentConsumer consumer) {
+        return readAgentContentSegments(taskId, agentBoundId, fromCursor, getAgentContentLength(taskId, agentBoundId),
+                segmentBytes, consumer);
+    }
+
+    /**
+     * 在已知内容长度时分段读取 Agent 流式内容（省去一次长度查询）
+     *
+     * @param taskId       诊断任务ID
+     * @param agentBoundId Agent绑定ID
+     * @param fromCursor   起始游标
+     * @param end          结束游标（通常来自 {@link AgentStreamSnapshot#getContentLength()}）
+     * @param segmentBytes APPEND 模式下单个片段的最大字节数（至少 4）
+     * @param consumer     片段消费者
+     * @return 读取结束后的游标
+     * @see #readAgentContentSegments(Long, Long, long, int, ContentSegmentConsumer)
+     */
+    public long readAgentContentSegments(Long taskId, Long agentBoundId, long fromCursor, long end, int segmentBytes,
+                                         ContentSegmentConsumer consumer) {
+        DiagnosisStreamStorageMode mode = resolveStorageMode(taskId, agentBoundId);
+        String dataKey = buildAgentDataKey(taskId, agentBoundId, mode);
+        long cursor = fromCursor;
+
+        if (mode == DiagnosisStreamStorageMode.APPEND) {
+            byte[] rawKey = dataKey.getBytes(StandardCharsets.UTF_8);
+            int step = Math.max(segmentBytes, 4);
+            while (cursor < end) {
+                long start = cursor;
+                long rangeEnd = Math.min(cursor + step, end) - 1;
+                byte[] bytes = stringRedisTemplate.execute(
+                        (RedisCallback<byte[]>) connection -> connection.stringCommands().getRange(rawKey, start, rangeEnd));
+                if (bytes == null || bytes.length == 0) {
+                    break;
+                }
+                // 追加的是完整字符串，因此 end 一定位于字符边界；中间片段需回退到完整字符
+                int safeLength = rangeEnd + 1 >= end ? bytes.length : completeUtf8Length(bytes);
+                cursor += safeLength;
+                consumer.accept(new String(bytes, 0, safeLength, StandardCharsets.UTF_8), cursor);
+            }
+            return cursor;
+        }
+
+        while (cursor < end) {
+            long rangeEnd = Math.min(cursor + LIST_SEGMENT_ELEMENTS, end) - 1;
+            List<Object> elements = redisTemplate.opsForList().range(dataKey, cursor, rangeEnd);
+            if (elements == null || elements.isEmpty()) {
+                break;
+            }
+            cursor += elements.size();
+            consumer.accept(elements.stream().map(Object::toString).collect(Collectors.joining()), cursor);
+        }
+        return cursor;
+    }
+
+    /**
+     * 保存 Agent 的增量持久化进度
+     *
+     * @param taskId       诊断任务ID
+     * @param agentBoundId Agent绑定ID
+     * @param processId    数据库中 Agent 诊断过程记录ID
+     * @param cursor       已持久化到的游标
+     */
+    public void saveAgentPersistCheckpoint(Long taskId, Long agentBoundId, Long processId, long cursor) {
+        String metaKey = buildAgentMetaKey(taskId, agentBoundId);
+        Map<String, String> checkpoint = new HashMap<>();
+        checkpoint.put(META_PROCESS_ID, processId.toString());
+        checkpoint.put(META_PERSISTED_CURSOR, Long.toString(cursor));
+        redisTemplate.opsForHash().putAll(metaKey, checkpoint);
+    }
+
+    /**
+     * 获取 Agent 已持久化的数据库记录ID
+     *
+     * @param meta Agent 元数据（{@link #getAgentMeta} 的返回值）
+     * @return 记录ID，尚未持久化时返回 null
+     */
+    public static Long getPersistedProcessId(Map<String, String> meta) {
+        String processId = meta.get(META_PROCESS_ID);
+        return processId != null && !processId.isEmpty() ? Long.parseLong(processId) : null;
+    }
+
+    /**
+     * 获取 Agent 已持久化到的游标
+     *
+     * @param meta Agent 元数据（{@link #getAgentMeta} 的返回值）
+     * @return 游标，尚未持久化时返回 0
+     */
+    public static long getPersistedCursor(Map<String, String> meta) {
+        String cursor = meta.get(META_PERSISTED_CURSOR);
+        return cursor != null && !cursor.isEmpty() ? Long.parseLong(cursor) : 0L;
+    }
+
+    /**
+     * 获取 Agent 流式内容长度
+     *
+     * @param taskId       诊断任务ID
+     * @param agentBoundId Agent绑定ID
+     * @return APPEND 模式为字节数（STRLEN），LIST 模式为元素个数（LLEN）
+     */
+    public long getAgentContentLength(Long taskId, Long agentBoundId) {
+        DiagnosisStreamStorageMode mode = resolveStorageMode(taskId, agentBoundId);
+        String dataKey = buildAgentDataKey(taskId, agentBoundId, mode);
+        Long length = mode == DiagnosisStreamStorageMode.APPEND
+                ? stringRedisTemplate.opsForValue().size(dataKey)
+                : redisTemplate.opsForList().size(dataKey);
+        return length != null ? length : 0L;
+    }
+
+    /**
+     * 批量获取诊断任务所有 Agent 的元数据与内容长度
+     *
+     * <p>共两次往返：SMEMBERS 读取索引，随后在一个 Pipeline 中对每个 Agent 执行 HGETALL + STRLEN + LLEN，
+     * 替代逐个 Agent 多次读取元数据的方式。两种方式的数据 Key 不同，STRLEN/LLEN 不会触发 WRONGTYPE；
+     * 与 {@link #resolveStorageMode} 一致，优先取当前存储方式的长度。</p>
+     *
+     * @param taskId 诊断任务ID
+     * @return Agent 快照列表，无数据时返回空列表
+     */
+    public List<AgentStreamSnapshot> getTaskSnapshot(Long taskId) {
+        List<Long> agentBoundIds = new ArrayList<>(getAgentBoundIds(taskId));
+        if (agentBoundIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Long agentBoundId : agentBoundIds) {
+                    ops.opsForHash().entries(buildAgentMetaKey(taskId, agentBoundId));
+                    ops.opsForValue().size(buildAgentDataKey(taskId, agentBoundId, DiagnosisStreamStorageMode.APPEND));
+                    ops.opsForList().size(buildAgentDataKey(taskId, agentBoundId, DiagnosisStreamStorageMode.LIST));
+                }
+                return null;
+            }
+        });
+
+        List<AgentStreamSnapshot> snapshots = new ArrayList<>(agentBoundIds.size());
+        for (int i = 0; i < agentBoundIds.size(); i++) {
+            Object meta = results.get(i * 3);
+            long appendLength = toLong(results.get(i * 3 + 1));
+            long listLength = toLong(results.get(i * 3 + 2));
+            long length = storageMode == DiagnosisStreamStorageMode.APPEND
+                    ? (appendLength > 0 ? appendLength : listLength)
+                    : (listLength > 0 ? listLength : appendLength);
+            snapshots.add(new AgentStreamSnapshot(
+                    agentBoundIds.get(i),
+                    meta instanceof Map<?, ?> entries ? toStringMap(entries) : Collections.emptyMap(),
+                    length));
+        }
+        return snapshots;
+    }
+
     /**
      * 获取指定 Agent 的元数据
      *
@@ -149,11 +372,7 @@ public class DiagnosisStreamCacheService {
         if (entries == null || entries.isEmpty()) {
             return Collections.emptyMap();
         }
-        return entries.entrySet().stream()
-                .collect(Collectors.toMap(
-                        e -> e.getKey().toString(),
-                        e -> e.getValue() != null ? e.getValue().toString() : ""
-                ));
+        return toStringMap(entries);
     }
 
     /**
@@ -204,19 +423,27 @@ public class DiagnosisStreamCacheService {
      * @param taskId 诊断任务ID
      */
     public void cleanupTaskData(Long taskId) {
-        Set<Long> agentBoundIds = getAgentBoundIds(taskId);
+        cleanupTaskData(taskId, getAgentBoundIds(taskId));
+    }
 
-        // 删除所有 Agent 数据和元数据
+    /**
+     * 清理诊断任务的所有 Redis 数据（已知 Agent 列表时使用）
+     *
+     * <p>所有数据 Key、元数据 Key 与索引 Key 通过一次 UNLINK 删除，内存在 Redis 后台线程中回收。</p>
+     *
+     * @param taskId        诊断任务ID
+     * @param agentBoundIds Agent绑定ID列表
+     */
+    public void cleanupTaskData(Long taskId, Collection<Long> agentBoundIds) {
+        List<String> keys = new ArrayList<>(agentBoundIds.size() * 3 + 1);
         for (Long agentBoundId : agentBoundIds) {
-            String dataKey = buildAgentDataKey(taskId, agentBoundId);
-            String metaKey = buildAgentMetaKey(taskId, agentBoundId);
-            redisTemplate.delete(dataKey);
-            redisTemplate.delete(metaKey);
+            for (DiagnosisStreamStorageMode mode : DiagnosisStreamStorageMode.values()) {
+                keys.add(buildAgentDataKey(taskId, agentBoundId, mode));
+            }
+            keys.add(buildAgentMetaKey(taskId, agentBoundId));
         }
-
-        // 删除 Agent 索引
-        String agentsKey = buildAgentsIndexKey(taskId);
-        redisTemplate.delete(agentsKey);
+        keys.add(buildAgentsIndexKey(taskId));
+        redisTemplate.unlink(keys);
     }
 
     /**
@@ -230,17 +457,74 @@ public class DiagnosisStreamCacheService {
         return Boolean.TRUE.equals(redisTemplate.hasKey(agentsKey));
     }
 
+    // ==================== 内部方法 ====================
+
+    /**
+     * 确定 Agent 数据所在的存储方式：当前方式的 Key 存在或两者都不存在时使用当前方式，
+     * 否则回退到另一种方式（切换存储方式前写入的数据）
+     */
+    private DiagnosisStreamStorageMode resolveStorageMode(Long taskId, Long agentBoundId) {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(buildAgentDataKey(taskId, agentBoundId, storageMode)))) {
+            return storageMode;
+        }
+        DiagnosisStreamStorageMode other = storageMode.other();
+        return Boolean.TRUE.equals(redisTemplate.hasKey(buildAgentDataKey(taskId, agentBoundId, other)))
+                ? other : storageMode;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static Map<String, String> toStringMap(Map<?, ?> entries) {
+        return entries.entrySet().stream()
+                .collect(Collectors.toMap(
+                        e -> e.getKey().toString(),
+                        e -> e.getValue() != null ? e.getValue().toString() : ""
+                ));
+    }
+
+    /**
+     * 计算字节数组中完整 UTF-8 字符的长度（去掉末尾被截断的多字节字符）
+     */
+    private static int completeUtf8Length(byte[] bytes) {
+        int length = bytes.length;
+        for (int i = length - 1; i >= Math.max(0, length - 4); i--) {
+            int b = bytes[i] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                int charLength = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                return i + charLength <= length ? length : i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 内容片段消费者
+     */
+    @FunctionalInterface
+    public interface ContentSegmentConsumer {
+
+        /**
+         * 处理一个内容片段
+         *
+         * @param segment    片段内容
+         * @param nextCursor 该片段之后的游标
+         */
+        void accept(String segment, long nextCursor);
+    }
+
     // ==================== Key 构建方法 ====================
 
-    private String buildAgentsIndexKey(Long taskId) {
+    static String buildAgentsIndexKey(Long taskId) {
         return KEY_PREFIX + taskId + AGENTS_SUFFIX;
     }
 
-    private String buildAgentDataKey(Long taskId, Long agentBoundId) {
-        return KEY_PREFIX + taskId + AGENT_INFIX + agentBoundId;
+    static String buildAgentDataKey(Long taskId, Long agentBoundId, DiagnosisStreamStorageMode mode) {
+        return KEY_PREFIX + taskId + AGENT_INFIX + agentBoundId + mode.getDataKeySuffix();
     }
 
-    private String buildAgentMetaKey(Long taskId, Long agentBoundId) {
+    static String buildAgentMetaKey(Long taskId, Long agentBoundId) {
         return KEY_PREFIX + taskId + AGENT_INFIX + agentBoundId + META_SUFFIX;
     }
 }
@@ -0,0 +1,48 @@
+package com.catface996.aiops.infrastructure.cache.redis.diagnosis;
+
+/**
+ * Agent 流式数据在 Redis 中的存储方式
+ *
+ * <p>通过 {@code diagnosis.stream.storage-mode} 配置。两种方式的数据 Key 使用不同的后缀，
+ * 切换存储方式时新写入不会与旧类型的 Key 冲突（WRONGTYPE），读取时可回退到另一种方式已有的数据。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+public enum DiagnosisStreamStorageMode {
+
+    /**
+     * Redis List，每个片段一个 JSON 序列化元素（RPUSH / LRANGE）
+     */
+    LIST(""),
+
+    /**
+     * Redis String，片段以原始 UTF-8 字节追加到同一个值（APPEND / GET），
+     * 无 JSON 引号与类型信息开销，读取为单次 O(1) 往返
+     */
+    APPEND(":text");
+
+    private final String dataKeySuffix;
+
+    DiagnosisStreamStorageMode(String dataKeySuffix) {
+        this.dataKeySuffix = dataKeySuffix;
+    }
+
+    /**
+     * 数据 Key 后缀（LIST 沿用原有 Key，无后缀）
+     *
+     * @return 后缀
+     */
+    public String getDataKeySuffix() {
+        return dataKeySuffix;
+    }
+
+    /**
+     * 另一种存储方式（用于读取切换前写入的数据）
+     *
+     * @return 另一种存储方式
+     */
+    public DiagnosisStreamStorageMode other() {
+        return this == LIST ? APPEND : LIST;
+    }
+}
@@ -0,0 +1,109 @@
+package com.catface996.aiops.infrastructure.cache.redis.diagnosis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService.DEFAULT_TTL_SECONDS;
+import static com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService.META_AGENT_NAME;
+import static com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService.META_ENDED_AT;
+import static com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService.META_STARTED_AT;
+import static com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService.buildAgentDataKey;
+import static com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService.buildAgentMetaKey;
+import static com.catface996.aiops.infrastructure.cache.redis.diagnosis.DiagnosisStreamCacheService.buildAgentsIndexKey;
+
+/**
+ * 诊断流式数据缓存服务（响应式）
+ *
+ * <p>{@link DiagnosisStreamCacheService} 写入操作的非阻塞版本，基于 {@link ReactiveRedisTemplate}。
+ * Key 结构（包括按存储方式区分的数据 Key）与序列化方式与阻塞版本完全一致，读取、持久化和清理仍由阻塞版本完成。</p>
+ *
+ * <p>返回的 {@link Mono} 在订阅时才发出命令，由调用方在事件流中通过 concatMap/flatMap 组合，
+ * Redis 延迟会以背压形式传递给上游，而不会阻塞 Netty 事件循环线程。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Service
+public class ReactiveDiagnosisStreamCacheService {
+
+    private static final Duration DEFAULT_TTL = Duration.ofSeconds(DEFAULT_TTL_SECONDS);
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final DiagnosisStreamStorageMode storageMode;
+
+    public ReactiveDiagnosisStreamCacheService(
+            ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+            @Value("${diagnosis.stream.storage-mode:APPEND}") DiagnosisStreamStorageMode storageMode) {
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.storageMode = storageMode;
+    }
+
+    /**
+     * 批量追加合并后的流式内容
+     *
+     * <p>将同一 Agent 在一个批次内的片段合并为一次写入。索引和元数据仅在 Agent 首次写入时创建，
+     * 元数据使用 HSETNX，无需先 EXISTS 再写入；每个批次都会刷新数据、索引和元数据 Key 的 TTL，
+     * 避免长时间运行的 Agent 在输出过程中 Key 过期。</p>
+     *
+     * @param taskId       诊断任务ID
+     * @param agentBoundId Agent绑定ID
+     * @param agentName    Agent名称（仅首次写入时使用）
+     * @param content      合并后的内容，可为空字符串
+     * @param startedAt    Agent 开始时间（仅首次写入时使用）
+     * @param initAgent    是否为该 Agent 的首次写入
+     * @return 写入完成信号
+     */
+    public Mono<Void> appendStreamContents(Long taskId, Long agentBoundId, String agentName, String content,
+                                           LocalDateTime startedAt, boolean initAgent) {
+        boolean hasContent = content != null && !content.isEmpty();
+        if (!hasContent && !initAgent) {
+            return Mono.empty();
+        }
+        String agentsKey = buildAgentsIndexKey(taskId);
+        String metaKey = buildAgentMetaKey(taskId, agentBoundId);
+        List<Mono<?>> commands = new ArrayList<>();
+
+        if (hasContent) {
+            String dataKey = buildAgentDataKey(taskId, agentBoundId, storageMode);
+            Mono<?> push = storageMode == DiagnosisStreamStorageMode.APPEND
+                    ? reactiveRedisTemplate.opsForValue().append(dataKey, content)
+                    : reactiveRedisTemplate.opsForList().rightPush(dataKey, content);
+            commands.add(push.then(reactiveRedisTemplate.expire(dataKey, DEFAULT_TTL)));
+        }
+        if (initAgent) {
+            ReactiveHashOperations<String, Object, Object> hashOps = reactiveRedisTemplate.opsForHash();
+            commands.add(reactiveRedisTemplate.opsForSet().add(agentsKey, agentBoundId.toString())
+                    .then(reactiveRedisTemplate.expire(agentsKey, DEFAULT_TTL)));
+            commands.add(hashOps.putIfAbsent(metaKey, META_AGENT_NAME, agentName)
+                    .then(hashOps.putIfAbsent(metaKey, META_STARTED_AT, startedAt.toString()))
+                    .then(reactiveRedisTemplate.expire(metaKey, DEFAULT_TTL)));
+        } else {
+            // 每个批次续期索引与元数据，与数据 Key 同步过期
+            commands.add(reactiveRedisTemplate.expire(agentsKey, DEFAULT_TTL));
+            commands.add(reactiveRedisTemplate.expire(metaKey, DEFAULT_TTL));
+        }
+        return Mono.when(commands);
+    }
+
+    /**
+     * 标记 Agent 诊断结束
+     *
+     * @param taskId       诊断任务ID
+     * @param agentBoundId Agent绑定ID
+     * @return 写入完成信号
+     */
+    public Mono<Void> markAgentEnded(Long taskId, Long agentBoundId) {
+        String metaKey = buildAgentMetaKey(taskId, agentBoundId);
+        return reactiveRedisTemplate.opsForHash()
+                .put(metaKey, META_ENDED_AT, LocalDateTime.now().toString())
+                .then();
+    }
+}
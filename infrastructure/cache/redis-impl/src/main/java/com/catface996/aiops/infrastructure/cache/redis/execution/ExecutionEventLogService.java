@@ -0,0 +1,244 @@
+package com.catface996.aiops.infrastructure.cache.redis.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 执行事件日志服务（Redis Stream）
+ *
+ * <p>按诊断任务记录执行事件，用于 SSE 断线后从指定事件续传，而不必重新触发执行。</p>
+ *
+ * <p>Key 命名规范：</p>
+ * <ul>
+ *   <li>事件日志：execution:events:{taskId}（Stream，条目ID为 0-{sequence}）</li>
+ *   <li>新条目通知：execution:events:notify:{taskId}（pub/sub 频道，消息为本批最后一个序号）</li>
+ * </ul>
+ *
+ * <p>条目ID直接由任务内单调递增的事件序号构成，客户端的 Last-Event-ID 即序号，续传时无需额外映射。
+ * 事件条目的字段为 event（事件 JSON），结束标记条目的字段为 end。
+ * Stream 长度近似限制在 {@code execution.event-log.max-length} 以内，执行结束后 TTL 缩短为
+ * {@code execution.event-log.ended-ttl-seconds}。</p>
+ *
+ * <p>执行只在触发它的实例上消费 Executor 事件流；其他实例的续传与观看连接跟随本日志，
+ * 由每批写入时发布的通知唤醒读取，通知丢失时按兜底间隔轮询。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Service
+public class ExecutionEventLogService {
+
+    private static final String KEY_PREFIX = "execution:events:";
+    private static final String CHANNEL_PREFIX = "execution:events:notify:";
+    private static final String FIELD_EVENT = "event";
+    private static final String FIELD_END = "end";
+
+    /**
+     * 批量追加条目并刷新 TTL
+     *
+     * <p>ARGV: maxLength, ttlSeconds, channel, 之后每三个参数为一个条目 (sequence, field, value)；
+     * 写入后向 channel 发布本批最后一个序号。</p>
+     */
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            for i = 4, #ARGV, 3 do
+                redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], '0-' .. ARGV[i], ARGV[i + 1], ARGV[i + 2])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            redis.call('PUBLISH', ARGV[3], ARGV[#ARGV - 2])
+            return (#ARGV - 3) / 3
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final long maxLength;
+    private final long ttlSeconds;
+    private final long endedTtlSeconds;
+    private final int readBatchSize;
+    private final Duration pollInterval;
+    private final long idleTimeoutNanos;
+
+    public ExecutionEventLogService(
+            ReactiveStringRedisTemplate redisTemplate,
+            ReactiveRedisMessageListenerContainer listenerContainer,
+            @Value("${execution.event-log.max-length:20000}") long maxLength,
+            @Value("${execution.event-log.ttl-seconds:86400}") long ttlSeconds,
+            @Value("${execution.event-log.ended-ttl-seconds:3600}") long endedTtlSeconds,
+            @Value("${execution.event-log.read-batch-size:500}") int readBatchSize,
+            @Value("${execution.event-log.poll-interval-ms:1000}") long pollIntervalMs,
+            @Value("${execution.event-log.idle-timeout-ms:300000}") long idleTimeoutMs) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.maxLength = maxLength;
+        this.ttlSeconds = ttlSeconds;
+        this.endedTtlSeconds = endedTtlSeconds;
+        this.readBatchSize = readBatchSize;
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.idleTimeoutNanos = Duration.ofMillis(idleTimeoutMs).toNanos();
+    }
+
+    /**
+     * 批量追加事件（一次脚本调用）
+     *
+     * @param taskId  诊断任务ID
+     * @param entries 事件条目，序号必须严格递增且大于已写入的序号
+     * @return 写入完成信号
+     */
+    public Mono<Void> append(Long taskId, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return Mono.empty();
+        }
+        List<String> args = new ArrayList<>(3 + entries.size() * 3);
+        args.add(String.valueOf(maxLength));
+        args.add(String.valueOf(ttlSeconds));
+        args.add(buildChannel(taskId));
+        for (Entry entry : entries) {
+            args.add(String.valueOf(entry.sequence()));
+            args.add(FIELD_EVENT);
+            args.add(entry.event());
+        }
+        return redisTemplate.execute(APPEND_SCRIPT, List.of(buildKey(taskId)), args).then();
+    }
+
+    /**
+     * 写入结束标记，并将日志 TTL 缩短为结束后的保留时间
+     *
+     * @param taskId   诊断任务ID
+     * @param sequence 结束标记的序号（大于最后一个事件的序号）
+     * @return 写入完成信号
+     */
+    public Mono<Void> markEnded(Long taskId, long sequence) {
+        List<String> args = List.of(String.valueOf(maxLength), String.valueOf(endedTtlSeconds),
+                buildChannel(taskId), String.valueOf(sequence), FIELD_END, "1");
+        return redisTemplate.execute(APPEND_SCRIPT, List.of(buildKey(taskId)), args).then();
+    }
+
+    /**
+     * 查询事件日志中最早保留条目的序号
+     *
+     * <p>日志超过 {@code max-length} 后早期条目被截断，续传起点早于该序号时中间的事件已丢失。</p>
+     *
+     * @param taskId 诊断任务ID
+     * @return 最早保留的序号；日志不存在时为空
+     */
+    public Mono<Long> firstSequence(Long taskId) {
+        return redisTemplate.<String, String>opsForStream()
+                .range(buildKey(taskId), Range.unbounded(), Limit.limit().count(1))
+                .next()
+                .map(record -> record.getId().getSequence());
+    }
+
+    /**
+     * 查询事件日志中最后一个条目的序号（包含结束标记）
+     *
+     * @param taskId 诊断任务ID
+     * @return 最后一个序号；日志不存在时为空
+     */
+    public Mono<Long> lastSequence(Long taskId) {
+        return redisTemplate.<String, String>opsForStream()
+                .reverseRange(buildKey(taskId), Range.unbounded(), Limit.limit().count(1))
+                .next()
+                .map(record -> record.getId().getSequence());
+    }
+
+    /**
+     * 读取指定序号之后的事件，并持续跟随新写入的事件
+     *
+     * <p>先按批回放已有事件，追上后等待新条目通知（兜底按 {@code poll-interval-ms} 轮询）再读取；
+     * 读取进行中到达的多个信号只保留一个。读到结束标记，或超过 {@code idle-timeout-ms} 没有新事件时完成。
+     * 返回的条目不包含结束标记。</p>
+     *
+     * @param taskId        诊断任务ID
+     * @param afterSequence 客户端已收到的最后一个事件序号，0 表示从头读取
+     * @return 事件流
+     */
+    public Flux<Entry> readFrom(Long taskId, long afterSequence) {
+        String key = buildKey(taskId);
+        return Flux.defer(() -> {
+            TailState state = new TailState(afterSequence);
+            Flux<Object> signals = Flux.<Object>merge(
+                            Flux.interval(Duration.ZERO, pollInterval),
+                            listenerContainer.receive(ChannelTopic.of(buildChannel(taskId))))
+                    .onBackpressureLatest();
+            return signals
+                    .concatMap(signal -> readAvailable(key, state), 1)
+                    .takeUntil(entry -> entry.event() == null)
+                    .filter(entry -> entry.event() != null);
+        });
+    }
+
+    /**
+     * 读取游标之后的全部已有条目；没有新条目且已空闲超时时返回一个结束标记
+     */
+    private Flux<Entry> readAvailable(String key, TailState state) {
+        return readBatch(key, state)
+                .expand(batch -> batch.size() < readBatchSize ? Mono.empty() : readBatch(key, state))
+                .flatMapIterable(batch -> {
+                    if (batch.isEmpty() && System.nanoTime() - state.lastActivityNanos > idleTimeoutNanos) {
+                        return List.of(new Entry(state.cursor, null));
+                    }
+                    return batch;
+                });
+    }
+
+    private Mono<List<Entry>> readBatch(String key, TailState state) {
+        return Mono.defer(() -> {
+            Range<String> range = Range.rightUnbounded(Range.Bound.inclusive("0-" + (state.cursor + 1)));
+            return redisTemplate.<String, String>opsForStream()
+                    .range(key, range, Limit.limit().count(readBatchSize))
+                    .map(this::toEntry)
+                    .collectList();
+        }).doOnNext(batch -> {
+            if (!batch.isEmpty()) {
+                state.cursor = batch.get(batch.size() - 1).sequence();
+                state.lastActivityNanos = System.nanoTime();
+            }
+        });
+    }
+
+    private Entry toEntry(MapRecord<String, String, String> record) {
+        return new Entry(record.getId().getSequence(), record.getValue().get(FIELD_EVENT));
+    }
+
+    private String buildKey(Long taskId) {
+        return KEY_PREFIX + taskId;
+    }
+
+    private String buildChannel(Long taskId) {
+        return CHANNEL_PREFIX + taskId;
+    }
+
+    /**
+     * 日志条目
+     *
+     * @param sequence 事件序号（任务内单调递增）
+     * @param event    事件 JSON；结束标记为 null
+     */
+    public record Entry(long sequence, String event) {
+    }
+
+    /**
+     * 单次读取的跟随状态（concatMap 串行读取，无需并发容器）
+     */
+    private static final class TailState {
+        private long cursor;
+        private long lastActivityNanos = System.nanoTime();
+
+        private TailState(long cursor) {
+            this.cursor = cursor;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.catface996.aiops.infrastructure.cache.redis.execution;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Executor 层级结构缓存服务（响应式）
+ *
+ * <p>缓存 CreateHierarchyRequest 内容指纹到 Executor hierarchyId 的映射，
+ * 拓扑内容未变化时复用已创建的层级结构，跳过 createHierarchy 调用。</p>
+ *
+ * <p>Key 命名规范：</p>
+ * <ul>
+ *   <li>层级结构映射：executor:hierarchy:{fingerprint}</li>
+ * </ul>
+ *
+ * <p>Key 按内容寻址：Agent、绑定关系或提示词变化会得到新的指纹，无需主动失效，旧映射随 TTL 过期。
+ * 所有操作基于 {@link ReactiveStringRedisTemplate}，在执行链路中组合时不会阻塞 Netty 事件循环线程。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Service
+public class ExecutorHierarchyCacheService {
+
+    private static final String KEY_PREFIX = "executor:hierarchy:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public ExecutorHierarchyCacheService(
+            ReactiveStringRedisTemplate redisTemplate,
+            @Value("${executor.hierarchy-cache.ttl-seconds:86400}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    /**
+     * 获取指纹对应的 hierarchyId
+     *
+     * @param fingerprint 层级结构内容指纹
+     * @return hierarchyId，未命中时为空
+     */
+    public Mono<String> getHierarchyId(String fingerprint) {
+        return redisTemplate.opsForValue().get(buildHierarchyKey(fingerprint));
+    }
+
+    /**
+     * 保存指纹对应的 hierarchyId
+     *
+     * @param fingerprint 层级结构内容指纹
+     * @param hierarchyId Executor 层级结构ID
+     * @return 写入完成信号
+     */
+    public Mono<Void> putHierarchyId(String fingerprint, String hierarchyId) {
+        return redisTemplate.opsForValue().set(buildHierarchyKey(fingerprint), hierarchyId, ttl).then();
+    }
+
+    /**
+     * 移除指纹对应的映射（如 Executor 侧层级结构已失效）
+     *
+     * @param fingerprint 层级结构内容指纹
+     * @return 删除完成信号
+     */
+    public Mono<Void> evict(String fingerprint) {
+        return redisTemplate.delete(buildHierarchyKey(fingerprint)).then();
+    }
+
+    private static String buildHierarchyKey(String fingerprint) {
+        return KEY_PREFIX + fingerprint;
+    }
+}
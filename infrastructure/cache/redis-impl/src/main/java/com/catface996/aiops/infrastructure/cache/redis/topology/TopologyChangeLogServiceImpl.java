@@ -0,0 +1,167 @@
+package com.catface996.aiops.infrastructure.cache.redis.topology;
+
+import com.catface996.aiops.infrastructure.cache.api.service.TopologyChangeLogService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 拓扑图变更日志服务实现（Redis）
+ *
+ * <p>Key 命名规范：</p>
+ * <ul>
+ *   <li>版本号：topology:graph:{topologyId}:version（计数器）</li>
+ *   <li>变更集合：topology:graph:{topologyId}:changes（ZSet，member 为 N:{nodeId} / E:{edgeId}，score 为最近变更版本号）</li>
+ *   <li>截断水位：topology:graph:{topologyId}:truncated（被裁剪掉的最大版本号）</li>
+ * </ul>
+ *
+ * <p>Key 中拓扑图ID两侧的花括号为集群哈希标签，保证同一拓扑图的 Key 位于同一槽位，可在一个脚本内操作。</p>
+ *
+ * <p>同一实体多次变更只保留最新版本号，集合大小不超过 {@code topology.change-log.max-entries}；
+ * 超出时按版本号从旧到新裁剪并提升截断水位，早于水位的客户端需要全量同步。
+ * 版本递增、写入和裁剪在一个 Lua 脚本内原子执行；增量查询同样在一个脚本内读取版本号、水位和变更集合，
+ * 不会与并发的裁剪交错。</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Service
+public class TopologyChangeLogServiceImpl implements TopologyChangeLogService {
+
+    private static final String KEY_PREFIX = "topology:graph:";
+    private static final String NODE_MEMBER_PREFIX = "N:";
+    private static final String EDGE_MEMBER_PREFIX = "E:";
+
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>("""
+            local version = redis.call('INCR', KEYS[1])
+            for i = 2, #ARGV do
+                redis.call('ZADD', KEYS[2], version, ARGV[i])
+            end
+            local excess = redis.call('ZCARD', KEYS[2]) - tonumber(ARGV[1])
+            if excess > 0 then
+                local removed = redis.call('ZRANGE', KEYS[2], 0, excess - 1, 'WITHSCORES')
+                local cut = tonumber(removed[#removed])
+                local previous = tonumber(redis.call('GET', KEYS[3]) or '0')
+                if cut > previous then
+                    redis.call('SET', KEYS[3], cut)
+                end
+                redis.call('ZREMRANGEBYRANK', KEYS[2], 0, excess - 1)
+            end
+            return version
+            """, Long.class);
+
+    /**
+     * 版本号加一并将截断水位提升到新版本，之前的所有版本都需要全量同步
+     */
+    private static final RedisScript<Long> INVALIDATE_SCRIPT = new DefaultRedisScript<>("""
+            local version = redis.call('INCR', KEYS[1])
+            redis.call('SET', KEYS[2], version)
+            return version
+            """, Long.class);
+
+    /**
+     * 原子读取版本号、截断水位与指定版本之后的变更
+     *
+     * <p>返回 {version, truncated(0/1), members}；truncated 为 1 时 members 为空。</p>
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CHANGES_SCRIPT = new DefaultRedisScript<>("""
+            local version = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local truncated = tonumber(redis.call('GET', KEYS[3]) or '0')
+            local since = tonumber(ARGV[1])
+            if since > version or since < truncated then
+                return {version, 1, {}}
+            end
+            return {version, 0, redis.call('ZRANGEBYSCORE', KEYS[2], '(' .. ARGV[1], '+inf')}
+            """, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final int maxEntries;
+
+    public TopologyChangeLogServiceImpl(
+            StringRedisTemplate stringRedisTemplate,
+            @Value("${topology.change-log.max-entries:10000}") int maxEntries) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public long currentVersion(Long topologyId) {
+        return parseLong(stringRedisTemplate.opsForValue().get(versionKey(topologyId)));
+    }
+
+    @Override
+    public long record(Long topologyId, Collection<Long> nodeIds, Collection<Long> edgeIds) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(maxEntries));
+        if (nodeIds != null) {
+            nodeIds.forEach(id -> args.add(NODE_MEMBER_PREFIX + id));
+        }
+        if (edgeIds != null) {
+            edgeIds.forEach(id -> args.add(EDGE_MEMBER_PREFIX + id));
+        }
+        Long version = stringRedisTemplate.execute(RECORD_SCRIPT,
+                List.of(versionKey(topologyId), changesKey(topologyId), truncatedKey(topologyId)),
+                args.toArray());
+        return version != null ? version : 0L;
+    }
+
+    @Override
+    public long invalidate(Long topologyId) {
+        Long version = stringRedisTemplate.execute(INVALIDATE_SCRIPT,
+                List.of(versionKey(topologyId), truncatedKey(topologyId)));
+        return version != null ? version : 0L;
+    }
+
+    @Override
+    public ChangeSet changesSince(Long topologyId, long sinceVersion) {
+        List<?> result = stringRedisTemplate.execute(CHANGES_SCRIPT,
+                List.of(versionKey(topologyId), changesKey(topologyId), truncatedKey(topologyId)),
+                String.valueOf(sinceVersion));
+        if (result == null || result.size() < 3) {
+            return new ChangeSet(currentVersion(topologyId), true, Set.of(), Set.of());
+        }
+        long version = ((Number) result.get(0)).longValue();
+        if (((Number) result.get(1)).longValue() != 0) {
+            return new ChangeSet(version, true, Set.of(), Set.of());
+        }
+
+        Set<Long> nodeIds = new HashSet<>();
+        Set<Long> edgeIds = new HashSet<>();
+        if (result.get(2) instanceof List<?> members) {
+            for (Object value : members) {
+                String member = value.toString();
+                if (member.startsWith(NODE_MEMBER_PREFIX)) {
+                    nodeIds.add(Long.parseLong(member.substring(NODE_MEMBER_PREFIX.length())));
+                } else if (member.startsWith(EDGE_MEMBER_PREFIX)) {
+                    edgeIds.add(Long.parseLong(member.substring(EDGE_MEMBER_PREFIX.length())));
+                }
+            }
+        }
+        return new ChangeSet(version, false, nodeIds, edgeIds);
+    }
+
+    private static long parseLong(String value) {
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    private static String versionKey(Long topologyId) {
+        return KEY_PREFIX + "{" + topologyId + "}:version";
+    }
+
+    private static String changesKey(Long topologyId) {
+        return KEY_PREFIX + "{" + topologyId + "}:changes";
+    }
+
+    private static String truncatedKey(Long topologyId) {
+        return KEY_PREFIX + "{" + topologyId + "}:truncated";
+    }
+}
@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -73,6 +74,15 @@ public class AgentBoundRepositoryImpl implements AgentBoundRepository {
         return pos.stream().map(this::toDomain).collect(Collectors.toList());
     }
 
+    @Override
+    public void scanHierarchyMembersByTopologyId(Long topologyId, Consumer<AgentBound> consumer) {
+        if (topologyId == null) {
+            return;
+        }
+        agentBoundMapper.selectHierarchyMembersByTopologyId(topologyId,
+                context -> consumer.accept(toDomain(context.getResultObject())));
+    }
+
     @Override
     public Optional<AgentBound> findSupervisorBinding(BoundEntityType entityType, Long entityId, AgentHierarchyLevel hierarchyLevel) {
         if (entityType == null || entityId == null || hierarchyLevel == null) {
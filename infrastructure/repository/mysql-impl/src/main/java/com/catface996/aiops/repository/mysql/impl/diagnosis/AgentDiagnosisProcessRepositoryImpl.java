@@ -4,9 +4,13 @@ import com.catface996.aiops.domain.model.diagnosis.AgentDiagnosisProcess;
 import com.catface996.aiops.repository.diagnosis.AgentDiagnosisProcessRepository;
 import com.catface996.aiops.repository.mysql.mapper.diagnosis.AgentDiagnosisProcessMapper;
 import com.catface996.aiops.repository.mysql.po.diagnosis.AgentDiagnosisProcessPO;
+import com.catface996.aiops.repository.mysql.po.diagnosis.AgentDiagnosisProcessSegmentPO;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -35,10 +39,47 @@ public class AgentDiagnosisProcessRepositoryImpl implements AgentDiagnosisProces
         return agentDiagnosisProcessMapper.batchInsert(poList);
     }
 
+    @Override
+    public AgentDiagnosisProcess save(AgentDiagnosisProcess process) {
+        AgentDiagnosisProcessPO po = toPO(process);
+        po.setCreatedAt(LocalDateTime.now());
+        po.setUpdatedAt(LocalDateTime.now());
+        agentDiagnosisProcessMapper.insert(po);
+        return toDomain(po);
+    }
+
+    @Override
+    public boolean appendContent(Long id, long seq, String segment) {
+        if (segment == null || segment.isEmpty()) {
+            return false;
+        }
+        return agentDiagnosisProcessMapper.insertSegment(id, seq, segment) > 0;
+    }
+
+    @Override
+    public boolean updateEndedAt(Long id, LocalDateTime endedAt) {
+        return agentDiagnosisProcessMapper.updateEndedAt(id, endedAt) > 0;
+    }
+
     @Override
     public List<AgentDiagnosisProcess> findByTaskId(Long taskId) {
-        return agentDiagnosisProcessMapper.selectByTaskId(taskId)
-                .stream()
+        List<AgentDiagnosisProcessPO> poList = agentDiagnosisProcessMapper.selectByTaskId(taskId);
+        if (poList.isEmpty()) {
+            return List.of();
+        }
+        // 片段已按诊断过程、序号排序，追加在记录自身内容（批量保存写入）之后
+        Map<Long, StringBuilder> contents = new HashMap<>();
+        for (AgentDiagnosisProcessSegmentPO segment : agentDiagnosisProcessMapper.selectSegmentsByTaskId(taskId)) {
+            contents.computeIfAbsent(segment.getProcessId(), key -> new StringBuilder())
+                    .append(segment.getContent());
+        }
+        for (AgentDiagnosisProcessPO po : poList) {
+            StringBuilder content = contents.get(po.getId());
+            if (content != null) {
+                po.setContent(po.getContent() == null ? content.toString() : po.getContent() + content);
+            }
+        }
+        return poList.stream()
                 .map(this::toDomain)
                 .collect(Collectors.toList());
     }
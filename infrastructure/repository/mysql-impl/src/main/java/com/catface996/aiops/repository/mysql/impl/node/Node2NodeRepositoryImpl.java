@@ -8,9 +8,12 @@ import com.catface996.aiops.repository.node.Node2NodeRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +25,11 @@ import java.util.stream.Collectors;
 @Repository
 public class Node2NodeRepositoryImpl implements Node2NodeRepository {
 
+    /**
+     * 单条 IN 查询的最大元素数
+     */
+    private static final int IN_CLAUSE_BATCH_SIZE = 500;
+
     private final Node2NodeMapper node2NodeMapper;
 
     public Node2NodeRepositoryImpl(Node2NodeMapper node2NodeMapper) {
@@ -42,6 +50,61 @@ public class Node2NodeRepositoryImpl implements Node2NodeRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<RelationshipInfo> findRelationshipsByTopologyId(Long topologyId, Integer offset, Integer limit) {
+        List<Node2NodePO> pos = node2NodeMapper.selectByTopologyId(topologyId, offset != null ? offset : 0, limit);
+        return pos.stream()
+                .map(this::toRelationshipInfo)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long countRelationshipsByTopologyId(Long topologyId) {
+        return node2NodeMapper.countByTopologyId(topologyId);
+    }
+
+    @Override
+    public long streamRelationshipsByTopologyId(Long topologyId, Consumer<RelationshipInfo> consumer) {
+        long[] count = {0};
+        node2NodeMapper.streamByTopologyId(topologyId, context -> {
+            consumer.accept(toRelationshipInfo(context.getResultObject()));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    @Override
+    public List<RelationshipInfo> findIncidentRelationshipsInTopology(Long topologyId, Collection<Long> nodeIds) {
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(nodeIds);
+        List<RelationshipInfo> result = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, ids.size()));
+            for (Node2NodePO po : node2NodeMapper.selectIncidentInTopology(topologyId, batch)) {
+                result.add(toRelationshipInfo(po));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<RelationshipInfo> findRelationshipsByTopologyIdAndIds(Long topologyId, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        List<RelationshipInfo> result = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<Long> batch = idList.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, idList.size()));
+            for (Node2NodePO po : node2NodeMapper.selectByTopologyIdAndIds(topologyId, batch)) {
+                result.add(toRelationshipInfo(po));
+            }
+        }
+        return result;
+    }
+
     @Override
     public List<RelationshipInfo> findOutgoingBySourceId(Long sourceId) {
         List<Node2NodePO> pos = node2NodeMapper.selectOutgoingBySourceId(sourceId);
@@ -127,6 +190,28 @@ public class Node2NodeRepositoryImpl implements Node2NodeRepository {
         return pos.stream().map(this::toDomain).collect(Collectors.toList());
     }
 
+    @Override
+    public List<Node2Node> findBySourceIds(Collection<Long> sourceIds) {
+        if (sourceIds == null || sourceIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(sourceIds);
+        List<Node2Node> result = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, ids.size()));
+            for (Node2NodePO po : node2NodeMapper.selectBySourceIds(batch)) {
+                result.add(toDomain(po));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Node2Node> findAllOrderBySourceId() {
+        List<Node2NodePO> pos = node2NodeMapper.selectAllOrderBySourceId();
+        return pos.stream().map(this::toDomain).collect(Collectors.toList());
+    }
+
     @Override
     public List<Node2Node> findByTargetId(Long targetId) {
         List<Node2NodePO> pos = node2NodeMapper.selectByTargetId(targetId);
@@ -138,6 +223,20 @@ public class Node2NodeRepositoryImpl implements Node2NodeRepository {
         node2NodeMapper.deleteBySourceAndTargetAndType(sourceId, targetId, type.name());
     }
 
+    @Override
+    public long lockForCreate() {
+        Long version = node2NodeMapper.lockForCreate();
+        if (version == null) {
+            throw new IllegalStateException("node_2_node_create_lock 锁行不存在，请检查数据库迁移 V41");
+        }
+        return version;
+    }
+
+    @Override
+    public void incrementVersion() {
+        node2NodeMapper.incrementVersion();
+    }
+
     // ==================== 转换方法 ====================
 
     private RelationshipInfo toRelationshipInfo(Node2NodePO po) {
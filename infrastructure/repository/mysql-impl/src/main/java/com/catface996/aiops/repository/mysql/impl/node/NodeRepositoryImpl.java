@@ -11,7 +11,11 @@ import com.catface996.aiops.repository.node.NodeRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,6 +28,11 @@ import java.util.stream.Collectors;
 @Repository
 public class NodeRepositoryImpl implements NodeRepository {
 
+    /**
+     * 单条 IN 查询的最大元素数
+     */
+    private static final int IN_CLAUSE_BATCH_SIZE = 500;
+
     private final NodeMapper nodeMapper;
 
     public NodeRepositoryImpl(NodeMapper nodeMapper) {
@@ -120,6 +129,22 @@ public class NodeRepositoryImpl implements NodeRepository {
         return nodeMapper.findExistingIds(ids);
     }
 
+    @Override
+    public Map<Long, String> findNamesByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        Map<Long, String> names = new HashMap<>(idList.size() * 2);
+        for (int from = 0; from < idList.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<Long> batch = idList.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, idList.size()));
+            for (NodePO po : nodeMapper.selectNamesByIds(batch)) {
+                names.put(po.getId(), po.getName());
+            }
+        }
+        return names;
+    }
+
     // ==================== 转换方法 ====================
 
     private Node toDomain(NodePO po) {
@@ -3,10 +3,17 @@ package com.catface996.aiops.repository.mysql.impl.topology;
 import com.catface996.aiops.repository.mysql.mapper.topology.Topology2NodeMapper;
 import com.catface996.aiops.repository.mysql.po.topology.Topology2NodePO;
 import com.catface996.aiops.repository.topology2.Topology2NodeRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -18,10 +25,18 @@ import java.util.stream.Collectors;
 @Repository
 public class Topology2NodeRepositoryImpl implements Topology2NodeRepository {
 
+    /**
+     * 单条 IN 查询的最大元素数
+     */
+    private static final int IN_CLAUSE_BATCH_SIZE = 500;
+
     private final Topology2NodeMapper topology2NodeMapper;
+    private final int memberBatchSize;
 
-    public Topology2NodeRepositoryImpl(Topology2NodeMapper topology2NodeMapper) {
+    public Topology2NodeRepositoryImpl(Topology2NodeMapper topology2NodeMapper,
+                                       @Value("${topology.member.batch-size:500}") int memberBatchSize) {
         this.topology2NodeMapper = topology2NodeMapper;
+        this.memberBatchSize = Math.max(memberBatchSize, 1);
     }
 
     @Override
@@ -36,10 +51,15 @@ public class Topology2NodeRepositoryImpl implements Topology2NodeRepository {
 
     @Override
     public void addMembers(Long topologyId, List<Long> nodeIds, Long addedBy) {
-        for (Long nodeId : nodeIds) {
-            if (!existsByTopologyIdAndNodeId(topologyId, nodeId)) {
-                addMember(topologyId, nodeId, addedBy);
-            }
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return;
+        }
+        // 多行 INSERT ... ON DUPLICATE KEY，每批一次往返，已是成员的节点由唯一键去重
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(nodeIds));
+        LocalDateTime addedAt = LocalDateTime.now();
+        for (int from = 0; from < ids.size(); from += memberBatchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + memberBatchSize, ids.size()));
+            topology2NodeMapper.batchInsertIgnoreExisting(topologyId, batch, addedAt, addedBy);
         }
     }
 
@@ -50,8 +70,12 @@ public class Topology2NodeRepositoryImpl implements Topology2NodeRepository {
 
     @Override
     public void removeMembers(Long topologyId, List<Long> nodeIds) {
-        for (Long nodeId : nodeIds) {
-            removeMember(topologyId, nodeId);
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < nodeIds.size(); from += memberBatchSize) {
+            List<Long> batch = nodeIds.subList(from, Math.min(from + memberBatchSize, nodeIds.size()));
+            topology2NodeMapper.deleteByTopologyIdAndNodeIds(topologyId, batch);
         }
     }
 
@@ -80,24 +104,63 @@ public class Topology2NodeRepositoryImpl implements Topology2NodeRepository {
         return topology2NodeMapper.countByTopologyId(topologyId);
     }
 
+    @Override
+    public Map<Long, Integer> countByTopologyIds(List<Long> topologyIds) {
+        if (topologyIds == null || topologyIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Integer> countMap = new HashMap<>();
+        for (Map<String, Object> result : topology2NodeMapper.countGroupByTopologyIds(topologyIds)) {
+            Long topologyId = ((Number) result.get("topologyId")).longValue();
+            Integer count = ((Number) result.get("count")).intValue();
+            countMap.put(topologyId, count);
+        }
+        return countMap;
+    }
+
     @Override
     public List<MemberInfo> findMembersByTopologyId(Long topologyId) {
         return topology2NodeMapper.selectMembersByTopologyId(topologyId)
                 .stream()
-                .map(po -> new MemberInfo(
-                        po.getId(),
-                        po.getTopologyId(),
-                        po.getNodeId(),
-                        po.getNodeName(),
-                        po.getNodeTypeCode(),
-                        po.getNodeTypeName(),
-                        po.getNodeStatus(),
-                        po.getNodeLayer(),
-                        po.getPositionX(),
-                        po.getPositionY(),
-                        po.getAddedAt(),
-                        po.getAddedBy()
-                ))
+                .map(this::toMemberInfo)
                 .collect(Collectors.toList());
     }
+
+    @Override
+    public List<MemberInfo> findMembersByTopologyIdAndNodeIds(Long topologyId, Collection<Long> nodeIds) {
+        if (nodeIds == null || nodeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Long> ids = new ArrayList<>(nodeIds);
+        List<MemberInfo> result = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, ids.size()));
+            for (Topology2NodePO po : topology2NodeMapper.selectMembersByTopologyIdAndNodeIds(topologyId, batch)) {
+                result.add(toMemberInfo(po));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Long> findTopologyIdsByNodeId(Long nodeId) {
+        return topology2NodeMapper.selectTopologyIdsByNodeId(nodeId);
+    }
+
+    private MemberInfo toMemberInfo(Topology2NodePO po) {
+        return new MemberInfo(
+                po.getId(),
+                po.getTopologyId(),
+                po.getNodeId(),
+                po.getNodeName(),
+                po.getNodeTypeCode(),
+                po.getNodeTypeName(),
+                po.getNodeStatus(),
+                po.getNodeLayer(),
+                po.getPositionX(),
+                po.getPositionY(),
+                po.getAddedAt(),
+                po.getAddedBy()
+        );
+    }
 }
@@ -21,6 +21,11 @@ import java.util.stream.Collectors;
 @Repository
 public class TopologyReportTemplateRepositoryImpl implements TopologyReportTemplateRepository {
 
+    /**
+     * 单条多行 INSERT 的最大行数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+
     private final TopologyReportTemplateMapper topologyReportTemplateMapper;
 
     public TopologyReportTemplateRepositoryImpl(TopologyReportTemplateMapper topologyReportTemplateMapper) {
@@ -39,12 +44,16 @@ public class TopologyReportTemplateRepositoryImpl implements TopologyReportTempl
 
     @Override
     public int bindBatch(Long topologyId, List<Long> reportTemplateIds, Long createdBy) {
+        if (reportTemplateIds == null || reportTemplateIds.isEmpty()) {
+            return 0;
+        }
+        // 多行 INSERT IGNORE，已绑定的模板由唯一键忽略，成功数量取数据库返回的插入行数
+        LocalDateTime createdAt = LocalDateTime.now();
         int successCount = 0;
-        for (Long reportTemplateId : reportTemplateIds) {
-            if (!existsByTopologyIdAndTemplateId(topologyId, reportTemplateId)) {
-                bind(topologyId, reportTemplateId, createdBy);
-                successCount++;
-            }
+        for (int from = 0; from < reportTemplateIds.size(); from += INSERT_BATCH_SIZE) {
+            List<Long> batch = reportTemplateIds.subList(from,
+                    Math.min(from + INSERT_BATCH_SIZE, reportTemplateIds.size()));
+            successCount += topologyReportTemplateMapper.batchInsertIgnore(topologyId, batch, createdBy, createdAt);
         }
         return successCount;
     }
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.catface996.aiops.repository.mysql.po.agentbound.AgentBoundPO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 
@@ -50,6 +51,18 @@ public interface AgentBoundMapper extends BaseMapper<AgentBoundPO> {
      */
     List<AgentBoundPO> selectHierarchyByTopologyId(@Param("topologyId") Long topologyId);
 
+    /**
+     * 流式查询 Topology 的层级成员（不分页）
+     *
+     * <p>先返回 Global Supervisor 绑定，再按 Node 分组返回成员 Node 及其绑定，
+     * 未绑定 Agent 的 Node 也返回一行（Agent 相关字段为 null）。</p>
+     *
+     * @param topologyId Topology ID
+     * @param handler    逐行处理器
+     */
+    void selectHierarchyMembersByTopologyId(@Param("topologyId") Long topologyId,
+                                            ResultHandler<AgentBoundPO> handler);
+
     /**
      * 检查是否存在指定类型的绑定
      *
@@ -2,6 +2,7 @@ package com.catface996.aiops.repository.mysql.mapper.diagnosis;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.catface996.aiops.repository.mysql.po.diagnosis.AgentDiagnosisProcessPO;
+import com.catface996.aiops.repository.mysql.po.diagnosis.AgentDiagnosisProcessSegmentPO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -39,4 +40,32 @@ public interface AgentDiagnosisProcessMapper extends BaseMapper<AgentDiagnosisPr
      * @return 插入行数
      */
     int batchInsert(@Param("list") List<AgentDiagnosisProcessPO> processes);
+
+    /**
+     * 插入诊断内容片段（同一序号已存在时忽略）
+     *
+     * @param processId Agent诊断过程ID
+     * @param seq       片段序号
+     * @param segment   内容片段
+     * @return 影响行数
+     */
+    int insertSegment(@Param("processId") Long processId, @Param("seq") long seq,
+                      @Param("segment") String segment);
+
+    /**
+     * 根据诊断任务ID查询所有内容片段
+     *
+     * @param taskId 诊断任务ID
+     * @return 按诊断过程ID、片段序号排序的内容片段列表
+     */
+    List<AgentDiagnosisProcessSegmentPO> selectSegmentsByTaskId(@Param("taskId") Long taskId);
+
+    /**
+     * 更新Agent结束诊断时间
+     *
+     * @param id      Agent诊断过程ID
+     * @param endedAt 结束时间
+     * @return 影响行数
+     */
+    int updateEndedAt(@Param("id") Long id, @Param("endedAt") java.time.LocalDateTime endedAt);
 }
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.catface996.aiops.repository.mysql.po.node.Node2NodePO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
 
 import java.util.List;
 
@@ -52,6 +53,56 @@ public interface Node2NodeMapper extends BaseMapper<Node2NodePO> {
      */
     List<Node2NodePO> selectByNodeIds(@Param("nodeIds") List<Long> nodeIds);
 
+    /**
+     * 查询拓扑图成员节点之间的关系
+     *
+     * @param topologyId 拓扑图ID
+     * @param offset     偏移量（limit 为空时忽略）
+     * @param limit      最大条数（为空时不分页）
+     * @return 关系列表（按关系ID排序）
+     */
+    List<Node2NodePO> selectByTopologyId(@Param("topologyId") Long topologyId,
+                                         @Param("offset") Integer offset,
+                                         @Param("limit") Integer limit);
+
+    /**
+     * 统计拓扑图成员节点之间的关系数量
+     *
+     * @param topologyId 拓扑图ID
+     * @return 数量
+     */
+    long countByTopologyId(@Param("topologyId") Long topologyId);
+
+    /**
+     * 流式查询拓扑图成员节点之间的关系（逐行回调，不构建结果列表）
+     *
+     * <p>仅返回拓扑图渲染所需的列。</p>
+     *
+     * @param topologyId 拓扑图ID
+     * @param handler    行回调
+     */
+    void streamByTopologyId(@Param("topologyId") Long topologyId, ResultHandler<Node2NodePO> handler);
+
+    /**
+     * 查询与指定节点相连、且两端都属于拓扑图的关系
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    节点ID列表
+     * @return 关系列表
+     */
+    List<Node2NodePO> selectIncidentInTopology(@Param("topologyId") Long topologyId,
+                                               @Param("nodeIds") List<Long> nodeIds);
+
+    /**
+     * 按ID查询关系，仅返回两端都属于拓扑图的关系
+     *
+     * @param topologyId 拓扑图ID
+     * @param ids        关系ID列表
+     * @return 关系列表
+     */
+    List<Node2NodePO> selectByTopologyIdAndIds(@Param("topologyId") Long topologyId,
+                                               @Param("ids") List<Long> ids);
+
     // ==================== CRUD 方法（新增）====================
 
     /**
@@ -106,6 +157,21 @@ public interface Node2NodeMapper extends BaseMapper<Node2NodePO> {
      */
     List<Node2NodePO> selectBySourceId(@Param("sourceId") Long sourceId);
 
+    /**
+     * 批量查询多个源节点的所有关系
+     *
+     * @param sourceIds 源节点ID列表
+     * @return 关系列表（按源节点排序）
+     */
+    List<Node2NodePO> selectBySourceIds(@Param("sourceIds") List<Long> sourceIds);
+
+    /**
+     * 查询全部关系（按源节点排序）
+     *
+     * @return 关系列表
+     */
+    List<Node2NodePO> selectAllOrderBySourceId();
+
     /**
      * 查询目标节点的所有关系
      *
@@ -125,4 +191,18 @@ public interface Node2NodeMapper extends BaseMapper<Node2NodePO> {
     int deleteBySourceAndTargetAndType(@Param("sourceId") Long sourceId,
                                         @Param("targetId") Long targetId,
                                         @Param("relationshipType") String relationshipType);
+
+    /**
+     * 锁定关系创建锁行（SELECT ... FOR UPDATE，锁随事务结束释放）
+     *
+     * @return 关系版本号，锁行不存在时为 null
+     */
+    Long lockForCreate();
+
+    /**
+     * 递增关系版本号
+     *
+     * @return 更新的记录数
+     */
+    int incrementVersion();
 }
@@ -86,4 +86,12 @@ public interface NodeMapper extends BaseMapper<NodePO> {
      * @return 存在的节点ID列表
      */
     List<Long> findExistingIds(@Param("nodeIds") List<Long> nodeIds);
+
+    /**
+     * 批量查询节点名称（仅填充 id 和 name）
+     *
+     * @param nodeIds 节点ID列表
+     * @return 节点列表
+     */
+    List<NodePO> selectNamesByIds(@Param("nodeIds") List<Long> nodeIds);
 }
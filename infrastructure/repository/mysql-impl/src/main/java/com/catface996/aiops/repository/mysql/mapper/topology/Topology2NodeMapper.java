@@ -5,7 +5,9 @@ import com.catface996.aiops.repository.mysql.po.topology.Topology2NodePO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 拓扑图-节点关联 Mapper 接口
@@ -68,6 +70,14 @@ public interface Topology2NodeMapper extends BaseMapper<Topology2NodePO> {
      */
     int countByTopologyId(@Param("topologyId") Long topologyId);
 
+    /**
+     * 批量统计多个拓扑图的成员数量
+     *
+     * @param topologyIds 拓扑图ID列表
+     * @return topologyId -> count 的列表（无成员的拓扑图不返回）
+     */
+    List<Map<String, Object>> countGroupByTopologyIds(@Param("topologyIds") List<Long> topologyIds);
+
     /**
      * 查询拓扑图的所有节点ID
      *
@@ -76,6 +86,24 @@ public interface Topology2NodeMapper extends BaseMapper<Topology2NodePO> {
      */
     List<Long> selectNodeIdsByTopologyId(@Param("topologyId") Long topologyId);
 
+    /**
+     * 查询拓扑图中指定节点的成员详情
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    节点ID列表
+     * @return 成员列表（不属于该拓扑图的节点不返回）
+     */
+    List<Topology2NodePO> selectMembersByTopologyIdAndNodeIds(@Param("topologyId") Long topologyId,
+                                                              @Param("nodeIds") List<Long> nodeIds);
+
+    /**
+     * 查询包含指定节点的所有拓扑图ID
+     *
+     * @param nodeId 节点ID
+     * @return 拓扑图ID列表
+     */
+    List<Long> selectTopologyIdsByNodeId(@Param("nodeId") Long nodeId);
+
     /**
      * 删除指定拓扑图和节点的关联
      *
@@ -84,4 +112,28 @@ public interface Topology2NodeMapper extends BaseMapper<Topology2NodePO> {
      * @return 删除的记录数
      */
     int deleteByTopologyIdAndNodeId(@Param("topologyId") Long topologyId, @Param("nodeId") Long nodeId);
+
+    /**
+     * 批量添加成员（已存在的关联保持不变）
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    节点ID列表
+     * @param addedAt    添加时间
+     * @param addedBy    添加者用户ID
+     * @return 影响行数
+     */
+    int batchInsertIgnoreExisting(@Param("topologyId") Long topologyId,
+                                  @Param("nodeIds") List<Long> nodeIds,
+                                  @Param("addedAt") LocalDateTime addedAt,
+                                  @Param("addedBy") Long addedBy);
+
+    /**
+     * 批量删除拓扑图中指定节点的关联
+     *
+     * @param topologyId 拓扑图ID
+     * @param nodeIds    节点ID列表
+     * @return 删除的记录数
+     */
+    int deleteByTopologyIdAndNodeIds(@Param("topologyId") Long topologyId,
+                                     @Param("nodeIds") List<Long> nodeIds);
 }
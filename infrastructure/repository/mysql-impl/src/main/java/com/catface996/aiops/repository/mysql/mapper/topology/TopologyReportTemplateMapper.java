@@ -8,6 +8,7 @@ import com.catface996.aiops.repository.mysql.po.topology.TopologyReportTemplateP
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -32,6 +33,20 @@ public interface TopologyReportTemplateMapper extends BaseMapper<TopologyReportT
             @Param("topologyId") Long topologyId,
             @Param("reportTemplateId") Long reportTemplateId);
 
+    /**
+     * 批量插入关联记录（已存在的关联被忽略）
+     *
+     * @param topologyId        拓扑图ID
+     * @param reportTemplateIds 报告模板ID列表
+     * @param createdBy         创建人ID
+     * @param createdAt         创建时间
+     * @return 实际插入的记录数
+     */
+    int batchInsertIgnore(@Param("topologyId") Long topologyId,
+                          @Param("reportTemplateIds") List<Long> reportTemplateIds,
+                          @Param("createdBy") Long createdBy,
+                          @Param("createdAt") LocalDateTime createdAt);
+
     /**
      * 批量物理删除关联记录
      *
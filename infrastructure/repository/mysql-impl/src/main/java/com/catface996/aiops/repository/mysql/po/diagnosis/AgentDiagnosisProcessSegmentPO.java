@@ -0,0 +1,34 @@
+package com.catface996.aiops.repository.mysql.po.diagnosis;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Agent诊断过程内容片段持久化对象
+ *
+ * <p>数据库表 agent_diagnosis_process_segment 的映射对象，仅用于按诊断过程拼接完整内容</p>
+ *
+ * @author AI Assistant
+ * @since 2026-10-17
+ */
+@Data
+public class AgentDiagnosisProcessSegmentPO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 关联Agent诊断过程ID
+     */
+    private Long processId;
+
+    /**
+     * 片段序号
+     */
+    private Long seq;
+
+    /**
+     * 内容片段
+     */
+    private String content;
+}
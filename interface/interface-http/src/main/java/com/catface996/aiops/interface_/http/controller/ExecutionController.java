@@ -2,8 +2,11 @@ package com.catface996.aiops.interface_.http.controller;
 
 import com.catface996.aiops.application.api.dto.execution.ExecutionEventDTO;
 import com.catface996.aiops.application.api.dto.execution.request.CancelExecutionRequest;
+import com.catface996.aiops.application.api.dto.execution.request.ResumeExecutionRequest;
 import com.catface996.aiops.application.api.dto.execution.request.TriggerExecutionRequest;
+import com.catface996.aiops.application.api.dto.execution.request.WatchExecutionRequest;
 import com.catface996.aiops.application.api.service.execution.ExecutionApplicationService;
+import com.catface996.aiops.common.exception.BusinessException;
 import com.catface996.aiops.common.result.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,18 +15,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 执行控制器
@@ -33,6 +38,8 @@ import java.util.concurrent.Executors;
  * <p>接口列表：</p>
  * <ul>
  *   <li>POST /trigger - 触发多智能体执行（SSE 流式响应）</li>
+ *   <li>POST /resume - 断线后从事件日志续传执行事件（SSE 流式响应）</li>
+ *   <li>POST /watch - 观看正在进行的执行，与触发方共享同一事件流（SSE 流式响应）</li>
  *   <li>POST /cancel - 取消正在执行的运行</li>
  * </ul>
  *
@@ -42,16 +49,22 @@ import java.util.concurrent.Executors;
 @Slf4j
 @RestController
 @RequestMapping("/api/service/v1/executions")
-@RequiredArgsConstructor
 @Tag(name = "执行管理", description = "多智能体执行相关接口（POST-Only API）")
 public class ExecutionController {
 
     private final ExecutionApplicationService executionApplicationService;
 
     /**
-     * 用于 SSE 事件推送的线程池
+     * SSE 连接超时时间（毫秒）
      */
-    private final ExecutorService sseExecutor = Executors.newCachedThreadPool();
+    private final long sseTimeoutMs;
+
+    public ExecutionController(
+            ExecutionApplicationService executionApplicationService,
+            @Value("${execution.sse.timeout-ms:600000}") long sseTimeoutMs) {
+        this.executionApplicationService = executionApplicationService;
+        this.sseTimeoutMs = sseTimeoutMs;
+    }
 
     /**
      * 触发多智能体执行
@@ -80,6 +93,15 @@ public class ExecutionController {
                     4. 启动执行运行
                     5. 通过 SSE 流式返回执行事件
 
+                    **并发限制**：同时进行的执行数超过上限时返回 429。名额在执行结束时归还，
+                    断开 SSE 连接不会释放名额。
+
+                    **断线续传**：每个事件的 SSE id 为事件序号，客户端断开后执行继续进行，
+                    可通过 `/resume` 携带最后收到的序号续传。所有连接（触发、观看、续传）断开超过
+                    `execution.hub.idle-cancel-grace-ms` 仍无人重连时，执行被取消。
+
+                    **多人观看**：其他用户可通过 `/watch` 携带 started 事件中的 taskId 观看同一执行。
+
                     **事件类型**：
                     - `thinking`: Agent 思考中
                     - `message`: Agent 消息
@@ -114,6 +136,14 @@ public class ExecutionController {
                             schema = @Schema(implementation = Result.class)
                     )
             ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "并发执行数已达上限",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = Result.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "503",
                     description = "Executor 服务不可用",
@@ -127,63 +157,178 @@ public class ExecutionController {
     public SseEmitter triggerExecution(@Valid @RequestBody TriggerExecutionRequest request) {
         log.info("Received execution request for topology: {}", request.getTopologyId());
 
-        // 创建 SSE Emitter，设置较长的超时时间（10分钟）
-        SseEmitter emitter = new SseEmitter(600000L);
+        // 准入控制在执行服务中完成：并发执行数已达上限时抛出 TOO_MANY_EXECUTIONS，由全局异常处理器返回 429。
+        // 许可随执行流终止归还；本连接断开只取消本连接的订阅，所有连接断开超过宽限期后由多播中心取消执行
+        Flux<ExecutionEventDTO> events;
+        try {
+            events = executionApplicationService.triggerExecution(request);
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to start execution: {}", e.getMessage(), e);
+            SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("message")
+                        .data(ExecutionEventDTO.error("Failed to start execution: " + e.getMessage()),
+                                MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException ex) {
+                log.error("Failed to send error event: {}", ex.getMessage());
+            }
+            emitter.completeWithError(e);
+            return emitter;
+        }
 
-        // 设置完成和错误回调
-        emitter.onCompletion(() -> log.info("SSE connection completed for topology: {}", request.getTopologyId()));
-        emitter.onTimeout(() -> log.warn("SSE connection timed out for topology: {}", request.getTopologyId()));
-        emitter.onError(e -> log.error("SSE connection error for topology {}: {}", request.getTopologyId(), e.getMessage()));
+        // 事件由 Reactor 推送，无需额外线程；订阅在请求线程上建立
+        return stream(events, "topology " + request.getTopologyId());
+    }
 
-        // 在后台线程中处理事件流
-        sseExecutor.execute(() -> {
-            try {
-                executionApplicationService.triggerExecution(request)
-                        .subscribe(
-                                event -> {
-                                    try {
-                                        emitter.send(SseEmitter.event()
-                                                .name("message")
-                                                .data(event, MediaType.APPLICATION_JSON));
-                                        log.debug("Sent event: type={}, agent={}", event.getType(), event.getAgentName());
-                                    } catch (IOException e) {
-                                        log.error("Failed to send SSE event: {}", e.getMessage());
-                                        emitter.completeWithError(e);
-                                    }
-                                },
-                                error -> {
-                                    log.error("Execution error: {}", error.getMessage());
-                                    try {
-                                        emitter.send(SseEmitter.event()
-                                                .name("message")
-                                                .data(ExecutionEventDTO.error(error.getMessage()), MediaType.APPLICATION_JSON));
-                                    } catch (IOException e) {
-                                        log.error("Failed to send error event: {}", e.getMessage());
-                                    }
-                                    emitter.completeWithError(error);
-                                },
-                                () -> {
-                                    log.info("Execution completed for topology: {}", request.getTopologyId());
-                                    emitter.complete();
-                                }
-                        );
-            } catch (Exception e) {
-                log.error("Failed to start execution: {}", e.getMessage(), e);
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name("message")
-                            .data(ExecutionEventDTO.error("Failed to start execution: " + e.getMessage()),
-                                    MediaType.APPLICATION_JSON));
-                } catch (IOException ex) {
-                    log.error("Failed to send error event: {}", ex.getMessage());
-                }
-                emitter.completeWithError(e);
+    /**
+     * 续传执行事件
+     *
+     * @param request     续传请求（包含 taskId，可选 lastEventId）
+     * @param lastEventId SSE 标准的 Last-Event-ID 请求头，请求体未指定 lastEventId 时使用
+     * @return SSE 事件流
+     */
+    @Operation(
+            summary = "续传执行事件",
+            description = """
+                    SSE 连接断开后从事件日志续传，不会重新触发执行。
+
+                    **续传方式**：
+                    - 每个事件的 SSE id 即事件序号（同 `sequence` 字段）
+                    - 携带最后收到的序号（请求体 `lastEventId` 或 `Last-Event-ID` 请求头），回放其后的事件
+                    - 执行仍在进行时继续推送新事件，执行结束后连接完成
+
+                    事件日志在执行结束后保留一段时间，过期后推送 error 事件并结束连接；
+                    携带的序号之后的事件已被日志长度限制截断时同样推送 error 事件，而不会跳过中间的事件。
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "SSE 事件流",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = ExecutionEventDTO.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/resume", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter resumeExecution(
+            @Valid @RequestBody ResumeExecutionRequest request,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (request.getLastEventId() == null && lastEventId != null) {
+            request.setLastEventId(lastEventId);
+        }
+        log.info("Received resume request for task: {}, lastEventId: {}", request.getTaskId(), request.getLastEventId());
+
+        // 事件日志在订阅时非阻塞查询；日志不存在或已截断时以 error 事件结束连接
+        Flux<ExecutionEventDTO> events = executionApplicationService.resumeExecution(request);
+        return stream(events, "task " + request.getTaskId());
+    }
+
+    /**
+     * 观看执行
+     *
+     * @param request 观看请求（包含 taskId）
+     * @return SSE 事件流
+     */
+    @Operation(
+            summary = "观看执行",
+            description = """
+                    附加到正在进行的执行上，多个观看者与触发方共享同一个执行事件流，不会重新触发执行，
+                    也不会向 Executor 重复拉取事件。
+
+                    **事件范围**：
+                    - 先回放最近的事件（数量由 `execution.hub.replay-window` 配置），再推送实时事件
+                    - 执行结束后连接完成；观看已结束的执行时回放最近的事件后完成
+                    - 需要完整历史时使用 `/resume`（lastEventId 为 0）
+
+                    观看连接不占用并发执行名额，断开观看连接不影响其他连接；所有连接断开超过宽限期后执行被取消。执行不存在或事件日志已过期时推送 error 事件并结束连接。
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "SSE 事件流",
+                    content = @Content(
+                            mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = ExecutionEventDTO.class)
+                    )
+            )
+    })
+    @PostMapping(value = "/watch", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter watchExecution(@Valid @RequestBody WatchExecutionRequest request) {
+        log.info("Received watch request for task: {}", request.getTaskId());
+
+        // 执行不存在时以 error 事件结束连接
+        Flux<ExecutionEventDTO> events = executionApplicationService.watchExecution(request);
+        return stream(events, "task " + request.getTaskId());
+    }
+
+    /**
+     * 为执行事件流建立 SSE 连接，连接结束（完成、超时或出错）时取消本连接的订阅
+     */
+    private SseEmitter stream(Flux<ExecutionEventDTO> events, String target) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        AtomicReference<Disposable> subscription = new AtomicReference<>();
+        Runnable cleanup = () -> {
+            Disposable disposable = subscription.get();
+            if (disposable != null) {
+                disposable.dispose();
             }
-        });
+        };
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
 
+        subscription.set(subscribe(emitter, events, cleanup, target));
         return emitter;
     }
 
+    /**
+     * 将事件流写入 SSE 连接
+     *
+     * <p>事件序号作为 SSE 事件 id，客户端断线后可据此续传。
+     * 客户端断开时只取消本连接的订阅，执行本身由多播中心继续消费并写入事件日志，
+     * 直到最后一个连接断开超过宽限期。</p>
+     */
+    private Disposable subscribe(SseEmitter emitter, Flux<ExecutionEventDTO> events, Runnable cleanup, String target) {
+        return events.subscribe(
+                event -> {
+                    try {
+                        SseEmitter.SseEventBuilder builder = SseEmitter.event().name("message");
+                        if (event.getSequence() != null) {
+                            builder.id(String.valueOf(event.getSequence()));
+                        }
+                        emitter.send(builder.data(event, MediaType.APPLICATION_JSON));
+                        log.debug("Sent event: type={}, agent={}", event.getType(), event.getAgentName());
+                    } catch (IOException | IllegalStateException e) {
+                        // 客户端已断开：取消本连接的订阅，客户端可通过 /resume 续传
+                        log.warn("Failed to send SSE event, detaching from execution stream: {}", e.getMessage());
+                        emitter.completeWithError(e);
+                        cleanup.run();
+                    }
+                },
+                error -> {
+                    log.error("Execution error: {}", error.getMessage());
+                    try {
+                        emitter.send(SseEmitter.event()
+                                .name("message")
+                                .data(ExecutionEventDTO.error(error.getMessage()), MediaType.APPLICATION_JSON));
+                    } catch (IOException | IllegalStateException e) {
+                        log.error("Failed to send error event: {}", e.getMessage());
+                    }
+                    emitter.completeWithError(error);
+                },
+                () -> {
+                    log.info("Execution stream completed for {}", target);
+                    emitter.complete();
+                }
+        );
+    }
+
     /**
      * 取消执行
      *
@@ -158,6 +158,17 @@ public class RelationshipController {
         return ResponseEntity.ok(Result.success(result));
     }
 
+    /**
+     * 检测全部循环依赖
+     */
+    @PostMapping("/cycle-detection/all")
+    @Operation(summary = "检测全部循环依赖", description = "基于强连通分量一次性返回所有循环依赖")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<Result<CycleComponentsDTO>> detectAllCycles() {
+        CycleComponentsDTO result = relationshipApplicationService.detectAllCycles();
+        return ResponseEntity.ok(Result.success(result));
+    }
+
     /**
      * 图遍历
      */
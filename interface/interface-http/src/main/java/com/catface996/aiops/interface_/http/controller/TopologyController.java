@@ -4,12 +4,14 @@ import com.catface996.aiops.application.api.dto.common.PageResult;
 import com.catface996.aiops.application.api.dto.node.NodeDTO;
 import com.catface996.aiops.application.api.dto.topology.TopologyDTO;
 import com.catface996.aiops.application.api.dto.topology.TopologyGraphDTO;
+import com.catface996.aiops.application.api.dto.topology.TopologyGraphDeltaDTO;
 import com.catface996.aiops.application.api.dto.topology.request.AddMembersRequest;
 import com.catface996.aiops.application.api.dto.topology.request.CreateTopologyRequest;
 import com.catface996.aiops.application.api.dto.topology.request.DeleteTopologyRequest;
 import com.catface996.aiops.application.api.dto.topology.request.GetTopologyRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryMembersRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryTopologiesRequest;
+import com.catface996.aiops.application.api.dto.topology.request.QueryTopologyGraphDeltaRequest;
 import com.catface996.aiops.application.api.dto.topology.request.QueryTopologyGraphRequest;
 import com.catface996.aiops.application.api.dto.topology.request.RemoveMembersRequest;
 import com.catface996.aiops.application.api.dto.topology.request.UpdateTopologyRequest;
@@ -21,6 +23,9 @@ import com.catface996.aiops.interface_.http.request.topology.QueryUnboundAgentsR
 import com.catface996.aiops.interface_.http.request.topology.QueryUnboundTemplatesRequest;
 import com.catface996.aiops.interface_.http.request.topology.UnbindReportTemplatesRequest;
 import com.catface996.aiops.interface_.http.response.Result;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -28,15 +33,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 /**
  * 拓扑图管理控制器（POST-Only API）
  *
@@ -57,6 +67,7 @@ import org.springframework.web.bind.annotation.RestController;
  *   <li>POST /api/service/v1/topologies/members/remove - 移除成员</li>
  *   <li>POST /api/service/v1/topologies/members/query - 查询成员列表</li>
  *   <li>POST /api/service/v1/topologies/graph/query - 获取拓扑图数据</li>
+ *   <li>POST /api/service/v1/topologies/graph/compact - 获取拓扑图数据（紧凑格式）</li>
  * </ul>
  *
  * <p>需求追溯：</p>
@@ -77,11 +88,14 @@ public class TopologyController {
 
     private final TopologyApplicationService topologyApplicationService;
     private final TopologyReportTemplateApplicationService topologyReportTemplateApplicationService;
+    private final ObjectMapper objectMapper;
 
     public TopologyController(TopologyApplicationService topologyApplicationService,
-                              TopologyReportTemplateApplicationService topologyReportTemplateApplicationService) {
+                              TopologyReportTemplateApplicationService topologyReportTemplateApplicationService,
+                              ObjectMapper objectMapper) {
         this.topologyApplicationService = topologyApplicationService;
         this.topologyReportTemplateApplicationService = topologyReportTemplateApplicationService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -309,7 +323,7 @@ public class TopologyController {
      * <p>获取拓扑图的节点和边数据，用于图形渲染。</p>
      */
     @PostMapping("/graph/query")
-    @Operation(summary = "获取拓扑图数据", description = "获取拓扑图的节点和边数据，用于图形渲染")
+    @Operation(summary = "获取拓扑图数据", description = "获取拓扑图的节点和边数据，用于图形渲染。指定 focusNodeId 时只返回其 depth 跳以内的邻域子图（包含邻域节点之间的全部边），指定 edgeSize 时对边分页")
     @SecurityRequirement(name = "bearerAuth")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "查询成功",
@@ -327,6 +341,74 @@ public class TopologyController {
         return ResponseEntity.ok(Result.success(result));
     }
 
+    /**
+     * 获取拓扑图数据（紧凑格式）
+     *
+     * <p>与 /graph/query 参数相同，data 为列式 + 字典编码的拓扑图数据，边从数据库逐行流式写出，
+     * 适用于数万条边的大拓扑图。</p>
+     */
+    @PostMapping(value = "/graph/compact", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "获取拓扑图数据（紧凑格式）",
+            description = "节点按列输出为并列数组，边展平为数值数组（字段顺序见 edgeFields），枚举字段输出为 dictionaries 中的下标")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "401", description = "未认证"),
+            @ApiResponse(responseCode = "404", description = "拓扑图不存在")
+    })
+    public void getTopologyGraphCompact(@Valid @RequestBody QueryTopologyGraphRequest request,
+                                        HttpServletResponse response) throws IOException {
+
+        log.info("获取拓扑图数据（紧凑格式），topologyId: {}", request.getTopologyId());
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        // 应用服务在写出数据前完成校验。关闭生成器时不关闭、也不刷新 Servlet 输出流：
+        // 校验失败时已写入的响应头部仍在 Servlet 缓冲区中未提交，DispatcherServlet 在异常处理前重置缓冲区，
+        // 由全局异常处理器输出错误响应
+        Result<Void> success = Result.success();
+        JsonGenerator generator = objectMapper.getFactory()
+                .createGenerator(response.getOutputStream(), JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        try {
+            // 字段与 Result 序列化结果一致（code、message、data、success）
+            generator.writeStartObject();
+            generator.writeNumberField("code", success.getCode());
+            generator.writeStringField("message", success.getMessage());
+            generator.writeFieldName("data");
+            topologyApplicationService.writeTopologyGraphCompact(request, generator);
+            generator.writeBooleanField("success", success.isSuccess());
+            generator.writeEndObject();
+        } finally {
+            generator.close();
+        }
+    }
+
+    /**
+     * 获取拓扑图增量数据
+     *
+     * <p>客户端携带上次获取的版本号，只返回之后变更的节点和边。</p>
+     */
+    @PostMapping("/graph/delta")
+    @Operation(summary = "获取拓扑图增量数据", description = "返回指定版本之后变更的节点和边，变更日志已截断时返回全量数据")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功",
+                    content = @Content(schema = @Schema(implementation = TopologyGraphDeltaDTO.class))),
+            @ApiResponse(responseCode = "401", description = "未认证"),
+            @ApiResponse(responseCode = "404", description = "拓扑图不存在")
+    })
+    public ResponseEntity<Result<TopologyGraphDeltaDTO>> getTopologyGraphDelta(
+            @Valid @RequestBody QueryTopologyGraphDeltaRequest request) {
+
+        TopologyGraphDeltaDTO result = topologyApplicationService.getTopologyGraphDelta(request);
+
+        return ResponseEntity.ok(Result.success(result));
+    }
+
     // ===== 层级团队查询接口 =====
     // Note: Global Supervisor 绑定/解绑接口已移至 /api/service/v1/agent-bounds/* (Feature 040)
     // Note: 层级团队查询接口已移至 /api/service/v1/agent-bounds/query-hierarchy (Feature 040)
@@ -59,6 +59,7 @@ import java.util.List;
  *   <li>NOT_FOUND_xxx → 404 Not Found（资源不存在）</li>
  *   <li>CONFLICT_xxx → 409 Conflict（资源冲突）</li>
  *   <li>LOCKED_xxx → 423 Locked（资源被锁定）</li>
+ *   <li>THROTTLE_xxx → 429 Too Many Requests（请求过多）</li>
  *   <li>SYS_xxx → 500 Internal Server Error（系统错误）</li>
  *   <li>其他 → 200 OK（业务异常，通过响应体中的code区分）</li>
  * </ul>
@@ -209,6 +210,7 @@ public class GlobalExceptionHandler {
      *   <li>NOT_FOUND_ → 404 Not Found（资源不存在）</li>
      *   <li>CONFLICT_ → 409 Conflict（资源冲突）</li>
      *   <li>LOCKED_ → 423 Locked（资源被锁定）</li>
+     *   <li>THROTTLE_ → 429 Too Many Requests（请求过多）</li>
      *   <li>其他 → 200 OK（业务异常，通过响应体中的code区分）</li>
      * </ul>
      *
@@ -229,6 +231,7 @@ public class GlobalExceptionHandler {
             case "NOT_FOUND" -> HttpStatus.NOT_FOUND;        // 404
             case "CONFLICT" -> HttpStatus.CONFLICT;          // 409
             case "LOCKED" -> HttpStatus.LOCKED;              // 423
+            case "THROTTLE" -> HttpStatus.TOO_MANY_REQUESTS; // 429
             default -> HttpStatus.OK;                         // 200（业务异常）
         };
     }
@@ -244,6 +247,7 @@ public class GlobalExceptionHandler {
      *   <li>NOT_FOUND_001 → 404001</li>
      *   <li>CONFLICT_001 → 409001</li>
      *   <li>LOCKED_001 → 423001</li>
+     *   <li>THROTTLE_001 → 429001</li>
      *   <li>SYS_001 → 500001</li>
      * </ul>
      *
@@ -274,6 +278,7 @@ public class GlobalExceptionHandler {
                 case "NOT_FOUND" -> 404;
                 case "CONFLICT" -> 409;
                 case "LOCKED" -> 423;
+                case "THROTTLE" -> 429;
                 case "BIZ" -> 200;
                 case "SYS" -> 500;
                 default -> {